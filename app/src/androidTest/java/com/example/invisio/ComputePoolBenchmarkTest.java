@@ -0,0 +1,84 @@
+package com.example.invisio;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Speedup of the ComputePool kernels at 2, 4 and 8 threads against 1 thread:
+ * Sauvola binarisation, letterbox tensor pack and the analysis frame metrics.
+ * Results are logged under tag "ComputePoolBench" (ms per call and speedup).
+ */
+@RunWith(AndroidJUnit4.class)
+public class ComputePoolBenchmarkTest {
+
+    private static final String TAG = "ComputePoolBench";
+    private static final int[] THREADS = { 1, 2, 4, 8 };
+    private static final int ITERS = 20;
+    private static final int WARMUP = 3;
+
+    private interface Kernel {
+        void run(ComputePool pool);
+    }
+
+    @Test
+    public void stripeKernelsScale() {
+        Random rnd = new Random(1);
+        int pw = 1280, ph = 960;
+        int[] page = new int[pw * ph];
+        for (int i = 0; i < page.length; i++) page[i] = 0xFF000000 | rnd.nextInt(0xFFFFFF);
+        int[] work = new int[page.length];
+
+        int fw = 320, fh = 240;
+        byte[] luma = new byte[fw * fh], prev = new byte[fw * fh];
+        rnd.nextBytes(luma);
+        rnd.nextBytes(prev);
+
+        float[][][] tensor = new float[640][640][3];
+
+        Log.i(TAG, "bigCores=" + ComputePool.bigCores()
+                + " cpus=" + Runtime.getRuntime().availableProcessors());
+
+        bench("sauvola 1280x960", pool -> {
+            Binarizer b = new Binarizer(pool);
+            System.arraycopy(page, 0, work, 0, page.length);
+            b.binarize(work, pw, ph, Binarizer.Method.SAUVOLA, 31);
+        });
+        bench("letterbox 1280x960->640", pool -> {
+            LetterboxResizer r = new LetterboxResizer(640, 640, pool);
+            r.resize(page, pw, ph, 0.5f, 0f, 80f, tensor);
+        });
+        bench("metrics 320x240", pool -> FrameQuality.analyze(luma, prev, fw, fh, pool));
+
+        // Same answers at every thread count
+        FrameQuality single = FrameQuality.analyze(luma, prev, fw, fh);
+        ComputePool four = new ComputePool(4);
+        assertEquals(single.laplacianVar, FrameQuality.analyze(luma, prev, fw, fh, four).laplacianVar, 0.0);
+        four.shutdown();
+    }
+
+    private static void bench(String name, Kernel kernel) {
+        double base = 0;
+        for (int threads : THREADS) {
+            ComputePool pool = new ComputePool(threads);
+            try {
+                for (int i = 0; i < WARMUP; i++) kernel.run(pool);
+                long t0 = System.nanoTime();
+                for (int i = 0; i < ITERS; i++) kernel.run(pool);
+                double ms = (System.nanoTime() - t0) / 1e6 / ITERS;
+                if (threads == 1) base = ms;
+                Log.i(TAG, name + " threads=" + threads + " ms=" + String.format("%.2f", ms)
+                        + " speedup=" + String.format("%.2f", base / ms));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.invisio;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Latency of the hot DatabaseHelper lookups (userExists, getStoredPassword, getEmergencyContacts,
+ * getPrimaryContact), before and after the shared WAL connection:
+ *  - before: the old access pattern on a scratch copy of the schema without the
+ *    (user_id, priority) index: open, rawQuery with SELECT * and getColumnIndex, close;
+ *  - after: a DatabaseHelper (shared WAL connection, compiled statements) on its own file.
+ * Both databases are scratch files deleted afterwards; the app's database is never opened.
+ * Results are logged under tag "DatabaseBench" (µs per call and speedup).
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseBenchmarkTest {
+
+    private static final String TAG = "DatabaseBench";
+    private static final String BENCH_DB = "bench-helper.db";
+    private static final int USERS = 200;
+    private static final int CONTACTS_PER_USER = 5;
+    private static final int ITERS = 500;
+    private static final int WARMUP = 50;
+
+    private interface Query {
+        void run(int i);
+    }
+
+    private Context context;
+    private File legacyFile;
+    private DatabaseHelper db;
+    private int userId;
+    private String email;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(BENCH_DB);
+        db = new DatabaseHelper(context, BENCH_DB);
+        email = "bench@invisio.test";
+        assertTrue(db.registerUser("Bench User", email, "secret"));
+        userId = db.getUserDetails(email).getId();
+        // Other users' contacts in the table too, so the lookup has to filter
+        for (int c = 0; c < CONTACTS_PER_USER; c++) {
+            db.addEmergencyContact(userId, "Contact " + c, "555-01" + c, "Family", c + 1);
+        }
+        for (int u = 1; u < USERS; u++) {
+            for (int c = 0; c < CONTACTS_PER_USER; c++) {
+                db.addEmergencyContact(-u, "Other " + c, "555-02" + c, "Friend", c + 1);
+            }
+        }
+
+        legacyFile = new File(context.getCacheDir(), "bench-legacy.db");
+        SQLiteDatabase.deleteDatabase(legacyFile);
+        SQLiteDatabase legacy = SQLiteDatabase.openOrCreateDatabase(legacyFile, null);
+        legacy.execSQL("CREATE TABLE users(id INTEGER PRIMARY KEY AUTOINCREMENT, full_name TEXT NOT NULL,"
+                + " email TEXT UNIQUE NOT NULL, password TEXT NOT NULL, created_at DATETIME DEFAULT CURRENT_TIMESTAMP)");
+        legacy.execSQL("CREATE TABLE emergency_contacts(id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL,"
+                + " phone_number TEXT NOT NULL, relationship TEXT, priority INTEGER DEFAULT 999, user_id INTEGER NOT NULL)");
+        legacy.beginTransaction();
+        try {
+            legacy.execSQL("INSERT INTO users(id, full_name, email, password) VALUES (?,?,?,?)",
+                    new Object[]{ userId, "Bench User", email, "secret" });
+            for (int u = 0; u < USERS; u++) {
+                for (int c = 0; c < CONTACTS_PER_USER; c++) {
+                    legacy.execSQL("INSERT INTO emergency_contacts(name, phone_number, relationship, priority, user_id)"
+                            + " VALUES (?,?,?,?,?)", new Object[]{ "Contact " + c, "555-01" + c, "Family", c + 1,
+                            u == 0 ? userId : -u });
+                }
+            }
+            legacy.setTransactionSuccessful();
+        } finally {
+            legacy.endTransaction();
+        }
+        legacy.close();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+        context.deleteDatabase(BENCH_DB);
+        SQLiteDatabase.deleteDatabase(legacyFile);
+    }
+
+    @Test
+    public void hotLookupsBeforeAndAfter() {
+        String[] byEmail = { email };
+        String[] byUser = { String.valueOf(userId) };
+
+        compare("userExists",
+                i -> legacy(d -> count(d.rawQuery("SELECT * FROM users WHERE email=?", byEmail))),
+                i -> assertTrue(db.userExists(email)));
+        compare("getStoredPassword",
+                i -> legacy(d -> count(d.rawQuery("SELECT password FROM users WHERE email=?", byEmail))),
+                i -> assertEquals("secret", db.getStoredPassword(email)));
+        compare("getEmergencyContacts",
+                i -> legacy(d -> count(d.rawQuery("SELECT * FROM emergency_contacts WHERE user_id=?"
+                        + " ORDER BY priority ASC", byUser))),
+                i -> assertEquals(CONTACTS_PER_USER, db.getEmergencyContacts(userId).size()));
+        compare("getPrimaryContact",
+                i -> legacy(d -> count(d.rawQuery("SELECT * FROM emergency_contacts WHERE user_id=?"
+                        + " ORDER BY priority ASC LIMIT 1", byUser))),
+                i -> assertEquals(1, db.getPrimaryContact(userId).getPriority()));
+    }
+
+    private interface LegacyQuery {
+        int run(SQLiteDatabase d);
+    }
+
+    // Old pattern: every call opened the database, queried and closed it again
+    private void legacy(LegacyQuery q) {
+        SQLiteDatabase d = SQLiteDatabase.openDatabase(legacyFile.getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+        try {
+            assertTrue(q.run(d) > 0);
+        } finally {
+            d.close();
+        }
+    }
+
+    // Reads every row the way the old helper did (getColumnIndex, then getters)
+    private static int count(Cursor cursor) {
+        int rows = 0;
+        try {
+            int first = cursor.getColumnIndex(cursor.getColumnName(0));
+            while (cursor.moveToNext()) {
+                cursor.getString(first);
+                rows++;
+            }
+        } finally {
+            cursor.close();
+        }
+        return rows;
+    }
+
+    private static void compare(String name, Query before, Query after) {
+        double b = time(before), a = time(after);
+        Log.i(TAG, name + " before=" + String.format("%.1f", b) + "us after=" + String.format("%.1f", a)
+                + "us speedup=" + String.format("%.1f", b / a));
+    }
+
+    private static double time(Query q) {
+        for (int i = 0; i < WARMUP; i++) q.run(i);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < ITERS; i++) q.run(i);
+        return (System.nanoTime() - t0) / 1e3 / ITERS;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.invisio;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 640x640 letterbox into the detector's input tensor: the previous Canvas path
+ * (drawBitmap into a model-size bitmap, then getPixels and a float pack) against
+ * LetterboxResizer on the shared ComputePool.
+ * Results are logged under tag "LetterboxBench" (ms per frame and speedup).
+ */
+@RunWith(AndroidJUnit4.class)
+public class LetterboxBenchmarkTest {
+
+    private static final String TAG = "LetterboxBench";
+    private static final int IN = 640;
+    private static final int ITERS = 30;
+    private static final int WARMUP = 5;
+
+    @Test
+    public void resizerBeatsCanvas() {
+        float[][][] tensor = new float[IN][IN][3];
+        Bitmap canvasTarget = Bitmap.createBitmap(IN, IN, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(canvasTarget);
+        Matrix matrix = new Matrix();
+        int[] packed = new int[IN * IN];
+        LetterboxResizer resizer = new LetterboxResizer(IN, IN, ComputePool.get());
+
+        for (int[] size : new int[][]{ { 640, 480 }, { 1280, 720 }, { 1920, 1080 } }) {
+            int w = size[0], h = size[1];
+            Bitmap src = frame(w, h);
+            int[] srcPixels = new int[w * h];
+            float scale = Math.min(IN / (float) w, IN / (float) h);
+            float dx = (IN - Math.round(w * scale)) / 2f;
+            float dy = (IN - Math.round(h * scale)) / 2f;
+
+            Runnable old = () -> {
+                canvas.drawARGB(255, 114, 114, 114);
+                matrix.reset();
+                matrix.postScale(scale, scale);
+                matrix.postTranslate(dx, dy);
+                canvas.drawBitmap(src, matrix, null);
+                canvasTarget.getPixels(packed, 0, IN, 0, 0, IN, IN);
+                int idx = 0;
+                for (int y = 0; y < IN; y++) {
+                    for (int x = 0; x < IN; x++) {
+                        int p = packed[idx++];
+                        tensor[y][x][0] = ((p >> 16) & 0xFF) / 255f;
+                        tensor[y][x][1] = ((p >> 8) & 0xFF) / 255f;
+                        tensor[y][x][2] = (p & 0xFF) / 255f;
+                    }
+                }
+            };
+            Runnable fast = () -> {
+                src.getPixels(srcPixels, 0, w, 0, 0, w, h);
+                resizer.resize(srcPixels, w, h, scale, dx, dy, tensor);
+            };
+
+            double canvasMs = time(old);
+            float[] canvasCentre = tensor[IN / 2][IN / 2].clone();
+            double resizerMs = time(fast);
+            Log.i(TAG, w + "x" + h + "->" + IN + " canvas ms=" + String.format("%.2f", canvasMs)
+                    + " resizer ms=" + String.format("%.2f", resizerMs)
+                    + " speedup=" + String.format("%.2f", canvasMs / resizerMs));
+
+            // Same picture either way (Canvas without a paint samples nearest, so allow a little)
+            for (int c = 0; c < 3; c++) assertEquals(canvasCentre[c], tensor[IN / 2][IN / 2][c], 0.05f);
+            assertEquals(LetterboxResizer.PAD / 255f, tensor[0][0][0], 1e-6f);
+            src.recycle();
+        }
+        canvasTarget.recycle();
+    }
+
+    // Smooth gradient with mild noise, so nearest and bilinear sampling agree closely
+    private static Bitmap frame(int w, int h) {
+        Random rnd = new Random(w);
+        int[] px = new int[w * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int r = x * 255 / w, g = y * 255 / h, b = Math.min(255, 96 + rnd.nextInt(8));
+                px[y * w + x] = 0xFF000000 | (r << 16) | (g << 8) | b;
+            }
+        }
+        return Bitmap.createBitmap(px, w, h, Bitmap.Config.ARGB_8888);
+    }
+
+    private static double time(Runnable r) {
+        for (int i = 0; i < WARMUP; i++) r.run();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < ITERS; i++) r.run();
+        return (System.nanoTime() - t0) / 1e6 / ITERS;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.invisio;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * PixelConvert lookup tables against the arithmetic they replace, over a 1280x960 frame:
+ * luma() vs lumaArithmetic() and NORM[v] vs v / 255f.
+ * Results are logged under tag "PixelConvertBench" (ms per frame and speedup);
+ * the tables only earn their place if the speedup is above 1.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PixelConvertBenchmarkTest {
+
+    private static final String TAG = "PixelConvertBench";
+    private static final int N = 1280 * 960;
+    private static final int ITERS = 20;
+    private static final int WARMUP = 5;
+
+    private interface Kernel {
+        long run();
+    }
+
+    @Test
+    public void tablesAgainstArithmetic() {
+        Random rnd = new Random(1);
+        int[] argb = new int[N];
+        for (int i = 0; i < N; i++) argb[i] = rnd.nextInt();
+        byte[] rgba = new byte[N * 4];
+        rnd.nextBytes(rgba);
+        float[] out = new float[rgba.length];
+
+        long lut = compare("luma",
+                () -> {
+                    long s = 0;
+                    for (int p : argb) s += PixelConvert.luma(p);
+                    return s;
+                },
+                () -> {
+                    long s = 0;
+                    for (int p : argb) s += PixelConvert.lumaArithmetic(p);
+                    return s;
+                });
+        assertTrue(lut > 0);
+
+        float[] norm = PixelConvert.NORM;
+        compare("norm",
+                () -> {
+                    for (int i = 0; i < rgba.length; i++) out[i] = norm[rgba[i] & 0xFF];
+                    return Float.floatToIntBits(out[N]);
+                },
+                () -> {
+                    for (int i = 0; i < rgba.length; i++) out[i] = (rgba[i] & 0xFF) / 255f;
+                    return Float.floatToIntBits(out[N]);
+                });
+    }
+
+    // Times both kernels, checks they agree and returns the table kernel's result
+    private static long compare(String name, Kernel table, Kernel arithmetic) {
+        double tableMs = time(table), arithMs = time(arithmetic);
+        Log.i(TAG, name + " table ms=" + String.format("%.2f", tableMs)
+                + " arithmetic ms=" + String.format("%.2f", arithMs)
+                + " speedup=" + String.format("%.2f", arithMs / tableMs));
+        long expected = arithmetic.run();
+        long actual = table.run();
+        assertEquals(name, expected, actual);
+        return actual;
+    }
+
+    private static double time(Kernel k) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) sink += k.run();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < ITERS; i++) sink += k.run();
+        double ms = (System.nanoTime() - t0) / 1e6 / ITERS;
+        if (sink == 42) Log.v(TAG, "sink");   // keeps the loops from being optimised away
+        return ms;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.invisio;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+import android.util.Pair;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * CPU throughput of YoloV5TFLiteDetector at batch sizes 1, 2 and 4.
+ * Results are logged under tag "YoloBatchBench" (frames per second).
+ */
+@RunWith(AndroidJUnit4.class)
+public class YoloBatchBenchmarkTest {
+
+    private static final String TAG = "YoloBatchBench";
+    private static final String MODEL = "yolov5.tflite";
+    private static final String LABELS = "yolov5_labels.txt";
+    private static final int FRAMES = 32;
+    private static final int WARMUP = 4;
+
+    @Test
+    public void batchThroughputOnCpu() throws Exception {
+        Context ctx = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        assumeTrue("Model asset missing", hasAsset(ctx, MODEL));
+
+        YoloV5TFLiteDetector detector = new YoloV5TFLiteDetector(ctx, MODEL, LABELS, false);
+        try {
+            Bitmap frame = Bitmap.createBitmap(640, 480, Bitmap.Config.ARGB_8888);
+            frame.eraseColor(0xFF808080);
+
+            for (int batch : new int[]{ 1, 2, 4 }) {
+                List<Bitmap> frames = new ArrayList<>();
+                for (int i = 0; i < batch; i++) frames.add(frame);
+
+                for (int i = 0; i < WARMUP; i++) detector.detect(frames);
+
+                long t0 = System.nanoTime();
+                int done = 0;
+                while (done < FRAMES) {
+                    Pair<List<List<YoloV5TFLiteDetector.Det>>, float[]> res = detector.detect(frames);
+                    assertEquals(batch, res.first.size());
+                    done += batch;
+                }
+                float secs = (System.nanoTime() - t0) / 1e9f;
+                Log.i(TAG, "batch=" + batch + " fps=" + (done / secs));
+            }
+        } finally {
+            detector.close();
+        }
+    }
+
+    private static boolean hasAsset(Context ctx, String name) {
+        try {
+            ctx.getAssets().open(name).close();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.invisio;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranks detections for speech so the most urgent current object is heard first.
+ *  - Tracks: a detection continues the same-label track with the best box overlap (IoU),
+ *    else the nearest centre within MAX_SHIFT; each track matches once per frame, so two
+ *    people stay two tracks and one person walking across a position boundary stays one.
+ *  - Score: box size + growth rate (closing-distance proxy), class danger, centrality.
+ *  - Small bounded queue keyed by track: a newer frame replaces the entry,
+ *    entries not refreshed within STALE_MS are dropped instead of being spoken late.
+ *  - Per-track repeat cooldown (8s), skipped when the object is clearly approaching.
+ *
+ * Detector thread: offer(...) for each detection, endFrame(now), then poll(now)
+ * whenever speech output is free to take the next phrase.
+ */
+class AnnouncementPrioritizer {
+
+    static class Item {
+        final String key;
+        final String subject;   // "car" or "car approaching"
+        final String position;  // "in front of you", ...
+        final float score;
+        final long ts;
+
+        Item(String key, String subject, String position, float score, long ts) {
+            this.key = key;
+            this.subject = subject;
+            this.position = position;
+            this.score = score;
+            this.ts = ts;
+        }
+    }
+
+    private static class Track {
+        final String key;   // "label#id"
+        final String label;
+        float left, top, right, bottom;   // normalized to the frame
+        float area;
+        float growth;   // smoothed relative area growth per second
+        long ts;
+        long spokenAt = -1;
+        int frame;      // last frame this track was matched in
+
+        Track(String key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+    }
+
+    private static final int CAPACITY = 3;
+    private static final long STALE_MS = 1500;
+    private static final long REPEAT_COOLDOWN_MS = 8000;
+    private static final long TRACK_TTL_MS = 3000;     // unseen longer: growth restarts
+    private static final float MIN_IOU = 0.2f;
+    private static final float MAX_SHIFT = 0.15f;      // centre move (of the frame) between sightings
+    private static final float APPROACH_GROWTH = 0.5f; // +50% area per second
+
+    // Score weights
+    private static final float W_SIZE = 2.0f;
+    private static final float W_GROWTH = 1.5f;
+    private static final float W_CENTER = 0.5f;
+
+    private static final Map<String, Float> DANGER = new HashMap<>();
+    static {
+        for (String s : new String[]{ "car", "bus", "truck", "train", "motorcycle", "motorbike" }) DANGER.put(s, 1.5f);
+        for (String s : new String[]{ "bicycle", "dog", "horse", "cow" }) DANGER.put(s, 1.0f);
+        for (String s : new String[]{ "person", "stop sign", "traffic light", "fire hydrant", "bench" }) DANGER.put(s, 0.6f);
+    }
+    private static final float DANGER_DEFAULT = 0.2f;
+
+    private final Map<String, Track> tracks = new HashMap<>();
+    private int nextTrackId = 0;
+    private int frame = 0;
+    private final List<Item> queue = new ArrayList<>(CAPACITY + 1); // score desc
+
+    /** Box in source-frame pixels; frameW/frameH are the source frame size. */
+    synchronized void offer(String label, String position, float confidence,
+                            float left, float top, float right, float bottom,
+                            int frameW, int frameH, long now) {
+        if (frameW <= 0 || frameH <= 0) return;
+        float l = left / frameW, tp = top / frameH, r = right / frameW, b = bottom / frameH;
+
+        float area = Math.max(0f, r - l) * Math.max(0f, b - tp);
+        Track t = match(label, l, tp, r, b);
+        if (t == null) {
+            t = new Track(label + "#" + (nextTrackId++), label);
+            tracks.put(t.key, t);
+        } else if (now - t.ts > TRACK_TTL_MS) {
+            t.growth = 0f;
+        } else if (now > t.ts && t.area > 0f) {
+            float inst = (area - t.area) / t.area * 1000f / (now - t.ts);
+            t.growth = 0.5f * t.growth + 0.5f * inst;
+        }
+        t.left = l; t.top = tp; t.right = r; t.bottom = b;
+        t.area = area;
+        t.ts = now;
+        t.frame = frame;
+
+        boolean approaching = t.growth > APPROACH_GROWTH;
+        if (t.spokenAt >= 0 && now - t.spokenAt < REPEAT_COOLDOWN_MS && !approaching) return;
+
+        float cx = (left + right) / 2f / frameW;
+        float centrality = 1f - Math.min(1f, Math.abs(cx - 0.5f) * 2f);
+        Float danger = DANGER.get(label.toLowerCase());
+        float score = confidence * (W_SIZE * area
+                + W_GROWTH * Math.max(0f, Math.min(2f, t.growth))
+                + (danger != null ? danger : DANGER_DEFAULT)
+                + W_CENTER * centrality);
+
+        String subject = approaching ? label + " approaching" : label;
+        insert(new Item(t.key, subject, position, score, now));
+    }
+
+    /** Called after all detections of a frame were offered. */
+    synchronized void endFrame(long now) {
+        frame++;
+        // Unseen tracks go, but not while their cooldown could still hold back a repeat
+        Iterator<Map.Entry<String, Track>> it = tracks.entrySet().iterator();
+        while (it.hasNext()) {
+            Track t = it.next().getValue();
+            boolean coolingDown = t.spokenAt >= 0 && now - t.spokenAt < REPEAT_COOLDOWN_MS;
+            if (now - t.ts > TRACK_TTL_MS && !coolingDown) it.remove();
+        }
+    }
+
+    /** Most urgent fresh item, or null. The item's track starts its repeat cooldown. */
+    synchronized Item poll(long now) {
+        dropStale(now);
+        if (queue.isEmpty()) return null;
+        Item it = queue.remove(0);
+        Track t = tracks.get(it.key);
+        if (t != null) t.spokenAt = now;
+        return it;
+    }
+
+    synchronized void clear() {
+        queue.clear();
+        tracks.clear();
+    }
+
+    // Same-label track not yet matched this frame: best IoU >= MIN_IOU, else nearest centre
+    private Track match(String label, float l, float t, float r, float b) {
+        Track best = null;
+        float bestScore = 0f;
+        float cx = (l + r) / 2f, cy = (t + b) / 2f;
+        for (Track tr : tracks.values()) {
+            if (tr.frame == frame || !tr.label.equals(label)) continue;
+            float score = iou(l, t, r, b, tr);
+            if (score < MIN_IOU) {
+                float shift = Math.max(Math.abs(cx - (tr.left + tr.right) / 2f), Math.abs(cy - (tr.top + tr.bottom) / 2f));
+                if (shift > MAX_SHIFT) continue;
+                score = MIN_IOU * (1f - shift / MAX_SHIFT);   // always below an overlap match
+            }
+            if (best == null || score > bestScore) {
+                best = tr;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private static float iou(float l, float t, float r, float b, Track tr) {
+        float iw = Math.min(r, tr.right) - Math.max(l, tr.left);
+        float ih = Math.min(b, tr.bottom) - Math.max(t, tr.top);
+        if (iw <= 0f || ih <= 0f) return 0f;
+        float inter = iw * ih;
+        float union = (r - l) * (b - t) + tr.area - inter;
+        return union > 0f ? inter / union : 0f;
+    }
+
+    private void insert(Item item) {
+        // Superseded: same key from an older frame
+        for (int i = 0; i < queue.size(); i++) {
+            if (queue.get(i).key.equals(item.key)) {
+                queue.remove(i);
+                break;
+            }
+        }
+        int pos = 0;
+        while (pos < queue.size() && queue.get(pos).score >= item.score) pos++;
+        if (pos >= CAPACITY) return;
+        queue.add(pos, item);
+        if (queue.size() > CAPACITY) queue.remove(queue.size() - 1);
+    }
+
+    private void dropStale(long now) {
+        for (int i = queue.size() - 1; i >= 0; i--) {
+            if (now - queue.get(i).ts > STALE_MS) queue.remove(i);
+        }
+    }
+}
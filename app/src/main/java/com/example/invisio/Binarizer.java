@@ -0,0 +1,253 @@
+package com.example.invisio;
+
+import java.util.Arrays;
+
+/**
+ * Black/white page binarisation for OCR, in place on an ARGB int[] (Bitmap.getPixels).
+ *  - OTSU: one global threshold from the luma histogram.
+ *  - SAUVOLA / BRADLEY: per-pixel threshold from the local window mean (and deviation),
+ *    read from integral images, so uneven lighting doesn't black out half the page.
+ *  - Work is split into horizontal stripes on a ComputePool. Each stripe builds its own part of the
+ *    integral image and histogram; a short sequential step turns those into carries,
+ *    then stripes threshold in parallel. The integral buffer is kept between calls.
+ * Not thread-safe per instance beyond binarize() being synchronized.
+ */
+class Binarizer {
+
+    enum Method { OTSU, SAUVOLA, BRADLEY }
+
+    static final float SAUVOLA_K = 0.34f;
+    static final float SAUVOLA_R = 128f;
+    static final float BRADLEY_T = 0.15f;
+    private static final int WHITE = 0xFFFFFFFF;
+    private static final int BLACK = 0xFF000000;
+
+    private static final int MIN_ROWS = 32;   // per stripe
+
+    private final ComputePool pool;
+    private final boolean ownsPool;
+
+    // Working state, reused across calls
+    private int[] pixels = new int[0];
+    private long[] integral = new long[0];  // (h+1) x (w+1) cells; per cell sum [, sum of squares]
+    private long[] carry = new long[0];     // per stripe: integral row above the stripe
+    private int[][] hist = new int[0][];    // per-stripe partial histograms
+
+    private int w, h, cell, stripes, stripeH;
+
+    /** Uses the shared ComputePool. */
+    Binarizer(ComputePool pool) {
+        this.pool = pool;
+        this.ownsPool = false;
+    }
+
+    /** Dedicated pool with the given thread count, shut down by close(). */
+    Binarizer(int workers) {
+        this.pool = new ComputePool(workers);
+        this.ownsPool = true;
+    }
+
+    /** Reusable ARGB buffer of at least n pixels (for Bitmap.getPixels). */
+    int[] pixels(int n) {
+        if (pixels.length < n) pixels = new int[n];
+        return pixels;
+    }
+
+    /**
+     * Binarises argb (row length w) in place to opaque black/white.
+     * window: local window side in pixels (odd); ignored for OTSU.
+     * Returns the global Otsu threshold (computed for every method).
+     */
+    synchronized int binarize(int[] argb, int w, int h, Method method, int window) {
+        this.w = w;
+        this.h = h;
+        boolean local = method != Method.OTSU;
+        cell = method == Method.SAUVOLA ? 2 : 1;
+        stripes = Math.max(1, pool.stripes(h, MIN_ROWS));
+        stripeH = (h + stripes - 1) / stripes;
+        stripes = (h + stripeH - 1) / stripeH;
+        if (hist.length < stripes) hist = new int[stripes][256];
+
+        if (local) {
+            int need = (h + 1) * (w + 1) * cell;
+            if (integral.length < need) integral = new long[need];
+            Arrays.fill(integral, 0, (w + 1) * cell, 0L);  // row 0
+            if (carry.length < stripes * (w + 1) * cell) carry = new long[stripes * (w + 1) * cell];
+        }
+
+        // 1) luma (in place), partial histograms, stripe-local integral rows
+        forStripes(s -> lumaStripe(argb, s, local));
+
+        int[] total = hist[0];
+        for (int s = 1; s < stripes; s++) {
+            for (int i = 0; i < 256; i++) total[i] += hist[s][i];
+        }
+        int otsu = otsu(total, w * h);
+
+        // 2) carries: global integral row at each stripe's top edge
+        if (local) {
+            int rowLen = (w + 1) * cell;
+            Arrays.fill(carry, 0, rowLen, 0L);
+            for (int s = 1; s < stripes; s++) {
+                int prevBottom = (s * stripeH) * rowLen;  // last local row of stripe s - 1
+                for (int i = 0; i < rowLen; i++) {
+                    carry[s * rowLen + i] = carry[(s - 1) * rowLen + i] + integral[prevBottom + i];
+                }
+            }
+        }
+
+        // 3) threshold
+        final int r = Math.max(1, window / 2);
+        forStripes(s -> thresholdStripe(argb, s, method, otsu, r));
+        return otsu;
+    }
+
+    void close() {
+        if (ownsPool) pool.shutdown();
+    }
+
+    /** Otsu threshold of a 256-bin histogram over total samples. */
+    static int otsu(int[] hist, int total) {
+        float sum = 0;
+        for (int t = 0; t < 256; t++) sum += t * hist[t];
+
+        float sumB = 0;
+        int wB = 0;
+        float varMax = 0;
+        int threshold = 0;
+
+        for (int t = 0; t < 256; t++) {
+            wB += hist[t];
+            if (wB == 0) continue;
+            int wF = total - wB;
+            if (wF == 0) break;
+
+            sumB += t * hist[t];
+            float mB = sumB / wB;
+            float mF = (sum - sumB) / wF;
+
+            float varBetween = (float) wB * wF * (mB - mF) * (mB - mF);
+            if (varBetween > varMax) {
+                varMax = varBetween;
+                threshold = t;
+            }
+        }
+        return threshold;
+    }
+
+    /**
+     * Spread of tile mean brightness (0..1) over a region [x0,x1) x [y0,y1) of a small
+     * luma frame with row length stride: high = unevenly lit page.
+     */
+    static float illuminationSpread(byte[] y, int stride, int x0, int y0, int x1, int y1) {
+        final int tiles = 4;
+        int rw = x1 - x0, rh = y1 - y0;
+        int min = 255, max = 0;
+        for (int ty = 0; ty < tiles; ty++) {
+            int ty0 = y0 + ty * rh / tiles, ty1 = y0 + (ty + 1) * rh / tiles;
+            for (int tx = 0; tx < tiles; tx++) {
+                int tx0 = x0 + tx * rw / tiles, tx1 = x0 + (tx + 1) * rw / tiles;
+                int n = (ty1 - ty0) * (tx1 - tx0);
+                if (n <= 0) continue;
+                long sum = 0;
+                for (int j = ty0; j < ty1; j++) {
+                    for (int i = tx0; i < tx1; i++) sum += y[j * stride + i] & 0xFF;
+                }
+                int mean = (int) (sum / n);
+                min = Math.min(min, mean);
+                max = Math.max(max, mean);
+            }
+        }
+        return max < min ? 0f : (max - min) / 255f;
+    }
+
+    private void lumaStripe(int[] argb, int s, boolean local) {
+        int[] hs = hist[s];
+        Arrays.fill(hs, 0);
+        int y0 = s * stripeH, y1 = Math.min(h, y0 + stripeH);
+        int rowLen = (w + 1) * cell;
+        for (int y = y0; y < y1; y++) {
+            int base = y * w;
+            // Local integral row index y + 1; the row above is zero at the stripe top
+            int out = (y + 1) * rowLen;
+            int above = out - rowLen;
+            boolean first = y == y0;
+            long rowSum = 0, rowSq = 0;
+            if (local) {
+                integral[out] = 0;
+                if (cell == 2) integral[out + 1] = 0;
+            }
+            for (int x = 0; x < w; x++) {
+                int l = PixelConvert.luma(argb[base + x]);
+                argb[base + x] = l;
+                hs[l]++;
+                if (!local) continue;
+                rowSum += l;
+                int o = out + (x + 1) * cell;
+                integral[o] = rowSum + (first ? 0 : integral[above + (x + 1) * cell]);
+                if (cell == 2) {
+                    rowSq += l * l;
+                    integral[o + 1] = rowSq + (first ? 0 : integral[above + (x + 1) * cell + 1]);
+                }
+            }
+        }
+    }
+
+    private void thresholdStripe(int[] argb, int s, Method method, int otsu, int r) {
+        int y0 = s * stripeH, y1 = Math.min(h, y0 + stripeH);
+        if (method == Method.OTSU) {
+            for (int i = y0 * w, end = y1 * w; i < end; i++) argb[i] = argb[i] > otsu ? WHITE : BLACK;
+            return;
+        }
+        int rowLen = (w + 1) * cell;
+        for (int y = y0; y < y1; y++) {
+            int top = Math.max(0, y - r), bottom = Math.min(h, y + r + 1);   // integral rows
+            int topRow = top * rowLen, botRow = bottom * rowLen;
+            int topCarry = carryBase(top), botCarry = carryBase(bottom);
+            int base = y * w;
+            for (int x = 0; x < w; x++) {
+                int left = Math.max(0, x - r) * cell, right = Math.min(w, x + r + 1) * cell;
+                int n = (bottom - top) * (right - left) / cell;
+                long sum = g(botRow, botCarry, right) - g(topRow, topCarry, right)
+                        - g(botRow, botCarry, left) + g(topRow, topCarry, left);
+                int l = argb[base + x];
+                boolean white;
+                if (method == Method.BRADLEY) {
+                    // l < mean * (1 - t)  <=>  l * n * 100 < sum * (100 - 100t)
+                    white = (long) l * n * 100 >= sum * (long) (100 - (int) (BRADLEY_T * 100));
+                } else {
+                    long sq = g(botRow, botCarry, right + 1) - g(topRow, topCarry, right + 1)
+                            - g(botRow, botCarry, left + 1) + g(topRow, topCarry, left + 1);
+                    double mean = sum / (double) n;
+                    double var = Math.max(0.0, sq / (double) n - mean * mean);
+                    double t = mean * (1.0 + SAUVOLA_K * (Math.sqrt(var) / SAUVOLA_R - 1.0));
+                    white = l > t;
+                }
+                argb[base + x] = white ? WHITE : BLACK;
+            }
+        }
+    }
+
+    // Integral row r is stored stripe-local (r > 0 belongs to the stripe holding image row r - 1);
+    // the global value adds that stripe's carry. Returns the carry offset, or -1 for row 0.
+    private int carryBase(int row) {
+        if (row == 0) return -1;
+        return ((row - 1) / stripeH) * (w + 1) * cell;
+    }
+
+    private long g(int rowOffset, int carryOffset, int col) {
+        if (carryOffset < 0) return 0L;
+        return integral[rowOffset + col] + carry[carryOffset + col];
+    }
+
+    private interface StripeTask {
+        void run(int stripe);
+    }
+
+    // One pool task per stripe index (stripes <= pool parallelism)
+    private void forStripes(StripeTask task) {
+        pool.forStripes(stripes, 1, (from, to) -> {
+            for (int s = from; s < to; s++) task.run(s);
+        });
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.invisio;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Shared fork/join pool for per-pixel kernels, sized to the big (fastest) CPU cores.
+ *  - forStripes(): split [0, n) rows into contiguous stripes; the caller runs stripe 0.
+ *  - reduce(): same, with one partial accumulator per stripe merged at the end, so
+ *    histograms and sums need no shared state or atomics.
+ * Calls from inside a pool worker run inline (no nested fan-out, no deadlock).
+ */
+final class ComputePool {
+
+    interface RangeTask {
+        void run(int from, int to);
+    }
+
+    interface Reducer<A> {
+        A create();
+        void accumulate(A acc, int from, int to);
+        void merge(A into, A from);
+    }
+
+    private static ComputePool shared;
+
+    /** Process-wide pool with bigCores() threads. */
+    static synchronized ComputePool get() {
+        if (shared == null) shared = new ComputePool(bigCores());
+        return shared;
+    }
+
+    private final int parallelism;
+    private final ForkJoinPool pool;   // null when single-threaded
+
+    /** Dedicated pool with the given thread count (e.g. for benchmarks); shutdown() when done. */
+    ComputePool(int threads) {
+        parallelism = Math.max(1, threads);
+        pool = parallelism > 1 ? new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("Compute-" + t.getPoolIndex());
+            return t;
+        }, null, false) : null;
+    }
+
+    int parallelism() {
+        return parallelism;
+    }
+
+    /** Stripe count for n rows when no stripe should be smaller than minRows. */
+    int stripes(int n, int minRows) {
+        if (n <= 0) return 0;
+        return Math.max(1, Math.min(parallelism, n / Math.max(1, minRows)));
+    }
+
+    void forStripes(int n, int minRows, RangeTask task) {
+        int k = stripes(n, minRows);
+        if (k == 0) return;
+        if (k == 1 || inPool()) {
+            task.run(0, n);
+            return;
+        }
+        ForkJoinTask<?>[] forks = new ForkJoinTask<?>[k - 1];
+        for (int s = 1; s < k; s++) {
+            final int from = (int) ((long) n * s / k), to = (int) ((long) n * (s + 1) / k);
+            forks[s - 1] = pool.submit(() -> task.run(from, to));
+        }
+        task.run(0, (int) ((long) n / k));
+        for (ForkJoinTask<?> f : forks) f.join();
+    }
+
+    <A> A reduce(int n, int minRows, Reducer<A> reducer) {
+        int k = stripes(n, minRows);
+        A result = reducer.create();
+        if (k == 0) return result;
+        if (k == 1 || inPool()) {
+            reducer.accumulate(result, 0, n);
+            return result;
+        }
+        List<ForkJoinTask<A>> forks = new ArrayList<>(k - 1);
+        for (int s = 1; s < k; s++) {
+            final int from = (int) ((long) n * s / k), to = (int) ((long) n * (s + 1) / k);
+            forks.add(pool.submit(() -> {
+                A part = reducer.create();
+                reducer.accumulate(part, from, to);
+                return part;
+            }));
+        }
+        reducer.accumulate(result, 0, (int) ((long) n / k));
+        for (ForkJoinTask<A> f : forks) reducer.merge(result, f.join());
+        return result;
+    }
+
+    void shutdown() {
+        if (pool != null && this != shared) pool.shutdownNow();
+    }
+
+    private boolean inPool() {
+        Thread t = Thread.currentThread();
+        return t instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) t).getPool() == pool;
+    }
+
+    /**
+     * Number of cores in the fastest cluster (by cpuinfo_max_freq). Falls back to half
+     * the CPUs when frequencies can't be read (e.g. on a desktop JVM).
+     */
+    static int bigCores() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        long maxFreq = 0;
+        int atMax = 0;
+        for (int i = 0; i < cpus; i++) {
+            long f = readLong("/sys/devices/system/cpu/cpu" + i + "/cpufreq/cpuinfo_max_freq");
+            if (f <= 0) continue;
+            if (f > maxFreq) {
+                maxFreq = f;
+                atMax = 1;
+            } else if (f == maxFreq) {
+                atMax++;
+            }
+        }
+        // A single prime core next to a cluster of big ones: count the big ones too
+        if (atMax == 1 && maxFreq > 0) {
+            int near = 0;
+            for (int i = 0; i < cpus; i++) {
+                long f = readLong("/sys/devices/system/cpu/cpu" + i + "/cpufreq/cpuinfo_max_freq");
+                if (f >= maxFreq * 3 / 4) near++;
+            }
+            atMax = near;
+        }
+        if (atMax == 0) atMax = cpus / 2;
+        return Math.max(1, Math.min(cpus, atMax));
+    }
+
+    private static long readLong(String path) {
+        File f = new File(path);
+        if (!f.canRead()) return -1;
+        try (BufferedReader r = new BufferedReader(new FileReader(f))) {
+            String line = r.readLine();
+            return line == null ? -1 : Long.parseLong(line.trim());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
@@ -4,15 +4,19 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class DatabaseHelper extends SQLiteOpenHelper {
 
     private static final String DATABASE_NAME = "InVisio.db";
-    private static final int DATABASE_VERSION = 4; // Updated version
+    // v5: scanned pages + FTS, v6: emergency alert status, v7: contacts (user_id, priority) index
+    private static final int DATABASE_VERSION = 7;
 
     // Users table
     private static final String TABLE_USERS = "users";
@@ -31,8 +35,81 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String COLUMN_CONTACT_PRIORITY = "priority";
     private static final String COLUMN_CONTACT_USER_ID = "user_id";
 
-    public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    // Scanned pages (Read Mate) + external-content FTS index over title/body
+    private static final String TABLE_PAGES = "scanned_pages";
+    private static final String TABLE_PAGES_FTS = "scanned_pages_fts";
+    private static final String COLUMN_PAGE_ID = "id";
+    private static final String COLUMN_PAGE_SESSION = "session_id";
+    private static final String COLUMN_PAGE_NO = "page_no";
+    private static final String COLUMN_PAGE_TITLE = "title";
+    private static final String COLUMN_PAGE_BODY = "body";
+    private static final String COLUMN_PAGE_HASH = "text_hash";
+    private static final String COLUMN_PAGE_CREATED = "created_at";
+    // Emergency alert delivery status, one row per contact per alert round
+    private static final String TABLE_ALERTS = "emergency_alerts";
+    private static final String COLUMN_ALERT_ROUND = "round_id";
+    private static final String COLUMN_ALERT_CONTACT = "contact_id";
+    private static final String COLUMN_ALERT_NAME = "contact_name";
+    private static final String COLUMN_ALERT_PHONE = "phone_number";
+    private static final String COLUMN_ALERT_STATE = "state";
+    private static final String COLUMN_ALERT_ATTEMPTS = "attempts";
+    private static final String COLUMN_ALERT_ERROR = "last_error";
+    private static final String COLUMN_ALERT_UPDATED = "updated_at";
+
+    // Fixed column order so rows are read by position, no getColumnIndex per query
+    private static final String CONTACT_COLUMNS = COLUMN_CONTACT_ID + "," + COLUMN_CONTACT_NAME + ","
+            + COLUMN_CONTACT_PHONE + "," + COLUMN_CONTACT_RELATIONSHIP + "," + COLUMN_CONTACT_PRIORITY + ","
+            + COLUMN_CONTACT_USER_ID;
+    // Constant SQL: the connection's prepared-statement cache keeps these compiled
+    private static final String SQL_CONTACTS = "SELECT " + CONTACT_COLUMNS + " FROM " + TABLE_EMERGENCY_CONTACTS
+            + " WHERE " + COLUMN_CONTACT_USER_ID + "=? ORDER BY " + COLUMN_CONTACT_PRIORITY + " ASC";
+    private static final String SQL_PRIMARY_CONTACT = SQL_CONTACTS + " LIMIT 1";
+
+    private static final String PAGE_COLUMNS = COLUMN_PAGE_ID + "," + COLUMN_PAGE_SESSION + "," + COLUMN_PAGE_NO + ","
+            + COLUMN_PAGE_TITLE + "," + COLUMN_PAGE_BODY + "," + COLUMN_PAGE_HASH + "," + COLUMN_PAGE_CREATED;
+
+    /** In-process change notification for emergency contacts (add, update, delete). */
+    interface ContactsListener {
+        void onContactsChanged();
+    }
+
+    private static final List<ContactsListener> contactsListeners = new CopyOnWriteArrayList<>();
+
+    static void addContactsListener(ContactsListener l) {
+        contactsListeners.add(l);
+    }
+
+    static void removeContactsListener(ContactsListener l) {
+        contactsListeners.remove(l);
+    }
+
+    private static void notifyContactsChanged() {
+        for (ContactsListener l : contactsListeners) l.onContactsChanged();
+    }
+
+    private static DatabaseHelper instance;
+
+    /**
+     * The process-wide helper. One SQLiteDatabase is opened (in WAL mode, so readers don't
+     * wait for writers) and kept open for the life of the process; callers never close it.
+     */
+    public static synchronized DatabaseHelper get(Context context) {
+        if (instance == null) instance = new DatabaseHelper(context.getApplicationContext());
+        return instance;
+    }
+
+    // Single-row lookups compiled once; a statement is not thread-safe, so each is used under its own lock
+    private SQLiteStatement userExistsStmt;
+    private SQLiteStatement passwordStmt;
+
+    private DatabaseHelper(Context context) {
+        this(context, DATABASE_NAME);
+    }
+
+    /** A helper on its own database file, so instrumented tests never touch the app's data. */
+    DatabaseHelper(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
     }
 
     @Override
@@ -58,6 +135,10 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 + "FOREIGN KEY(" + COLUMN_CONTACT_USER_ID + ") REFERENCES " + TABLE_USERS + "(" + COLUMN_ID + ")"
                 + ")";
         db.execSQL(CREATE_CONTACTS_TABLE);
+        createContactsIndex(db);
+
+        createPageTables(db);
+        createAlertTable(db);
     }
 
     @Override
@@ -75,10 +156,64 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                     + ")";
             db.execSQL(CREATE_CONTACTS_TABLE);
         }
+        if (oldVersion < 5) {
+            createPageTables(db);
+        }
+        if (oldVersion < 6) {
+            createAlertTable(db);
+        }
+        if (oldVersion < 7) {
+            createContactsIndex(db);
+        }
+    }
+
+    // Contacts are always read per user in priority order: the index serves both the filter and the sort
+    private static void createContactsIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_contacts_user_priority ON " + TABLE_EMERGENCY_CONTACTS
+                + "(" + COLUMN_CONTACT_USER_ID + "," + COLUMN_CONTACT_PRIORITY + ")");
+    }
+
+    private static void createAlertTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_ALERTS + "("
+                + COLUMN_ALERT_ROUND + " INTEGER NOT NULL,"
+                + COLUMN_ALERT_CONTACT + " INTEGER NOT NULL,"
+                + COLUMN_ALERT_NAME + " TEXT,"
+                + COLUMN_ALERT_PHONE + " TEXT NOT NULL,"
+                + COLUMN_ALERT_STATE + " TEXT NOT NULL,"
+                + COLUMN_ALERT_ATTEMPTS + " INTEGER NOT NULL,"
+                + COLUMN_ALERT_ERROR + " INTEGER NOT NULL DEFAULT 0,"
+                + COLUMN_ALERT_UPDATED + " INTEGER NOT NULL,"
+                + "PRIMARY KEY(" + COLUMN_ALERT_ROUND + "," + COLUMN_ALERT_CONTACT + ")"
+                + ")");
+    }
+
+    private static void createPageTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_PAGES + "("
+                + COLUMN_PAGE_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + COLUMN_PAGE_SESSION + " INTEGER NOT NULL,"
+                + COLUMN_PAGE_NO + " INTEGER NOT NULL,"
+                + COLUMN_PAGE_TITLE + " TEXT,"
+                + COLUMN_PAGE_BODY + " TEXT NOT NULL,"
+                + COLUMN_PAGE_HASH + " INTEGER NOT NULL,"
+                + COLUMN_PAGE_CREATED + " INTEGER NOT NULL"
+                + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_pages_created ON " + TABLE_PAGES + "(" + COLUMN_PAGE_CREATED + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_pages_hash ON " + TABLE_PAGES + "(" + COLUMN_PAGE_HASH + ")");
+
+        // FTS4 keeps only the index; text stays in scanned_pages. Triggers keep them in sync.
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_PAGES_FTS + " USING fts4("
+                + "content=\"" + TABLE_PAGES + "\", " + COLUMN_PAGE_TITLE + ", " + COLUMN_PAGE_BODY
+                + ", tokenize=unicode61)");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS pages_ai AFTER INSERT ON " + TABLE_PAGES + " BEGIN "
+                + "INSERT INTO " + TABLE_PAGES_FTS + "(docid, " + COLUMN_PAGE_TITLE + ", " + COLUMN_PAGE_BODY + ") "
+                + "VALUES (new." + COLUMN_PAGE_ID + ", new." + COLUMN_PAGE_TITLE + ", new." + COLUMN_PAGE_BODY + "); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS pages_bd BEFORE DELETE ON " + TABLE_PAGES + " BEGIN "
+                + "DELETE FROM " + TABLE_PAGES_FTS + " WHERE docid = old." + COLUMN_PAGE_ID + "; END");
     }
 
     // ==================== USER METHODS ====================
 
+    /** password: the stored form from PasswordHasher.hash(), never the plain password. */
     public boolean registerUser(String fullName, String email, String password) {
         try {
             SQLiteDatabase db = this.getWritableDatabase();
@@ -87,7 +222,6 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             values.put(COLUMN_EMAIL, email.toLowerCase().trim());
             values.put(COLUMN_PASSWORD, password);
             long result = db.insert(TABLE_USERS, null, values);
-            db.close();
             Log.d("DatabaseHelper", "Registration result: " + result);
             return result != -1;
         } catch (Exception e) {
@@ -98,45 +232,65 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
     public boolean userExists(String email) {
         try {
-            SQLiteDatabase db = this.getReadableDatabase();
-            Cursor cursor = db.rawQuery("SELECT * FROM " + TABLE_USERS + " WHERE " + COLUMN_EMAIL + "=?",
-                    new String[]{email.toLowerCase().trim()});
-            boolean exists = cursor.getCount() > 0;
-            cursor.close();
-            db.close();
-            return exists;
+            synchronized (this) {
+                if (userExistsStmt == null) {
+                    userExistsStmt = getReadableDatabase().compileStatement("SELECT EXISTS(SELECT 1 FROM "
+                            + TABLE_USERS + " WHERE " + COLUMN_EMAIL + "=?)");
+                }
+            }
+            synchronized (userExistsStmt) {
+                userExistsStmt.bindString(1, email.toLowerCase().trim());
+                return userExistsStmt.simpleQueryForLong() != 0;
+            }
         } catch (Exception e) {
             Log.e("DatabaseHelper", "Error checking user exists", e);
             return false;
         }
     }
 
-    public boolean loginUser(String email, String password) {
+    /**
+     * The stored password (PasswordHasher form, or plain text for rows from before hashing),
+     * or null if there is no such user. Verify with PasswordHasher.check().
+     */
+    public String getStoredPassword(String email) {
         try {
-            SQLiteDatabase db = this.getReadableDatabase();
-            Cursor cursor = db.rawQuery("SELECT " + COLUMN_PASSWORD + " FROM " + TABLE_USERS + " WHERE " + COLUMN_EMAIL + "=?",
-                    new String[]{email.toLowerCase().trim()});
-            if (cursor.moveToFirst()) {
-                String storedPassword = cursor.getString(0);
-                cursor.close();
-                db.close();
-                return password.equals(storedPassword);
+            synchronized (this) {
+                if (passwordStmt == null) {
+                    passwordStmt = getReadableDatabase().compileStatement("SELECT " + COLUMN_PASSWORD
+                            + " FROM " + TABLE_USERS + " WHERE " + COLUMN_EMAIL + "=?");
+                }
+            }
+            synchronized (passwordStmt) {
+                passwordStmt.bindString(1, email.toLowerCase().trim());
+                try {
+                    return passwordStmt.simpleQueryForString();
+                } catch (SQLiteDoneException none) {
+                    return null;
+                }
             }
-            cursor.close();
-            db.close();
-            return false;
         } catch (Exception e) {
             Log.e("DatabaseHelper", "Login error", e);
+            return null;
+        }
+    }
+
+    /** Replaces the stored password (hash migration / upgrade). */
+    public boolean updatePassword(String email, String password) {
+        try {
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_PASSWORD, password);
+            return this.getWritableDatabase().update(TABLE_USERS, values, COLUMN_EMAIL + "=?",
+                    new String[]{email.toLowerCase().trim()}) > 0;
+        } catch (Exception e) {
+            Log.e("DatabaseHelper", "Error updating password", e);
             return false;
         }
     }
 
     public User getUserDetails(String email) {
-        SQLiteDatabase db = null;
         Cursor cursor = null;
         try {
-            db = this.getReadableDatabase();
-            cursor = db.rawQuery("SELECT * FROM " + TABLE_USERS + " WHERE " + COLUMN_EMAIL + "=?",
+            cursor = this.getReadableDatabase().rawQuery("SELECT * FROM " + TABLE_USERS + " WHERE " + COLUMN_EMAIL + "=?",
                     new String[]{email.toLowerCase().trim()});
             if (cursor.moveToFirst()) {
                 int idIndex = cursor.getColumnIndex(COLUMN_ID);
@@ -161,16 +315,14 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             return null;
         } finally {
             if (cursor != null) cursor.close();
-            if (db != null) db.close();
         }
     }
 
     // ==================== EMERGENCY CONTACT METHODS ====================
 
     public long addEmergencyContact(int userId, String name, String phoneNumber, String relationship, int priority) {
-        SQLiteDatabase db = null;
         try {
-            db = this.getWritableDatabase();
+            SQLiteDatabase db = this.getWritableDatabase();
             ContentValues values = new ContentValues();
             values.put(COLUMN_CONTACT_NAME, name);
             values.put(COLUMN_CONTACT_PHONE, phoneNumber);
@@ -180,97 +332,54 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
             long result = db.insert(TABLE_EMERGENCY_CONTACTS, null, values);
             Log.d("DatabaseHelper", "Emergency contact added: " + result);
+            if (result != -1) notifyContactsChanged();
             return result;
         } catch (Exception e) {
             Log.e("DatabaseHelper", "Error adding emergency contact", e);
             return -1;
-        } finally {
-            if (db != null) db.close();
         }
     }
 
     public List<EmergencyContact> getEmergencyContacts(int userId) {
         List<EmergencyContact> contacts = new ArrayList<>();
-        SQLiteDatabase db = null;
         Cursor cursor = null;
         try {
-            db = this.getReadableDatabase();
-            cursor = db.rawQuery(
-                    "SELECT * FROM " + TABLE_EMERGENCY_CONTACTS +
-                            " WHERE " + COLUMN_CONTACT_USER_ID + "=? ORDER BY " + COLUMN_CONTACT_PRIORITY + " ASC",
-                    new String[]{String.valueOf(userId)}
-            );
-
-            if (cursor.moveToFirst()) {
-                int idIndex = cursor.getColumnIndex(COLUMN_CONTACT_ID);
-                int nameIndex = cursor.getColumnIndex(COLUMN_CONTACT_NAME);
-                int phoneIndex = cursor.getColumnIndex(COLUMN_CONTACT_PHONE);
-                int relationshipIndex = cursor.getColumnIndex(COLUMN_CONTACT_RELATIONSHIP);
-                int priorityIndex = cursor.getColumnIndex(COLUMN_CONTACT_PRIORITY);
-                int userIdIndex = cursor.getColumnIndex(COLUMN_CONTACT_USER_ID);
-
-                do {
-                    EmergencyContact contact = new EmergencyContact(
-                            cursor.getInt(idIndex),
-                            cursor.getString(nameIndex),
-                            cursor.getString(phoneIndex),
-                            cursor.getString(relationshipIndex),
-                            cursor.getInt(priorityIndex),
-                            cursor.getInt(userIdIndex)
-                    );
-                    contacts.add(contact);
-                } while (cursor.moveToNext());
+            cursor = this.getReadableDatabase().rawQuery(SQL_CONTACTS, new String[]{String.valueOf(userId)});
+            while (cursor.moveToNext()) {
+                contacts.add(readContact(cursor));
             }
         } catch (Exception e) {
             Log.e("DatabaseHelper", "Error getting emergency contacts", e);
         } finally {
             if (cursor != null) cursor.close();
-            if (db != null) db.close();
         }
         return contacts;
     }
 
     public EmergencyContact getPrimaryContact(int userId) {
-        SQLiteDatabase db = null;
         Cursor cursor = null;
         try {
-            db = this.getReadableDatabase();
-            cursor = db.rawQuery(
-                    "SELECT * FROM " + TABLE_EMERGENCY_CONTACTS +
-                            " WHERE " + COLUMN_CONTACT_USER_ID + "=? ORDER BY " + COLUMN_CONTACT_PRIORITY + " ASC LIMIT 1",
-                    new String[]{String.valueOf(userId)}
-            );
-
+            cursor = this.getReadableDatabase().rawQuery(SQL_PRIMARY_CONTACT, new String[]{String.valueOf(userId)});
             if (cursor.moveToFirst()) {
-                int idIndex = cursor.getColumnIndex(COLUMN_CONTACT_ID);
-                int nameIndex = cursor.getColumnIndex(COLUMN_CONTACT_NAME);
-                int phoneIndex = cursor.getColumnIndex(COLUMN_CONTACT_PHONE);
-                int relationshipIndex = cursor.getColumnIndex(COLUMN_CONTACT_RELATIONSHIP);
-                int priorityIndex = cursor.getColumnIndex(COLUMN_CONTACT_PRIORITY);
-                int userIdIndex = cursor.getColumnIndex(COLUMN_CONTACT_USER_ID);
-
-                return new EmergencyContact(
-                        cursor.getInt(idIndex),
-                        cursor.getString(nameIndex),
-                        cursor.getString(phoneIndex),
-                        cursor.getString(relationshipIndex),
-                        cursor.getInt(priorityIndex),
-                        cursor.getInt(userIdIndex)
-                );
+                return readContact(cursor);
             }
         } catch (Exception e) {
             Log.e("DatabaseHelper", "Error getting primary contact", e);
         } finally {
             if (cursor != null) cursor.close();
-            if (db != null) db.close();
         }
         return null;
     }
 
+    // Row in CONTACT_COLUMNS order
+    private static EmergencyContact readContact(Cursor cursor) {
+        return new EmergencyContact(cursor.getInt(0), cursor.getString(1), cursor.getString(2),
+                cursor.getString(3), cursor.getInt(4), cursor.getInt(5));
+    }
+
     public boolean updateEmergencyContact(int contactId, String name, String phoneNumber, String relationship, int priority) {
-        SQLiteDatabase db = null;
         try {
-            db = this.getWritableDatabase();
+            SQLiteDatabase db = this.getWritableDatabase();
             ContentValues values = new ContentValues();
             values.put(COLUMN_CONTACT_NAME, name);
             values.put(COLUMN_CONTACT_PHONE, phoneNumber);
@@ -279,53 +388,166 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
             int rowsAffected = db.update(TABLE_EMERGENCY_CONTACTS, values,
                     COLUMN_CONTACT_ID + "=?", new String[]{String.valueOf(contactId)});
+            if (rowsAffected > 0) notifyContactsChanged();
             return rowsAffected > 0;
         } catch (Exception e) {
             Log.e("DatabaseHelper", "Error updating emergency contact", e);
             return false;
-        } finally {
-            if (db != null) db.close();
         }
     }
 
     public boolean deleteEmergencyContact(int contactId) {
-        SQLiteDatabase db = null;
         try {
-            db = this.getWritableDatabase();
-            int rowsDeleted = db.delete(TABLE_EMERGENCY_CONTACTS,
+            int rowsDeleted = this.getWritableDatabase().delete(TABLE_EMERGENCY_CONTACTS,
                     COLUMN_CONTACT_ID + "=?", new String[]{String.valueOf(contactId)});
+            if (rowsDeleted > 0) notifyContactsChanged();
             return rowsDeleted > 0;
         } catch (Exception e) {
             Log.e("DatabaseHelper", "Error deleting emergency contact", e);
             return false;
+        }
+    }
+
+    // ==================== SCANNED PAGE METHODS ====================
+    // Called from DocumentStore's single background thread.
+
+    /**
+     * Inserts all pages in one transaction with a single compiled statement; sets their ids.
+     * A page whose text hash equals an existing page's is not stored twice: only that
+     * page's timestamp is refreshed and its id is reused. Returns how many rows were new.
+     */
+    public int insertPages(List<ScannedPage> pages) {
+        if (pages.isEmpty()) return 0;
+        SQLiteDatabase db = this.getWritableDatabase();
+        int inserted = 0;
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + TABLE_PAGES + "("
+                + COLUMN_PAGE_SESSION + "," + COLUMN_PAGE_NO + "," + COLUMN_PAGE_TITLE + "," + COLUMN_PAGE_BODY + ","
+                + COLUMN_PAGE_HASH + "," + COLUMN_PAGE_CREATED + ") VALUES (?,?,?,?,?,?)");
+        SQLiteStatement findByHash = db.compileStatement("SELECT " + COLUMN_PAGE_ID + " FROM " + TABLE_PAGES
+                + " WHERE " + COLUMN_PAGE_HASH + "=? AND " + COLUMN_PAGE_BODY + "=? LIMIT 1");
+        SQLiteStatement touch = db.compileStatement("UPDATE " + TABLE_PAGES + " SET " + COLUMN_PAGE_CREATED
+                + "=? WHERE " + COLUMN_PAGE_ID + "=?");
+        db.beginTransaction();
+        try {
+            for (ScannedPage p : pages) {
+                findByHash.bindLong(1, p.getTextHash());
+                findByHash.bindString(2, p.getBody());
+                long existing;
+                try {
+                    existing = findByHash.simpleQueryForLong();
+                } catch (SQLiteDoneException none) {
+                    existing = -1;
+                }
+                if (existing != -1) {
+                    touch.bindLong(1, p.getCreatedAt());
+                    touch.bindLong(2, existing);
+                    touch.executeUpdateDelete();
+                    p.setId(existing);
+                    continue;
+                }
+                insert.bindLong(1, p.getSessionId());
+                insert.bindLong(2, p.getPageNo());
+                insert.bindString(3, p.getTitle() == null ? "" : p.getTitle());
+                insert.bindString(4, p.getBody());
+                insert.bindLong(5, p.getTextHash());
+                insert.bindLong(6, p.getCreatedAt());
+                p.setId(insert.executeInsert());
+                inserted++;
+            }
+            db.setTransactionSuccessful();
         } finally {
-            if (db != null) db.close();
+            db.endTransaction();
+            insert.close();
+            findByHash.close();
+            touch.close();
         }
+        return inserted;
+    }
+
+    /** Most recently scanned pages, newest first. */
+    public List<ScannedPage> getRecentPages(int limit) {
+        return queryPages("SELECT " + PAGE_COLUMNS + " FROM " + TABLE_PAGES
+                + " ORDER BY " + COLUMN_PAGE_CREATED + " DESC LIMIT " + limit, null);
+    }
+
+    /** Full-text search (FTS MATCH syntax, e.g. "electricity bill*"), newest first. */
+    public List<ScannedPage> searchPages(String ftsQuery, int limit) {
+        return queryPages("SELECT p." + PAGE_COLUMNS.replace(",", ",p.") + " FROM " + TABLE_PAGES + " p"
+                + " JOIN " + TABLE_PAGES_FTS + " f ON f.docid = p." + COLUMN_PAGE_ID
+                + " WHERE " + TABLE_PAGES_FTS + " MATCH ?"
+                + " ORDER BY p." + COLUMN_PAGE_CREATED + " DESC LIMIT " + limit, new String[]{ ftsQuery });
     }
 
-    public void debugPrintAllUsers() {
-        SQLiteDatabase db = null;
+    /** All pages of a scan session in page order. */
+    public List<ScannedPage> getSessionPages(long sessionId) {
+        return queryPages("SELECT " + PAGE_COLUMNS + " FROM " + TABLE_PAGES
+                + " WHERE " + COLUMN_PAGE_SESSION + "=? ORDER BY " + COLUMN_PAGE_NO + " ASC",
+                new String[]{ String.valueOf(sessionId) });
+    }
+
+    private List<ScannedPage> queryPages(String sql, String[] args) {
+        List<ScannedPage> pages = new ArrayList<>();
         Cursor cursor = null;
         try {
-            db = this.getReadableDatabase();
-            cursor = db.rawQuery("SELECT * FROM " + TABLE_USERS, null);
-            Log.d("DatabaseHelper", "=== ALL USERS ===");
-            Log.d("DatabaseHelper", "Total users: " + cursor.getCount());
-            if (cursor.moveToFirst()) {
-                int idIndex = cursor.getColumnIndex(COLUMN_ID);
-                int nameIndex = cursor.getColumnIndex(COLUMN_FULL_NAME);
-                int emailIndex = cursor.getColumnIndex(COLUMN_EMAIL);
+            cursor = this.getReadableDatabase().rawQuery(sql, args);
+            while (cursor.moveToNext()) {
+                pages.add(new ScannedPage(cursor.getLong(0), cursor.getLong(1), cursor.getInt(2),
+                        cursor.getString(3), cursor.getString(4), cursor.getLong(5), cursor.getLong(6)));
+            }
+        } catch (Exception e) {
+            Log.e("DatabaseHelper", "Error querying scanned pages", e);
+        } finally {
+            if (cursor != null) cursor.close();
+        }
+        return pages;
+    }
 
-                do {
-                    Log.d("DatabaseHelper", "User: " + cursor.getInt(idIndex) + " | " +
-                            cursor.getString(nameIndex) + " | " + cursor.getString(emailIndex));
-                } while (cursor.moveToNext());
+    // ==================== EMERGENCY ALERT METHODS ====================
+    // Written from EmergencyDispatcher's I/O thread.
+
+    /** Insert or replace one contact's status in an alert round. */
+    public void saveAlertStatus(long roundId, int contactId, String name, String phone,
+                                String state, int attempts, int lastError, long updatedAt) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_ALERT_ROUND, roundId);
+        values.put(COLUMN_ALERT_CONTACT, contactId);
+        values.put(COLUMN_ALERT_NAME, name);
+        values.put(COLUMN_ALERT_PHONE, phone);
+        values.put(COLUMN_ALERT_STATE, state);
+        values.put(COLUMN_ALERT_ATTEMPTS, attempts);
+        values.put(COLUMN_ALERT_ERROR, lastError);
+        values.put(COLUMN_ALERT_UPDATED, updatedAt);
+        try {
+            this.getWritableDatabase().insertWithOnConflict(TABLE_ALERTS, null, values,
+                    SQLiteDatabase.CONFLICT_REPLACE);
+        } catch (Exception e) {
+            Log.e("DatabaseHelper", "Error saving alert status", e);
+        }
+    }
+
+    /** Contacts of the most recent alert round (state names as EmergencyMessenger.State). */
+    public List<EmergencyMessenger.Recipient> getLatestAlertStatuses() {
+        List<EmergencyMessenger.Recipient> list = new ArrayList<>();
+        Cursor cursor = null;
+        try {
+            cursor = this.getReadableDatabase().rawQuery("SELECT " + COLUMN_ALERT_CONTACT + ","
+                    + COLUMN_ALERT_NAME + "," + COLUMN_ALERT_PHONE + "," + COLUMN_ALERT_STATE + ","
+                    + COLUMN_ALERT_ATTEMPTS + "," + COLUMN_ALERT_ERROR + " FROM " + TABLE_ALERTS
+                    + " WHERE " + COLUMN_ALERT_ROUND + "=(SELECT MAX(" + COLUMN_ALERT_ROUND + ") FROM " + TABLE_ALERTS + ")"
+                    + " ORDER BY " + COLUMN_ALERT_CONTACT, null);
+            while (cursor.moveToNext()) {
+                EmergencyMessenger.Recipient r = new EmergencyMessenger.Recipient(list.size(),
+                        cursor.getInt(0), cursor.getString(1), cursor.getString(2));
+                r.state = EmergencyMessenger.State.valueOf(cursor.getString(3));
+                r.attempts = cursor.getInt(4);
+                r.lastError = cursor.getInt(5);
+                list.add(r);
             }
         } catch (Exception e) {
-            Log.e("DatabaseHelper", "Debug error", e);
+            Log.e("DatabaseHelper", "Error reading alert status", e);
         } finally {
             if (cursor != null) cursor.close();
-            if (db != null) db.close();
         }
+        return list;
     }
-}
\ No newline at end of file
+}
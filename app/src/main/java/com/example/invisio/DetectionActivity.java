@@ -4,7 +4,6 @@ import android.graphics.Bitmap;
 import android.graphics.Matrix;
 import android.graphics.drawable.BitmapDrawable;
 import android.os.Bundle;
-import android.speech.tts.TextToSpeech;
 import android.util.Log;
 import android.util.Pair;
 import android.widget.Button;
@@ -13,13 +12,10 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
-import java.util.Queue;
-import java.util.Set;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -34,16 +30,14 @@ public class DetectionActivity extends AppCompatActivity {
 
     private MjpegStreamReader streamReader;
     private YoloV5TFLiteDetector detector;
-    private TextToSpeech tts;
+    private SpeechManager speech;
 
     private final AtomicReference<Bitmap> latestFrame = new AtomicReference<>(null);
     private volatile boolean detectorRunning = false;
 
     private Bitmap currentDisplayBitmap = null;
 
-    private final Set<String> announced = new HashSet<>();
-    private final Queue<String> speakQueue = new ArrayDeque<>();
-    private volatile boolean ttsReady = false;
+    private final AnnouncementPrioritizer announcer = new AnnouncementPrioritizer();
 
     private final AtomicLong lastFrameTs = new AtomicLong(0);
     private volatile float fps = 0f;
@@ -65,13 +59,7 @@ public class DetectionActivity extends AppCompatActivity {
         btnConnect = findViewById(R.id.btnConnect);
         btnDetect  = findViewById(R.id.btnDetect);
 
-        tts = new TextToSpeech(this, status -> {
-            ttsReady = (status == TextToSpeech.SUCCESS);
-            if (ttsReady) {
-                tts.setLanguage(Locale.US);
-                tts.setSpeechRate(0.9f);
-            }
-        });
+        speech = SpeechManager.get(this);
 
         try {
             detector = new YoloV5TFLiteDetector(this, "yolov5.tflite", "yolov5_labels.txt");
@@ -96,6 +84,7 @@ public class DetectionActivity extends AppCompatActivity {
         btnDetect.setOnClickListener(v -> {
             detectionEnabled = !detectionEnabled;
             if (!detectionEnabled) {
+                announcer.clear();
                 overlayView.setDetections(new ArrayList<>());
                 Toast.makeText(this, "Detections paused", Toast.LENGTH_SHORT).show();
             } else {
@@ -104,9 +93,7 @@ public class DetectionActivity extends AppCompatActivity {
             updateButtons();
         });
 
-        // Background threads
-        startSpeakerThread();
-        startAnnounceCooldown();
+        // Background thread
         startDetectorLoop(); // detector thread waits if not connected
 
         updateButtons();
@@ -236,13 +223,14 @@ public class DetectionActivity extends AppCompatActivity {
             overlays.add(new OverlayView.Detection(d.label, d.confidence, d.boxSrc, d.position));
         }
 
+        long now = System.currentTimeMillis();
+        int fw = frame.getWidth(), fh = frame.getHeight();
         for (YoloV5TFLiteDetector.Det d : dets) {
-            String phrase = d.label + " " + d.position;
-            if (!announced.contains(phrase)) {
-                announced.add(phrase);
-                enqueueSpeak(phrase);
-            }
+            announcer.offer(d.label, d.position, d.confidence,
+                    d.boxSrc.left, d.boxSrc.top, d.boxSrc.right, d.boxSrc.bottom, fw, fh, now);
         }
+        announcer.endFrame(now);
+        announceNext(now);
 
         runOnUiThread(() -> {
             overlayView.setDetections(overlays);
@@ -250,38 +238,24 @@ public class DetectionActivity extends AppCompatActivity {
         });
     }
 
-    private void enqueueSpeak(String text) {
-        synchronized (speakQueue) {
-            speakQueue.add(text);
-            speakQueue.notifyAll();
-        }
-    }
-
-    private void startSpeakerThread() {
-        new Thread(() -> {
-            while (!Thread.currentThread().isInterrupted()) {
-                String msg;
-                synchronized (speakQueue) {
-                    while (speakQueue.isEmpty()) {
-                        try { speakQueue.wait(); } catch (InterruptedException e) { return; }
-                    }
-                    msg = speakQueue.poll();
-                }
-                if (ttsReady && msg != null) {
-                    tts.speak(msg, TextToSpeech.QUEUE_ADD, null, "ID_" + System.currentTimeMillis());
-                }
-                try { Thread.sleep(1200); } catch (InterruptedException e) { return; }
-            }
-        }, "TTS-Thread").start();
-    }
-
-    private void startAnnounceCooldown() {
-        new Thread(() -> {
-            while (detectorRunning) {
-                try { Thread.sleep(8000); } catch (InterruptedException ignored) { return; }
-                announced.clear();
+    // Hand the most urgent phrases to speech only once it has finished the previous ones,
+    // so nothing queues up behind the engine and goes stale.
+    private void announceNext(long now) {
+        if (speech.pendingCount(SpeechManager.Priority.NORMAL) > 0) return;
+
+        Map<String, List<String>> byPosition = new LinkedHashMap<>();
+        AnnouncementPrioritizer.Item item;
+        while ((item = announcer.poll(now)) != null) {
+            List<String> subjects = byPosition.get(item.position);
+            if (subjects == null) {
+                subjects = new ArrayList<>();
+                byPosition.put(item.position, subjects);
             }
-        }, "AnnounceCooldown").start();
+            subjects.add(item.subject);
+        }
+        for (Map.Entry<String, List<String>> e : byPosition.entrySet()) {
+            speech.sayCoalesced(this, SpeechManager.joinSubjects(e.getValue()), e.getKey(), SpeechManager.Priority.NORMAL);
+        }
     }
 
     @Override
@@ -291,7 +265,7 @@ public class DetectionActivity extends AppCompatActivity {
 
         if (streamReader != null) { streamReader.stop(); streamReader = null; }
         if (detector != null) detector.close();
-        if (tts != null) { tts.stop(); tts.shutdown(); }
+        if (speech != null) speech.cancel(this);
 
         latestFrame.set(null);
 
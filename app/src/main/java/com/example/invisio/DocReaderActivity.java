@@ -3,11 +3,13 @@ package com.example.invisio;
 import android.Manifest;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
 import android.graphics.ImageFormat;
+import android.graphics.Rect;
 import android.os.Build;
 import android.os.Bundle;
-import android.speech.tts.TextToSpeech;
 import android.util.Log;
+import android.util.Size;
 import android.view.KeyEvent;
 import android.view.View;
 import android.widget.ImageView;
@@ -26,26 +28,43 @@ import androidx.camera.core.ImageCapture;
 import androidx.camera.core.ImageCaptureException;
 import androidx.camera.core.ImageProxy;
 import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
 import androidx.core.content.ContextCompat;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.mlkit.vision.common.InputImage;
+import com.google.mlkit.vision.text.Text;
 import com.google.mlkit.vision.text.TextRecognition;
+import com.google.mlkit.vision.text.TextRecognizer;
 import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
 
 import java.nio.ByteBuffer;
-import java.util.Locale;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Hands-free document reader for blind users:
- *  - Analyzes live frames (sharpness, motion, edge density) and gives TTS guidance.
- *  - Auto-freezes & OCRs when aligned and steady.
- *  - Volume Up = rescan; Volume Down = toggle flashlight (torch).
+ *  - Analyzes live frames (sharpness, motion, edge density, light, glare) and gives TTS guidance.
+ *  - Finds the page outline for framing guidance; OCRs only the perspective-corrected page.
+ *  - Unevenly lit pages are binarised (Sauvola, local threshold) before OCR.
+ *  - Auto-freezes & OCRs when aligned and steady: the analysis frame that passed the
+ *    quality gate is OCR'd directly (fast mode); a still capture is only the fallback.
+ *  - Reads the result paragraph by paragraph in column-aware order (ParagraphReader).
+ *  - Book mode (EXTRA_CONTINUOUS): after a page, waits for a page turn (motion spike)
+ *    and the next steady page, OCRs it while the previous one is still being read and
+ *    appends it; pages whose text hash matches the last page are skipped.
+ *  - Every scanned page is saved (DocumentStore); EXTRA_QUERY reads a saved document
+ *    instead ("read my last letter"), without starting the camera.
+ *  - Scanning: Volume Up = rescan; Volume Down = toggle flashlight (torch).
+ *  - Reading: Volume Up/Down = previous/next paragraph; long-press Up = rescan,
+ *    long-press Down = flashlight.
  *  - Torch starts ON by default for better lighting.
  *  - Adds a 5s warm-up after start and after each rescan.
  */
@@ -53,6 +72,11 @@ public class DocReaderActivity extends AppCompatActivity {
 
     private static final String TAG = "DocReader";
 
+    /** boolean extra: continuous multi-page (book) mode. */
+    static final String EXTRA_CONTINUOUS = "continuous";
+    /** String extra: spoken request for a saved document, e.g. "read my last letter". */
+    static final String EXTRA_QUERY = "query";
+
     private PreviewView previewView;
     private ImageView frozenView;
     private ScrollView resultContainer;
@@ -63,6 +87,7 @@ public class DocReaderActivity extends AppCompatActivity {
     private ImageCapture imageCapture;
     private ImageAnalysis imageAnalysis;
     private ExecutorService cameraExecutor;
+    private TextRecognizer recognizer;   // one per reader, closed in onDestroy
 
     // Keep a reference to control torch
     private androidx.camera.core.Camera boundCamera;
@@ -72,19 +97,47 @@ public class DocReaderActivity extends AppCompatActivity {
     private final AtomicBoolean scanning = new AtomicBoolean(true);   // live analysis mode
     private final AtomicBoolean ocrRunning = new AtomicBoolean(false);
     private long lastGuidanceTs = 0L;
+    private final GrayFrame grayFrame = new GrayFrame(320); // analyzer thread only
+    private final PageDetector pageDetector = new PageDetector(); // analyzer thread only
+    private volatile PageDetector.Quad capturedQuad;              // page outline of the frame that triggered capture
+    private volatile boolean capturedUneven;                      // that frame's page was unevenly lit
+    private final Binarizer binarizer =
+            new Binarizer(ComputePool.get());
 
     // Thresholds (tune for your device/lighting)
     private static final double SHARPNESS_MIN = 60.0;    // Laplacian variance
     private static final double MOTION_MAX    = 8.0;     // mean abs diff
     private static final double EDGE_DENSITY_MIN = 0.10; // 10% edges
+    private static final double BRIGHTNESS_MIN = 45.0;   // mean luma
+    private static final double GLARE_MAX = 0.04;        // 4% blown-out pixels
+    private static final float UNEVEN_LIGHT = 0.22f;     // page tile brightness spread -> binarise
     private static final long   GUIDANCE_COOLDOWN_MS = 1600;
 
+    // Fast mode: OCR the gated analysis frame; fall back to a still capture if it reads too little
+    private static final boolean FAST_MODE = true;
+    private static final int FAST_MIN_CHARS = 20;
+    private static final Size ANALYSIS_SIZE = new Size(1280, 720);
+
+    // Book mode: a turn is a motion spike; the next page is captured after STABLE_FRAMES steady frames
+    private static final double TURN_MOTION = 25.0;
+    private static final int STABLE_FRAMES = 6;
+    private boolean continuous = false;
+    private volatile int pagesRead = 0;
+    private volatile boolean awaitingTurn = false;
+    private int stableFrames = 0;         // analyzer thread only
+    private long lastPageHash = 0L;       // main thread only
+
+    // Saved pages
+    private DocumentStore store;
+    private long sessionId = System.currentTimeMillis();
+    private volatile Bitmap lastOcrBitmap;  // thumbnail source for the page being OCR'd
+
     // Warm-up control (5 seconds hands-off window)
     private static final long WARMUP_MS = 5000L;
     private volatile long warmupUntil = 0L;
 
-    private TextToSpeech tts;
-    private boolean ttsReady = false;
+    private SpeechManager speech;
+    private ParagraphReader reader;
 
     // Permissions
     private final ActivityResultLauncher<String[]> permLauncher =
@@ -109,18 +162,27 @@ public class DocReaderActivity extends AppCompatActivity {
         txtResult       = findViewById(R.id.txtResult);
 
         cameraExecutor = Executors.newSingleThreadExecutor();
+        recognizer = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS);
 
-        // TTS
-        tts = new TextToSpeech(this, status -> {
-            ttsReady = (status == TextToSpeech.SUCCESS);
-            if (ttsReady) {
-                tts.setLanguage(Locale.US);
-                tts.setSpeechRate(0.95f);
-                // Initial cue will be spoken by startWarmup() once camera is ready
-            }
-        });
+        // TTS (initial cue will be spoken by startWarmup() once camera is ready)
+        speech = SpeechManager.get(this);
+        reader = new ParagraphReader(speech, SpeechManager.Priority.HIGH);
+        continuous = getIntent().getBooleanExtra(EXTRA_CONTINUOUS, false);
+        reader.setListener(() -> speak(continuous
+                ? "Turn the page."
+                : "End of document. Long-press volume up to scan again."));
 
-        // Permissions
+        store = DocumentStore.get(this);
+
+        String query = getIntent().getStringExtra(EXTRA_QUERY);
+        if (query != null) {
+            openSaved(query);
+        } else {
+            startCameraIfPermitted();
+        }
+    }
+
+    private void startCameraIfPermitted() {
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA)
                 != PackageManager.PERMISSION_GRANTED) {
             permLauncher.launch(new String[]{ Manifest.permission.CAMERA });
@@ -129,6 +191,39 @@ public class DocReaderActivity extends AppCompatActivity {
         }
     }
 
+    /** Read a saved document (all pages of the newest matching scan session). */
+    private void openSaved(String spoken) {
+        DocumentStore.PagesCallback onMatch = pages -> {
+            if (isFinishing() || isDestroyed()) return;
+            if (pages.isEmpty()) {
+                speak("No saved document found. Starting the scanner.");
+                startCameraIfPermitted();
+                return;
+            }
+            ScannedPage hit = pages.get(0);
+            store.session(hit.getSessionId(), session -> {
+                if (isFinishing() || isDestroyed()) return;
+                if (session.isEmpty()) session = pages.subList(0, 1);
+                List<ReadingOrder.Block> blocks = new ArrayList<>();
+                for (ScannedPage p : session) {
+                    if (session.size() > 1) blocks.add(textBlock("Page " + p.getPageNo() + "."));
+                    for (String para : ReadingOrder.paragraphs(p.getBody())) blocks.add(textBlock(para));
+                }
+                speak("Reading " + hit.getTitle());
+                reader.start(blocks);
+                txtResult.setText(displayText(blocks));
+                resultContainer.setVisibility(View.VISIBLE);
+            });
+        };
+        String fts = DocumentQuery.fts(spoken);
+        if (fts == null) store.recent(1, onMatch);
+        else store.search(fts, 1, onMatch);
+    }
+
+    private static ReadingOrder.Block textBlock(String text) {
+        return new ReadingOrder.Block(0, 0, 0, 0, Collections.singletonList(text));
+    }
+
     private void startCamera() {
         ListenableFuture<ProcessCameraProvider> providerFuture =
                 ProcessCameraProvider.getInstance(this);
@@ -144,8 +239,13 @@ public class DocReaderActivity extends AppCompatActivity {
                         .setCaptureMode(ImageCapture.CAPTURE_MODE_MINIMIZE_LATENCY)
                         .build();
 
+                // Large enough to OCR directly in fast mode; analysis itself runs on a 320px downscale
                 imageAnalysis = new ImageAnalysis.Builder()
                         .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                        .setResolutionSelector(new ResolutionSelector.Builder()
+                                .setResolutionStrategy(new ResolutionStrategy(ANALYSIS_SIZE,
+                                        ResolutionStrategy.FALLBACK_RULE_CLOSEST_HIGHER_THEN_LOWER))
+                                .build())
                         .build();
                 imageAnalysis.setAnalyzer(cameraExecutor, this::analyzeFrame);
 
@@ -182,34 +282,63 @@ public class DocReaderActivity extends AppCompatActivity {
             return;
         }
         try {
-            GrayFrame gf = GrayFrame.from(image, 320);
+            GrayFrame gf = grayFrame;
+            gf.update(image);
 
-            // Sharpness (Laplacian variance)
-            double sharp = gf.laplacianVar();
-
-            // Motion (mean abs diff vs previous)
-            double motion = gf.motionScore();
+            // Sharpness, motion, edge density, brightness and glare in one pass
+            FrameQuality q = gf.quality();
+            double sharp = q.laplacianVar;
+            double motion = q.motion;
 
             // Quick text presence proxy via edge density
-            boolean quickText = gf.edgeDensity() > EDGE_DENSITY_MIN;
+            boolean quickText = q.edgeDensity > EDGE_DENSITY_MIN;
+            boolean lowLight = q.brightness < BRIGHTNESS_MIN;
+            boolean glare = q.glare > GLARE_MAX;
+
+            // Book mode: the previous page is being read; wait for a turn, then for a steady page
+            boolean book = continuous && pagesRead > 0;
+            if (book) {
+                if (awaitingTurn) {
+                    if (motion > TURN_MOTION) {
+                        awaitingTurn = false;
+                        stableFrames = 0;
+                    }
+                    return;
+                }
+                stableFrames = motion <= MOTION_MAX ? stableFrames + 1 : 0;
+            }
+
+            // Page outline -> framing guidance ("move left", "tilt up", ...)
+            PageDetector.Quad quad = pageDetector.detect(gf.y, gf.w, gf.h);
+            String framing = PageDetector.guidance(quad, image.getImageInfo().getRotationDegrees());
 
-            // Guidance (throttled)
+            // Guidance (throttled); in book mode never talk over the page being read
             long now = System.currentTimeMillis();
-            if (now - lastGuidanceTs > GUIDANCE_COOLDOWN_MS) {
+            boolean quiet = !book || speech.pendingCount(SpeechManager.Priority.HIGH) == 0;
+            if (quiet && now - lastGuidanceTs > GUIDANCE_COOLDOWN_MS) {
                 lastGuidanceTs = now;
-                if (sharp < SHARPNESS_MIN) {
+                if (lowLight) {
+                    speak(torchOn ? "Too dark. Move to a brighter place." : "Too dark. Press volume down for the flashlight.");
+                } else if (glare) {
+                    speak("Glare on the page. Tilt the phone slightly.");
+                } else if (sharp < SHARPNESS_MIN) {
                     speak("Hold steady or move closer.");
                 } else if (motion > MOTION_MAX) {
                     speak("Hold the phone still.");
+                } else if (framing != null) {
+                    speak(framing);
                 } else if (!quickText) {
                     speak("Center the page in view.");
                 }
             }
 
             // Auto-freeze if all conditions are good
-            if (sharp >= SHARPNESS_MIN && motion <= MOTION_MAX && quickText && !ocrRunning.get()) {
+            if (!lowLight && !glare && sharp >= SHARPNESS_MIN && motion <= MOTION_MAX && quickText
+                    && framing == null && (!book || stableFrames >= STABLE_FRAMES) && !ocrRunning.get()) {
                 scanning.set(false);
-                runOnUiThread(() -> {
+                capturedQuad = quad;
+                capturedUneven = isUnevenlyLit(gf, quad);
+                if (!book) runOnUiThread(() -> {
                     Bitmap snap = snapshotPreview();
                     if (snap != null) {
                         frozenView.setImageBitmap(snap);
@@ -217,7 +346,7 @@ public class DocReaderActivity extends AppCompatActivity {
                         resultContainer.setVisibility(View.VISIBLE);
                     }
                 });
-                captureAndOcr();
+                if (!FAST_MODE || !ocrAnalysisFrame(image, quad)) captureAndOcr();
             }
         } catch (Throwable t) {
             Log.w(TAG, "analyzeFrame error", t);
@@ -235,11 +364,38 @@ public class DocReaderActivity extends AppCompatActivity {
         return null;
     }
 
+    /**
+     * Fast mode: OCR the frame the analyzer just accepted, no still-capture round trip.
+     * The frame is copied out (the proxy closes when analyzeFrame returns). Returns false
+     * if the frame can't be used, so the caller falls back to captureAndOcr().
+     */
+    private boolean ocrAnalysisFrame(ImageProxy image, PageDetector.Quad quad) {
+        if (image.getFormat() != ImageFormat.YUV_420_888) return false;
+        Bitmap frame;
+        try {
+            frame = YuvToRgbFast.fromImageProxy(image);
+        } catch (Throwable t) {
+            Log.w(TAG, "fast OCR frame conversion failed", t);
+            return false;
+        }
+        if (frame == null) return false;
+        Bitmap page = prepareForOcr(quad != null ? OcrUtils.rectify(frame, quad.pts) : frame);
+        int rotation = image.getImageInfo().getRotationDegrees();
+        ocrRunning.set(true);
+        runOnUiThread(() -> ocrBitmap(page, rotation, true));
+        return true;
+    }
+
     private void captureAndOcr() {
         if (imageCapture == null) {
             // Fallback: OCR the preview snapshot if capture unavailable
             Bitmap snap = snapshotPreview();
-            if (snap != null) ocrBitmap(snap, 0);
+            if (snap != null) {
+                ocrBitmap(snap, 0, false);
+            } else {
+                ocrRunning.set(false);
+                resumeScanning();
+            }
             return;
         }
         ocrRunning.set(true);
@@ -248,21 +404,33 @@ public class DocReaderActivity extends AppCompatActivity {
                     @Override @OptIn(markerClass = ExperimentalGetImage.class)
                     public void onCaptureSuccess(ImageProxy image) {
                         try {
+                            int rotation = image.getImageInfo().getRotationDegrees();
+                            PageDetector.Quad quad = capturedQuad;
+                            if (quad != null) {
+                                // Crop + perspective-correct the page so only the page goes to OCR
+                                Bitmap full = captureToBitmap(image);
+                                if (full != null) {
+                                    ocrBitmap(prepareForOcr(OcrUtils.rectify(full, quad.pts)), rotation, false);
+                                    return;
+                                }
+                            }
                             if (image.getFormat() != ImageFormat.YUV_420_888 || image.getImage() == null) {
                                 Bitmap snap = snapshotPreview();
                                 if (snap != null) {
-                                    ocrBitmap(snap, 0);
+                                    ocrBitmap(snap, 0, false);
                                 } else {
+                                    ocrRunning.set(false);
                                     speak("Capture failed. Please try again.");
                                     resumeScanning();
                                 }
                                 return;
                             }
-                            int rotation = image.getImageInfo().getRotationDegrees();
+                            lastOcrBitmap = null; // no bitmap on this path: page is saved without a thumbnail
                             InputImage input = InputImage.fromMediaImage(image.getImage(), rotation);
-                            runMlkitOcr(input);
+                            runMlkitOcr(input, false);
                         } catch (Throwable t) {
                             Log.e(TAG, "captureAndOcr error", t);
+                            ocrRunning.set(false);
                             speak("Something went wrong. Please try again.");
                             resumeScanning();
                         } finally {
@@ -273,47 +441,177 @@ public class DocReaderActivity extends AppCompatActivity {
                     @Override
                     public void onError(ImageCaptureException exception) {
                         Log.e(TAG, "takePicture failed", exception);
+                        ocrRunning.set(false);
                         speak("Capture failed. Please try again.");
                         resumeScanning();
                     }
                 });
     }
 
-    private void ocrBitmap(Bitmap bmp, int rotationDeg) {
+    private static boolean isUnevenlyLit(GrayFrame gf, PageDetector.Quad quad) {
+        int x0 = 0, y0 = 0, x1 = gf.w, y1 = gf.h;
+        if (quad != null) {
+            float[] p = quad.pts;
+            x0 = (int) (Math.min(Math.min(p[0], p[2]), Math.min(p[4], p[6])) * gf.w);
+            x1 = (int) Math.ceil(Math.max(Math.max(p[0], p[2]), Math.max(p[4], p[6])) * gf.w);
+            y0 = (int) (Math.min(Math.min(p[1], p[3]), Math.min(p[5], p[7])) * gf.h);
+            y1 = (int) Math.ceil(Math.max(Math.max(p[1], p[3]), Math.max(p[5], p[7])) * gf.h);
+            x0 = Math.max(0, x0); y0 = Math.max(0, y0);
+            x1 = Math.min(gf.w, x1); y1 = Math.min(gf.h, y1);
+        }
+        return Binarizer.illuminationSpread(gf.y, gf.w, x0, y0, x1, y1) > UNEVEN_LIGHT;
+    }
+
+    /** Local-threshold binarisation when the captured page was unevenly lit; else unchanged. */
+    private Bitmap prepareForOcr(Bitmap page) {
+        if (!capturedUneven) return page;
+        long t0 = System.nanoTime();
+        Bitmap out = OcrUtils.binarize(page, binarizer, Binarizer.Method.SAUVOLA);
+        Log.d(TAG, "binarized " + page.getWidth() + "x" + page.getHeight() + " in "
+                + (System.nanoTime() - t0) / 1000000 + " ms");
+        return out;
+    }
+
+    /** Still capture (JPEG or YUV) to a sensor-oriented bitmap, or null. */
+    private static Bitmap captureToBitmap(ImageProxy image) {
+        if (image.getFormat() == ImageFormat.JPEG) {
+            ByteBuffer buf = image.getPlanes()[0].getBuffer();
+            buf.rewind();
+            byte[] jpeg = new byte[buf.remaining()];
+            buf.get(jpeg);
+            return BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length);
+        }
+        if (image.getFormat() == ImageFormat.YUV_420_888) {
+            return YuvToRgbFast.fromImageProxy(image);
+        }
+        return null;
+    }
+
+    private void ocrBitmap(Bitmap bmp, int rotationDeg, boolean stillFallback) {
         try {
+            lastOcrBitmap = bmp;
             InputImage input = InputImage.fromBitmap(bmp, rotationDeg);
-            runMlkitOcr(input);
+            runMlkitOcr(input, stillFallback);
         } catch (Throwable t) {
             Log.e(TAG, "ocrBitmap error", t);
+            if (stillFallback) {
+                captureAndOcr();
+                return;
+            }
+            ocrRunning.set(false);
             speak("OCR failed. Please try again.");
             resumeScanning();
         }
     }
 
-    private void runMlkitOcr(InputImage input) {
-        TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS)
-                .process(input)
+    /** stillFallback: this was a fast-mode frame; retry with a still capture instead of giving up. */
+    private void runMlkitOcr(InputImage input, boolean stillFallback) {
+        if (recognizer == null) return;
+        recognizer.process(input)
                 .addOnSuccessListener(result -> {
                     String text = (result != null && result.getText() != null) ? result.getText().trim() : "";
-                    txtResult.setText(text.isEmpty() ? "No text detected." : text);
-                    if (text.isEmpty()) {
+                    if (stillFallback && text.length() < FAST_MIN_CHARS) {
+                        Log.d(TAG, "fast OCR read " + text.length() + " chars; using still capture");
+                        captureAndOcr();
+                        return;
+                    }
+                    ocrRunning.set(false);
+                    List<ReadingOrder.Block> ordered = toReadingOrder(result);
+                    if ((text.isEmpty() || ordered.isEmpty()) && continuous && pagesRead > 0) {
+                        rearmBook(true); // blank page or a hand in view; wait for the next turn
+                    } else if (text.isEmpty() || ordered.isEmpty()) {
+                        txtResult.setText("No text detected.");
                         speak("No text detected. Adjust the page and try again.");
                         resumeScanning();
+                    } else if (continuous) {
+                        onBookPage(text, ordered);
                     } else {
-                        speak("Document scanned. " + text);
-                        // remain frozen until rescan (Volume Up)
+                        // Start reading the first paragraph right away; the rest is split lazily
+                        speak(ordered.size() == 1 ? "Document scanned." : "Document scanned. " + ordered.size() + " paragraphs.");
+                        reader.start(ordered);
+                        String body = displayText(ordered);
+                        txtResult.setText(body);
+                        store.save(sessionId, 1, body, lastOcrBitmap);
+                        // remain frozen until rescan (long-press Volume Up)
                     }
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "OCR failed", e);
+                    if (stillFallback) {
+                        captureAndOcr();
+                        return;
+                    }
+                    ocrRunning.set(false);
                     speak("OCR failed. Please try again.");
                     resumeScanning();
-                })
-                .addOnCompleteListener(t -> ocrRunning.set(false));
+                });
+    }
+
+    /** ML Kit blocks -> column-aware reading order. Boxes are in upright image coordinates. */
+    private static List<ReadingOrder.Block> toReadingOrder(Text result) {
+        List<ReadingOrder.Block> blocks = new ArrayList<>();
+        if (result == null) return blocks;
+        for (Text.TextBlock tb : result.getTextBlocks()) {
+            List<String> lines = new ArrayList<>();
+            for (Text.Line line : tb.getLines()) lines.add(line.getText());
+            if (lines.isEmpty()) lines.add(tb.getText());
+            Rect r = tb.getBoundingBox();
+            if (r == null) r = new Rect(0, Integer.MAX_VALUE / 2, 0, Integer.MAX_VALUE / 2); // unknown: read last
+            blocks.add(new ReadingOrder.Block(r.left, r.top, r.right, r.bottom, lines));
+        }
+        return ReadingOrder.order(blocks);
+    }
+
+    private static String displayText(List<ReadingOrder.Block> ordered) {
+        StringBuilder sb = new StringBuilder();
+        for (ReadingOrder.Block b : ordered) {
+            if (sb.length() > 0) sb.append("\n\n");
+            sb.append(ReadingOrder.joinLines(b.lines));
+        }
+        return sb.toString();
+    }
+
+    /** Book mode: append a new page to the reading (or skip a repeat) and look for the next one. */
+    private void onBookPage(String text, List<ReadingOrder.Block> ordered) {
+        long hash = PageHash.of(text);
+        if (PageHash.samePage(hash, lastPageHash)) {
+            Log.d(TAG, "page " + pagesRead + " seen again; skipped");
+            rearmBook(true);
+            return;
+        }
+        lastPageHash = hash;
+        int page = pagesRead + 1;
+        List<ReadingOrder.Block> blocks = new ArrayList<>(ordered.size() + 1);
+        blocks.add(textBlock("Page " + page + "."));
+        blocks.addAll(ordered);
+        if (page == 1) {
+            speak("Book mode. Turn the page when you are ready for the next one.");
+            reader.start(blocks);
+        } else {
+            reader.append(blocks);
+        }
+        pagesRead = page;
+        txtResult.setText(displayText(blocks));
+        store.save(sessionId, page, displayText(ordered), lastOcrBitmap);
+        resultContainer.setVisibility(View.VISIBLE);
+        frozenView.setImageBitmap(null);
+        frozenView.setVisibility(View.GONE); // live preview while turning pages
+        rearmBook(true);
+    }
+
+    private void rearmBook(boolean waitForTurn) {
+        awaitingTurn = waitForTurn;
+        scanning.set(true);
     }
 
     private void resumeScanning() {
+        if (continuous && pagesRead > 0) {
+            // Keep reading the current page; just look for a readable next page again
+            rearmBook(false);
+            return;
+        }
         runOnUiThread(() -> {
+            reader.stop();
             frozenView.setImageBitmap(null);
             frozenView.setVisibility(View.GONE);
             resultContainer.setVisibility(View.GONE);
@@ -338,136 +636,115 @@ public class DocReaderActivity extends AppCompatActivity {
         }, WARMUP_MS);
     }
 
+    // Through the reader, so a prompt during reading pauses it and then carries on
     private void speak(String s) {
-        if (!ttsReady || s == null) return;
-        if (s.trim().length() < 2) return;
-        tts.speak(s, TextToSpeech.QUEUE_FLUSH, null, "TTS_" + System.currentTimeMillis());
+        if (s == null) return;
+        reader.interject(s);
     }
 
     @Override
     protected void onDestroy() {
-        if (tts != null) { tts.stop(); tts.shutdown(); }
+        if (reader != null) reader.stop();   // owns every prompt this screen spoke
         if (cameraExecutor != null) cameraExecutor.shutdown();
         if (cameraProvider != null) cameraProvider.unbindAll();
+        binarizer.close();
+        if (recognizer != null) {
+            recognizer.close();
+            recognizer = null;
+        }
         super.onDestroy();
     }
 
     // ====== Accessibility hotkeys ======
     @Override
     public boolean onKeyDown(int keyCode, KeyEvent event) {
-        // Volume Up: Rescan
+        boolean volume = keyCode == KeyEvent.KEYCODE_VOLUME_UP || keyCode == KeyEvent.KEYCODE_VOLUME_DOWN;
+        if (!volume) return super.onKeyDown(keyCode, event);
+        // While reading, short press navigates and long press keeps the scanning actions
+        if (reader.hasDocument()) {
+            event.startTracking();
+            return true;
+        }
+        if (event.getRepeatCount() > 0) return true;
+        if (keyCode == KeyEvent.KEYCODE_VOLUME_UP) rescan();
+        else toggleTorch();
+        return true;
+    }
+
+    @Override
+    public boolean onKeyLongPress(int keyCode, KeyEvent event) {
+        if (!reader.hasDocument()) return super.onKeyLongPress(keyCode, event);
         if (keyCode == KeyEvent.KEYCODE_VOLUME_UP) {
-            speak("Rescanning.");
-            resumeScanning();
+            rescan();
             return true;
         }
-        // Volume Down: Toggle flashlight
         if (keyCode == KeyEvent.KEYCODE_VOLUME_DOWN) {
-            torchOn = !torchOn;
-            if (boundCamera != null) {
-                boundCamera.getCameraControl().enableTorch(torchOn);
-                speak(torchOn ? "Flashlight on" : "Flashlight off");
-            }
+            toggleTorch();
+            reader.resume();
             return true;
         }
-        return super.onKeyDown(keyCode, event);
+        return super.onKeyLongPress(keyCode, event);
+    }
+
+    @Override
+    public boolean onKeyUp(int keyCode, KeyEvent event) {
+        boolean volume = keyCode == KeyEvent.KEYCODE_VOLUME_UP || keyCode == KeyEvent.KEYCODE_VOLUME_DOWN;
+        if (!volume) return super.onKeyUp(keyCode, event);
+        // isCanceled(): the press already fired onKeyLongPress
+        if (reader.hasDocument() && event.isTracking() && !event.isCanceled()) {
+            if (keyCode == KeyEvent.KEYCODE_VOLUME_DOWN) reader.next();
+            else reader.previous();
+        }
+        return true;
+    }
+
+    private void rescan() {
+        reader.stop();
+        pagesRead = 0;
+        lastPageHash = 0L;
+        awaitingTurn = false;
+        sessionId = System.currentTimeMillis();
+        speak("Rescanning.");
+        if (cameraProvider == null) {
+            // Opened on a saved document: the camera was never started
+            resultContainer.setVisibility(View.GONE);
+            startCameraIfPermitted();
+            return;
+        }
+        resumeScanning();
+    }
+
+    private void toggleTorch() {
+        torchOn = !torchOn;
+        if (boundCamera != null) {
+            boundCamera.getCameraControl().enableTorch(torchOn);
+            speak(torchOn ? "Flashlight on" : "Flashlight off");
+        }
     }
 
     // ====== Lightweight grayscale frame wrapper for analysis ======
+    // One instance per reader; luma buffers are reused across frames.
     private static class GrayFrame {
-        final int w, h;
-        final byte[] y;          // luma plane (downscaled)
-        byte[] prev;             // previous frame luma (same size), for motion
+        private final LumaDownsampler sampler;
+        int w, h;
+        byte[] y;          // luma plane (downscaled)
+        byte[] prev;       // previous frame luma (same size), for motion
 
-        private static GrayFrame last; // keep last across calls
+        GrayFrame(int targetW) { sampler = new LumaDownsampler(targetW); }
 
-        static GrayFrame from(ImageProxy image, int targetW) {
+        void update(ImageProxy image) {
             ImageProxy.PlaneProxy[] planes = image.getPlanes();
             if (planes == null || planes.length == 0) throw new IllegalStateException("No planes");
-            ByteBuffer yb = planes[0].getBuffer();
-            int iw = image.getWidth(), ih = image.getHeight();
-
-            // Downscale nearest-neighbor to ~targetW keeping aspect
-            int tw = Math.min(targetW, iw);
-            int th = Math.max(1, (int) (ih * (tw / (float) iw)));
-
-            byte[] yDown = new byte[tw * th];
-
-            // Row/stride handling for Y plane
-            int rowStride = planes[0].getRowStride();
-            byte[] yFull = new byte[Math.min(rowStride * ih, yb.remaining())];
-            yb.rewind();
-            yb.get(yFull, 0, yFull.length);
-
-            for (int yy = 0; yy < th; yy++) {
-                int srcY = (int) (yy * (ih / (float) th));
-                int srcRow = srcY * rowStride;
-                for (int xx = 0; xx < tw; xx++) {
-                    int srcX = (int) (xx * (iw / (float) tw));
-                    int idx = srcRow + srcX;
-                    if (idx >= 0 && idx < yFull.length) {
-                        yDown[yy * tw + xx] = yFull[idx];
-                    } else {
-                        yDown[yy * tw + xx] = 0;
-                    }
-                }
-            }
-
-            GrayFrame gf = new GrayFrame(tw, th, yDown);
-            if (last != null && last.w == tw && last.h == th) {
-                gf.prev = last.y;
-            }
-            last = gf;
-            return gf;
-        }
-
-        GrayFrame(int w, int h, byte[] y) { this.w = w; this.h = h; this.y = y; }
-
-        double laplacianVar() {
-            long sum = 0, sum2 = 0;
-            int count = 0;
-            for (int j = 1; j < h - 1; j++) {
-                for (int i = 1; i < w - 1; i++) {
-                    int c  = y[j*w + i] & 0xFF;
-                    int l  = y[j*w + (i-1)] & 0xFF;
-                    int r  = y[j*w + (i+1)] & 0xFF;
-                    int u  = y[(j-1)*w + i] & 0xFF;
-                    int d  = y[(j+1)*w + i] & 0xFF;
-                    int lap = 4*c - l - r - u - d;
-                    sum += lap;
-                    sum2 += (long) lap * lap;
-                    count++;
-                }
-            }
-            if (count == 0) return 0;
-            double mean = sum / (double) count;
-            return (sum2 / (double) count) - mean * mean;
-        }
-
-        double motionScore() {
-            if (prev == null || prev.length != y.length) return 0;
-            long acc = 0;
-            for (int i = 0; i < y.length; i += 4) { // sample for speed
-                int a = y[i] & 0xFF;
-                int b = prev[i] & 0xFF;
-                acc += Math.abs(a - b);
-            }
-            return acc / (double) (y.length / 4);
+            sampler.update(planes[0].getBuffer(), planes[0].getRowStride(), planes[0].getPixelStride(),
+                    image.getWidth(), image.getHeight());
+            w = sampler.width();
+            h = sampler.height();
+            y = sampler.current();
+            prev = sampler.previous();
         }
 
-        double edgeDensity() {
-            int edges = 0, total = 0;
-            for (int j = 1; j < h - 1; j += 2) {
-                for (int i = 1; i < w - 1; i += 2) {
-                    int c  = y[j*w + i] & 0xFF;
-                    int r  = y[j*w + (i+1)] & 0xFF;
-                    int d  = y[(j+1)*w + i] & 0xFF;
-                    if (Math.abs(c - r) > 20 || Math.abs(c - d) > 20) edges++;
-                    total++;
-                }
-            }
-            if (total == 0) return 0;
-            return edges / (double) total;
+        FrameQuality quality() {
+            return FrameQuality.analyze(y, prev, w, h, ComputePool.get());
         }
     }
 }
@@ -0,0 +1,63 @@
+package com.example.invisio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Spoken document request -> FTS4 MATCH query.
+ *  "read my last letter"        -> "letter* OR dear OR sincerely OR regards"
+ *  "find the electricity bill"  -> "electricity* bill*"
+ *  "read my last document"      -> null (no topic: newest page)
+ * Document types map to words such documents usually contain, since a letter rarely
+ * says "letter".
+ */
+final class DocumentQuery {
+
+    private static final Set<String> FILLER = new HashSet<>(Arrays.asList(
+            "read", "open", "find", "search", "for", "show", "me", "my", "the", "a", "an", "last", "latest",
+            "recent", "most", "previous", "scanned", "scan", "document", "documents", "page", "pages", "please"));
+
+    private static final Map<String, String> TYPE_WORDS = new HashMap<>();
+    static {
+        TYPE_WORDS.put("letter", "dear OR sincerely OR regards");
+        TYPE_WORDS.put("bill", "invoice OR amount OR due OR payment");
+        TYPE_WORDS.put("prescription", "tablet OR tablets OR dose OR mg OR pharmacy");
+        TYPE_WORDS.put("receipt", "total OR paid OR cash OR change");
+        TYPE_WORDS.put("menu", "starters OR dessert OR drinks OR price");
+    }
+
+    private DocumentQuery() {}
+
+    /** True for requests like "read my last letter" / "search for bill". */
+    static boolean isDocumentRequest(String spoken) {
+        String s = spoken.toLowerCase(Locale.US).trim();
+        return s.startsWith("read my") || s.startsWith("read the last") || s.startsWith("read last")
+                || s.startsWith("find ") || s.startsWith("search ");
+    }
+
+    /** FTS MATCH expression, or null when no topic was given. */
+    static String fts(String spoken) {
+        List<String> words = new ArrayList<>();
+        for (String w : spoken.toLowerCase(Locale.US).split("[^\\p{L}\\p{Nd}]+")) {
+            if (!w.isEmpty() && !FILLER.contains(w)) words.add(w);
+        }
+        if (words.isEmpty()) return null;
+        if (words.size() == 1) {
+            String w = words.get(0);
+            String type = TYPE_WORDS.get(w.endsWith("s") ? w.substring(0, w.length() - 1) : w);
+            return type == null ? w + "*" : w + "* OR " + type;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String w : words) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(w).append('*');
+        }
+        return sb.toString();
+    }
+}
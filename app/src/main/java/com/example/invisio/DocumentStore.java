@@ -0,0 +1,189 @@
+package com.example.invisio;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saved OCR pages (DatabaseHelper scanned_pages + FTS), process-wide.
+ *  - save() never touches the database on the caller's thread: pages are buffered and
+ *    written by one I/O thread in a single transaction per batch (book mode bursts).
+ *  - Thumbnails are scaled once at save time and kept on disk + in a small LRU, so lists
+ *    and results never re-decode or re-process the original frame.
+ *  - Lookups run on the I/O thread; results are delivered on the main thread.
+ */
+final class DocumentStore {
+
+    private static final String TAG = "DocumentStore";
+    private static final long FLUSH_DELAY_MS = 750;
+    private static final int FLUSH_AT = 8;
+    private static final int THUMB_W = 160;
+    private static final int THUMB_CACHE_BYTES = 2 * 1024 * 1024;
+    private static final int TITLE_MAX = 60;
+
+    interface PagesCallback {
+        void onPages(List<ScannedPage> pages);
+    }
+
+    private static final class Pending {
+        final ScannedPage page;
+        final Bitmap thumb;
+
+        Pending(ScannedPage page, Bitmap thumb) {
+            this.page = page;
+            this.thumb = thumb;
+        }
+    }
+
+    private static DocumentStore instance;
+
+    static synchronized DocumentStore get(Context context) {
+        if (instance == null) instance = new DocumentStore(context.getApplicationContext());
+        return instance;
+    }
+
+    private final DatabaseHelper db;
+    private final File thumbDir;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "DocumentStore-IO");
+        t.setDaemon(true);
+        return t;
+    });
+    private final List<Pending> pending = new ArrayList<>();
+    private boolean flushScheduled = false;
+    private final LruCache<Long, Bitmap> thumbs = new LruCache<Long, Bitmap>(THUMB_CACHE_BYTES) {
+        @Override protected int sizeOf(Long key, Bitmap value) { return value.getByteCount(); }
+    };
+
+    private DocumentStore(Context appContext) {
+        db = DatabaseHelper.get(appContext);
+        thumbDir = new File(appContext.getFilesDir(), "page_thumbs");
+    }
+
+    /** Queue a page for storage. body: paragraphs separated by blank lines; image may be null. */
+    void save(long sessionId, int pageNo, String body, Bitmap image) {
+        if (body == null || body.trim().isEmpty()) return;
+        Bitmap thumb = null;
+        if (image != null && image.getWidth() > 0) {
+            int h = Math.max(1, image.getHeight() * THUMB_W / image.getWidth());
+            thumb = Bitmap.createScaledBitmap(image, THUMB_W, h, true);
+        }
+        ScannedPage page = new ScannedPage(-1, sessionId, pageNo, title(body), body,
+                PageHash.of(body), System.currentTimeMillis());
+        synchronized (pending) {
+            pending.add(new Pending(page, thumb));
+            if (pending.size() >= FLUSH_AT) {
+                io.execute(this::flush);
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                io.schedule(this::flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /** Newest pages first. */
+    void recent(int limit, PagesCallback cb) {
+        io.execute(() -> {
+            flush(); // include anything saved moments ago
+            deliver(db.getRecentPages(limit), cb);
+        });
+    }
+
+    /** FTS MATCH query (see DocumentQuery), newest matches first. */
+    void search(String ftsQuery, int limit, PagesCallback cb) {
+        io.execute(() -> {
+            flush();
+            long t0 = System.nanoTime();
+            List<ScannedPage> pages = db.searchPages(ftsQuery, limit);
+            Log.d(TAG, "search '" + ftsQuery + "': " + pages.size() + " in "
+                    + (System.nanoTime() - t0) / 1000 + " us");
+            deliver(pages, cb);
+        });
+    }
+
+    /** All pages scanned in the same session as a page, in page order. */
+    void session(long sessionId, PagesCallback cb) {
+        io.execute(() -> {
+            flush();
+            deliver(db.getSessionPages(sessionId), cb);
+        });
+    }
+
+    /** Cached thumbnail, or null. Reads disk on a miss, so call off the main thread. */
+    Bitmap thumbnail(long pageId) {
+        Bitmap b = thumbs.get(pageId);
+        if (b != null) return b;
+        File f = thumbFile(pageId);
+        if (!f.exists()) return null;
+        b = BitmapFactory.decodeFile(f.getPath());
+        if (b != null) thumbs.put(pageId, b);
+        return b;
+    }
+
+    // I/O thread
+    private void flush() {
+        List<Pending> batch;
+        synchronized (pending) {
+            flushScheduled = false;
+            if (pending.isEmpty()) return;
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+        List<ScannedPage> pages = new ArrayList<>(batch.size());
+        for (Pending p : batch) pages.add(p.page);
+        try {
+            long t0 = System.nanoTime();
+            int inserted = db.insertPages(pages);
+            Log.d(TAG, "stored " + inserted + "/" + pages.size() + " pages in "
+                    + (System.nanoTime() - t0) / 1000 + " us");
+        } catch (Exception e) {
+            Log.e(TAG, "insert failed", e);
+            return;
+        }
+        for (Pending p : batch) {
+            if (p.thumb == null || p.page.getId() < 0) continue;
+            File f = thumbFile(p.page.getId());
+            if (f.exists()) continue; // same page stored before: keep the first thumbnail
+            if (!thumbDir.exists() && !thumbDir.mkdirs()) continue;
+            try (FileOutputStream out = new FileOutputStream(f)) {
+                p.thumb.compress(Bitmap.CompressFormat.JPEG, 70, out);
+                thumbs.put(p.page.getId(), p.thumb);
+            } catch (Exception e) {
+                Log.w(TAG, "thumbnail write failed", e);
+            }
+        }
+    }
+
+    private File thumbFile(long pageId) {
+        return new File(thumbDir, pageId + ".jpg");
+    }
+
+    private void deliver(List<ScannedPage> pages, PagesCallback cb) {
+        mainHandler.post(() -> cb.onPages(pages));
+    }
+
+    /** First words of the page, for listing and "Reading ..." announcements. */
+    static String title(String body) {
+        String t = body.trim();
+        int nl = t.indexOf('\n');
+        if (nl > 0) t = t.substring(0, nl);
+        if (t.length() > TITLE_MAX) {
+            int cut = t.lastIndexOf(' ', TITLE_MAX);
+            t = t.substring(0, cut > TITLE_MAX / 2 ? cut : TITLE_MAX);
+        }
+        return t;
+    }
+}
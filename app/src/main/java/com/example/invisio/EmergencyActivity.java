@@ -3,10 +3,8 @@ package com.example.invisio;
 import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.net.Uri;
 import android.os.Bundle;
-import android.speech.tts.TextToSpeech;
-import android.telephony.SmsManager;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
@@ -18,29 +16,34 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Emergency Screen - Accessible emergency contact calling
  * Activated by voice command "Emergency" or shake detection
  */
-public class EmergencyActivity extends AppCompatActivity implements TextToSpeech.OnInitListener {
+public class EmergencyActivity extends AppCompatActivity {
 
     private static final String TAG = "EmergencyActivity";
     private static final int PERMISSION_REQUEST_CODE = 200;
 
+    // Set by FallDetectionService: alerts already dispatched, call the primary contact at once
+    static final String EXTRA_REASON = "trigger_reason";
+    static final String EXTRA_TRIGGER_AT = "trigger_at";
+
     private LinearLayout contactsContainer;
     private Button btnCancel;
     private TextView tvEmergencyTitle;
 
-    private DatabaseHelper dbHelper;
-    private SessionManager sessionManager;
-    private TextToSpeech tts;
-    private boolean ttsReady = false;
+    private EmergencyProfile profile;
+    private EmergencyDispatcher dispatcher;
+    private SpeechManager speech;
 
     private List<EmergencyContact> emergencyContacts;
-    private int userId;
+    private String triggerReason;
+    private long triggerAt;
+    private String lastAnnouncedStatus;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -51,20 +54,15 @@ public class EmergencyActivity extends AppCompatActivity implements TextToSpeech
             getSupportActionBar().hide();
         }
 
-        dbHelper = new DatabaseHelper(this);
-        sessionManager = new SessionManager(this);
+        profile = EmergencyProfile.get(this);
+        dispatcher = EmergencyDispatcher.get(this);
+        speech = SpeechManager.get(this);
 
-        // Get user ID
-        String email = sessionManager.getUserEmail();
-        User user = dbHelper.getUserDetails(email);
-        if (user != null) {
-            userId = user.getId();
-        }
+        triggerReason = getIntent().getStringExtra(EXTRA_REASON);
+        triggerAt = getIntent().getLongExtra(EXTRA_TRIGGER_AT, SystemClock.elapsedRealtime());
 
         initializeViews();
         checkPermissions();
-
-        tts = new TextToSpeech(this, this);
     }
 
     private void initializeViews() {
@@ -104,7 +102,12 @@ public class EmergencyActivity extends AppCompatActivity implements TextToSpeech
     }
 
     private void loadEmergencyContacts() {
-        emergencyContacts = dbHelper.getEmergencyContacts(userId);
+        profile.withSnapshot(this::showContacts);
+    }
+
+    private void showContacts(EmergencyProfile.Snapshot snapshot) {
+        if (isFinishing()) return;
+        emergencyContacts = snapshot != null ? snapshot.contacts : new ArrayList<>();
 
         if (emergencyContacts.isEmpty()) {
             speak("No emergency contacts configured. Please add emergency contacts in settings.");
@@ -119,6 +122,17 @@ public class EmergencyActivity extends AppCompatActivity implements TextToSpeech
         }
 
         displayEmergencyContacts();
+
+        // Detector trigger: alerts are already out; ring the primary contact without waiting for a tap.
+        // The call is under way, so the "press to call" menu prompt is skipped rather than spoken over this.
+        if (triggerReason != null) {
+            EmergencyContact primary = emergencyContacts.get(0);
+            speak(triggerReason + ". Alerting your contacts and calling " + primary.getName());
+            dispatcher.call(this, primary, triggerAt);
+            triggerReason = null;
+            return;
+        }
+
         announceContacts();
     }
 
@@ -184,17 +198,13 @@ public class EmergencyActivity extends AppCompatActivity implements TextToSpeech
 
     private void makeEmergencyCall(EmergencyContact contact) {
         try {
-            // Send SMS to all contacts first
-            sendEmergencySMS();
-
-            // Make phone call
-            Intent callIntent = new Intent(Intent.ACTION_CALL);
-            callIntent.setData(Uri.parse("tel:" + contact.getPhoneNumber()));
+            // Alert all contacts first (skipped if this emergency already sent them)
+            long now = SystemClock.elapsedRealtime();
+            if (dispatcher.dispatch("Emergency button", now)) {
+                Toast.makeText(this, "Sending emergency alerts to all contacts", Toast.LENGTH_SHORT).show();
+            }
 
-            if (ContextCompat.checkSelfPermission(this, Manifest.permission.CALL_PHONE) == PackageManager.PERMISSION_GRANTED) {
-                startActivity(callIntent);
-                Log.i(TAG, "Emergency call initiated to: " + contact.getName());
-            } else {
+            if (!dispatcher.call(this, contact, now)) {
                 Toast.makeText(this, "Call permission not granted", Toast.LENGTH_SHORT).show();
             }
         } catch (Exception e) {
@@ -203,46 +213,29 @@ public class EmergencyActivity extends AppCompatActivity implements TextToSpeech
         }
     }
 
-    private void sendEmergencySMS() {
-        String message = "EMERGENCY: " + sessionManager.getUserName() + " has activated emergency mode in InVisio app. Please check on them immediately.";
-
-        try {
-            SmsManager smsManager = SmsManager.getDefault();
-            for (EmergencyContact contact : emergencyContacts) {
-                smsManager.sendTextMessage(contact.getPhoneNumber(), null, message, null, null);
-                Log.i(TAG, "Emergency SMS sent to: " + contact.getName());
-            }
-            Toast.makeText(this, "Emergency alerts sent to all contacts", Toast.LENGTH_SHORT).show();
-        } catch (Exception e) {
-            Log.e(TAG, "Error sending emergency SMS", e);
-        }
+    @Override
+    protected void onResume() {
+        super.onResume();
+        dispatcher.setStatusListener(this::onAlertStatus);
     }
 
     @Override
-    public void onInit(int status) {
-        if (status == TextToSpeech.SUCCESS) {
-            tts.setLanguage(Locale.US);
-            tts.setSpeechRate(1.0f);
-            tts.setPitch(1.1f);
-            ttsReady = true;
-            Log.i(TAG, "TTS Ready for emergency announcements");
-        } else {
-            Log.e(TAG, "TTS initialization failed");
-        }
+    protected void onPause() {
+        super.onPause();
+        dispatcher.setStatusListener(null);
     }
 
-    private void speak(String text) {
-        if (ttsReady && text != null && !text.isEmpty()) {
-            tts.speak(text, TextToSpeech.QUEUE_FLUSH, null, "EMERGENCY_TTS");
-        }
+    // Announce once the round settles, e.g. "Alerts delivered to 2 of 3 contacts"
+    private void onAlertStatus(String summary, boolean settled) {
+        if (tvEmergencyTitle != null) tvEmergencyTitle.setContentDescription(summary);
+        if (!settled || summary.equals(lastAnnouncedStatus)) return;
+        lastAnnouncedStatus = summary;
+        speech.say(this, summary, SpeechManager.Priority.NORMAL);
     }
 
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (tts != null) {
-            tts.stop();
-            tts.shutdown();
+    private void speak(String text) {
+        if (text != null && !text.isEmpty()) {
+            speech.sayNow(this, text, SpeechManager.Priority.EMERGENCY);
         }
     }
 
@@ -0,0 +1,197 @@
+package com.example.invisio;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the emergency alerts the moment a trigger is confirmed (fall / shake verdict, or a
+ * contact tapped on the emergency screen):
+ *  - contacts come from the preloaded EmergencyProfile, no database round trip;
+ *  - the location is whatever LocationCache already holds (maps link, age, accuracy), never awaited;
+ *  - EmergencyMessenger sends one multipart SMS per contact (in parallel through
+ *    SmsManagerGateway), tracks sent / delivered reports and retries failures;
+ *  - status is persisted in emergency_alerts and pushed to the emergency screen;
+ *  - the primary contact is called as soon as the emergency screen is up.
+ * Timings from trigger (elapsedRealtime) to each SMS sent / delivered and to the call are logged.
+ */
+final class EmergencyDispatcher {
+
+    private static final String TAG = "EmergencyDispatch";
+    private static final long REPEAT_WINDOW_MS = 60_000;   // one alert round per emergency
+    private static final int SMS_THREADS = 4;
+
+    /** Alert status for the UI, on the main thread. settled: nothing sending or waiting to retry. */
+    interface StatusListener {
+        void onAlertStatus(String summary, boolean settled);
+    }
+
+    private static EmergencyDispatcher instance;
+
+    static synchronized EmergencyDispatcher get(Context context) {
+        if (instance == null) instance = new EmergencyDispatcher(context.getApplicationContext());
+        return instance;
+    }
+
+    private final Context appContext;
+    private final EmergencyProfile profile;
+    private final ScheduledExecutorService smsPool = Executors.newScheduledThreadPool(SMS_THREADS, r -> {
+        Thread t = new Thread(r, "EmergencySms");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "EmergencyStatus");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final DatabaseHelper db;
+    private final EmergencyMessenger messenger;
+    private long lastDispatchAt = -REPEAT_WINDOW_MS;   // trigger of the last round that sent
+    private boolean preparing;                         // a round is being prepared on the SMS pool
+    private volatile long roundTriggerAt;
+    private volatile StatusListener statusListener;
+
+    private EmergencyDispatcher(Context appContext) {
+        this.appContext = appContext;
+        this.profile = EmergencyProfile.get(appContext);
+        this.db = DatabaseHelper.get(appContext);
+        SmsManagerGateway gateway = new SmsManagerGateway(appContext, smsPool);
+        messenger = new EmergencyMessenger(gateway, this::persist,
+                (task, delayMs) -> smsPool.schedule(task, delayMs, TimeUnit.MILLISECONDS));
+        gateway.attach(messenger);
+        messenger.setListener(this::onRecipientChanged);
+    }
+
+    /**
+     * Alerts every contact by SMS. Returns false if an alert round for this emergency
+     * already went out or is being prepared (e.g. a fall followed by the user tapping a
+     * contact). A round that sent nothing (no contacts, no SMS permission) does not count.
+     */
+    synchronized boolean dispatch(String reason, long triggerAt) {
+        if (preparing) {
+            Log.i(TAG, "alert round already being prepared");
+            return false;
+        }
+        if (triggerAt - lastDispatchAt < REPEAT_WINDOW_MS) {
+            Log.i(TAG, "alerts already sent " + (triggerAt - lastDispatchAt) + " ms ago");
+            return false;
+        }
+        preparing = true;
+        smsPool.execute(() -> {
+            boolean sent = false;
+            try {
+                sent = fanOut(reason, triggerAt);
+            } finally {
+                synchronized (this) {
+                    preparing = false;
+                    if (sent) lastDispatchAt = triggerAt;
+                }
+            }
+        });
+        return true;
+    }
+
+    /** ACTION_CALL to a contact from an activity; logs trigger-to-call time. */
+    boolean call(Context activity, EmergencyContact contact, long triggerAt) {
+        if (ContextCompat.checkSelfPermission(activity, Manifest.permission.CALL_PHONE)
+                != PackageManager.PERMISSION_GRANTED) {
+            return false;
+        }
+        Intent callIntent = new Intent(Intent.ACTION_CALL, Uri.parse("tel:" + contact.getPhoneNumber()));
+        activity.startActivity(callIntent);
+        Log.i(TAG, "call to " + contact.getName() + " started "
+                + (SystemClock.elapsedRealtime() - triggerAt) + " ms after trigger");
+        return true;
+    }
+
+    /**
+     * Listener for status changes (null to stop). Immediately gets the current round's status,
+     * or the last persisted round's if this process hasn't sent any.
+     */
+    void setStatusListener(StatusListener l) {
+        statusListener = l;
+        if (l == null) return;
+        if (messenger.roundId() >= 0) {
+            String summary = messenger.summary();
+            boolean settled = !messenger.inProgress();
+            mainHandler.post(() -> l.onAlertStatus(summary, settled));
+            return;
+        }
+        io.execute(() -> {
+            List<EmergencyMessenger.Recipient> last = db.getLatestAlertStatuses();
+            if (last.isEmpty()) return;
+            String summary = EmergencyMessenger.summary(last);
+            mainHandler.post(() -> {
+                if (statusListener == l) l.onAlertStatus(summary, true);
+            });
+        });
+    }
+
+    // SMS pool. True once the round was handed to the messenger.
+    private boolean fanOut(String reason, long triggerAt) {
+        EmergencyProfile.Snapshot s = profile.require();
+        long ready = SystemClock.elapsedRealtime();
+        if (s == null || s.contacts.isEmpty()) {
+            Log.w(TAG, "no emergency contacts to alert");
+            return false;
+        }
+        if (ContextCompat.checkSelfPermission(appContext, Manifest.permission.SEND_SMS)
+                != PackageManager.PERMISSION_GRANTED) {
+            Log.w(TAG, "SMS permission missing, alerts not sent");
+            return false;
+        }
+        roundTriggerAt = triggerAt;
+        Log.i(TAG, "alerting " + s.contacts.size() + " contacts, profile ready "
+                + (ready - triggerAt) + " ms after trigger");
+        LocationFix fix = LocationCache.get(appContext).last();
+        messenger.start(System.currentTimeMillis(), s.contacts,
+                message(s.userName, reason, fix, SystemClock.elapsedRealtime()));
+        return true;
+    }
+
+    // Messenger lock held: copy what's needed, then hand off
+    private void onRecipientChanged(long roundId, EmergencyMessenger.Recipient r) {
+        long ms = SystemClock.elapsedRealtime() - roundTriggerAt;
+        if (r.state == EmergencyMessenger.State.SENT || r.state == EmergencyMessenger.State.DELIVERED
+                || r.state == EmergencyMessenger.State.FAILED) {
+            Log.i(TAG, "SMS to " + r.name + " " + r.state + " after " + r.attempts + " attempt(s), "
+                    + ms + " ms after trigger");
+        }
+        StatusListener l = statusListener;
+        if (l == null) return;
+        String summary = messenger.summary();
+        boolean settled = !messenger.inProgress();
+        mainHandler.post(() -> l.onAlertStatus(summary, settled));
+    }
+
+    private void persist(long roundId, EmergencyMessenger.Recipient r) {
+        int contactId = r.contactId;
+        String name = r.name, phone = r.phone, state = r.state.name();
+        int attempts = r.attempts, error = r.lastError;
+        long now = System.currentTimeMillis();
+        io.execute(() -> db.saveAlertStatus(roundId, contactId, name, phone, state, attempts, error, now));
+    }
+
+    static String message(String userName, String reason, LocationFix fix, long now) {
+        String who = userName != null ? userName : "The InVisio user";
+        String text = "EMERGENCY: " + who + " has activated emergency mode in InVisio app ("
+                + reason + "). Please check on them immediately.";
+        return fix != null ? text + "\n" + fix.alertLine(now) : text;
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.invisio;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One round of emergency SMS alerts with per-contact sent / delivered tracking.
+ *  - Each message is divided into parts and sent as one multipart SMS per contact.
+ *  - A contact is SENT when every part's sent report came back OK and DELIVERED when
+ *    every part's delivery report did. A failed part (sent or delivery report) fails the
+ *    whole attempt.
+ *  - Failed attempts are retried with exponential backoff, up to MAX_ATTEMPTS.
+ *  - Every state change is handed to the Store (persisted for the UI) and the Listener.
+ * No Android types: the SMS stack, storage and timers are the Gateway, Store and Scheduler
+ * seams, so tests drive it with fakes. Methods are synchronized; reports may arrive on any thread.
+ */
+final class EmergencyMessenger {
+
+    static final int MAX_ATTEMPTS = 4;
+    static final long BACKOFF_BASE_MS = 2000;
+    static final long BACKOFF_MAX_MS = 30_000;
+
+    enum State { SENDING, RETRY_WAIT, SENT, DELIVERED, FAILED }
+
+    /** SMS stack. send() must eventually report every part through onSent / onDelivered. */
+    interface Gateway {
+        List<String> divide(String text);
+        void send(long roundId, int contact, int attempt, String phone, List<String> parts);
+    }
+
+    interface Store {
+        void save(long roundId, Recipient r);
+    }
+
+    interface Scheduler {
+        void schedule(Runnable task, long delayMs);
+    }
+
+    interface Listener {
+        void onRecipientChanged(long roundId, Recipient r);
+    }
+
+    /** Per-contact status; fields change only under the messenger lock. */
+    static final class Recipient {
+        final int index;
+        final int contactId;
+        final String name;
+        final String phone;
+        State state = State.SENDING;
+        int attempts;
+        int parts;
+        int lastError;
+        private boolean[] sent, delivered;
+
+        Recipient(int index, int contactId, String name, String phone) {
+            this.index = index;
+            this.contactId = contactId;
+            this.name = name;
+            this.phone = phone;
+        }
+    }
+
+    private final Gateway gateway;
+    private final Store store;
+    private final Scheduler scheduler;
+    private Listener listener;
+
+    private long roundId = -1;
+    private List<String> parts = Collections.emptyList();
+    private final List<Recipient> recipients = new ArrayList<>();
+
+    EmergencyMessenger(Gateway gateway, Store store, Scheduler scheduler) {
+        this.gateway = gateway;
+        this.store = store;
+        this.scheduler = scheduler;
+    }
+
+    synchronized void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Starts a new round (replacing any previous one) and sends to every recipient. */
+    synchronized void start(long roundId, List<EmergencyContact> contacts, String text) {
+        this.roundId = roundId;
+        this.parts = gateway.divide(text);
+        recipients.clear();
+        for (int i = 0; i < contacts.size(); i++) {
+            EmergencyContact c = contacts.get(i);
+            recipients.add(new Recipient(i, c.getId(), c.getName(), c.getPhoneNumber()));
+        }
+        for (Recipient r : recipients) send(r);
+    }
+
+    /** Sent report for one part. ok false = radio / service error (code kept in lastError). */
+    synchronized void onSent(long roundId, int contact, int attempt, int part, boolean ok, int errorCode) {
+        Recipient r = current(roundId, contact, attempt);
+        if (r == null || r.state != State.SENDING || part < 0 || part >= r.parts) return;
+        if (!ok) {
+            r.lastError = errorCode;
+            retryOrFail(r);
+            return;
+        }
+        r.sent[part] = true;
+        if (all(r.sent)) {
+            r.state = State.SENT;
+            changed(r);
+            if (all(r.delivered)) delivered(r);   // delivery reports overtook the sent ones
+        }
+    }
+
+    /** Delivery report for one part. ok false = the network could not deliver it; retried like a failed send. */
+    synchronized void onDelivered(long roundId, int contact, int attempt, int part, boolean ok) {
+        Recipient r = current(roundId, contact, attempt);
+        if (r == null || part < 0 || part >= r.parts) return;
+        if (!ok) {
+            if (r.state == State.SENDING || r.state == State.SENT) retryOrFail(r);
+            return;
+        }
+        r.delivered[part] = true;
+        if (r.state == State.SENT && all(r.delivered)) delivered(r);
+    }
+
+    /**
+     * Delivery report carrying the raw TP-Status of the SMS status report (3GPP TS 23.040):
+     *  - 0x00..0x1F: delivered.
+     *  - 0x20..0x3F: temporary error, the SMSC is still trying and will report again; ignored.
+     *  - 0x40 and up: permanent error or the SMSC gave up; the attempt failed.
+     */
+    synchronized void onDeliveryReport(long roundId, int contact, int attempt, int part, int tpStatus) {
+        int status = tpStatus & 0xFF;
+        if (status >= 0x20 && status < 0x40) return;
+        onDelivered(roundId, contact, attempt, part, status < 0x20);
+    }
+
+    synchronized long roundId() {
+        return roundId;
+    }
+
+    synchronized List<Recipient> recipients() {
+        return new ArrayList<>(recipients);
+    }
+
+    /** True while any recipient is still sending or waiting to retry. */
+    synchronized boolean inProgress() {
+        for (Recipient r : recipients) {
+            if (r.state == State.SENDING || r.state == State.RETRY_WAIT) return true;
+        }
+        return false;
+    }
+
+    /** Spoken status, e.g. "Alerts delivered to 2 of 3 contacts". */
+    synchronized String summary() {
+        return summary(recipients);
+    }
+
+    static String summary(List<Recipient> list) {
+        int delivered = 0, sent = 0, failed = 0;
+        for (Recipient r : list) {
+            if (r.state == State.DELIVERED) delivered++;
+            else if (r.state == State.SENT) sent++;
+            else if (r.state == State.FAILED) failed++;
+        }
+        int n = list.size();
+        StringBuilder sb = new StringBuilder("Alerts delivered to ")
+                .append(delivered).append(" of ").append(n).append(n == 1 ? " contact" : " contacts");
+        if (sent > 0) sb.append(", ").append(sent).append(" sent awaiting delivery");
+        if (failed > 0) sb.append(", ").append(failed).append(" failed");
+        return sb.toString();
+    }
+
+    static long backoff(int attempt) {
+        long d = BACKOFF_BASE_MS << Math.min(attempt - 1, 16);
+        return Math.min(BACKOFF_MAX_MS, d);
+    }
+
+    private void send(Recipient r) {
+        r.attempts++;
+        r.state = State.SENDING;
+        r.parts = parts.size();
+        r.sent = new boolean[r.parts];
+        r.delivered = new boolean[r.parts];
+        changed(r);
+        try {
+            gateway.send(roundId, r.index, r.attempts, r.phone, parts);
+        } catch (RuntimeException e) {
+            r.lastError = -1;
+            retryOrFail(r);
+        }
+    }
+
+    private void retryOrFail(Recipient r) {
+        if (r.attempts >= MAX_ATTEMPTS) {
+            r.state = State.FAILED;
+            changed(r);
+            return;
+        }
+        r.state = State.RETRY_WAIT;
+        changed(r);
+        final long id = roundId;
+        final int attempt = r.attempts;
+        scheduler.schedule(() -> {
+            synchronized (this) {
+                // Still the same round and attempt (nothing superseded it)
+                if (current(id, r.index, attempt) == r && r.state == State.RETRY_WAIT) send(r);
+            }
+        }, backoff(attempt));
+    }
+
+    private void delivered(Recipient r) {
+        r.state = State.DELIVERED;
+        changed(r);
+    }
+
+    // The recipient if the report belongs to its current attempt, else null (stale report)
+    private Recipient current(long id, int contact, int attempt) {
+        if (id != roundId || contact < 0 || contact >= recipients.size()) return null;
+        Recipient r = recipients.get(contact);
+        return r.attempts == attempt ? r : null;
+    }
+
+    private void changed(Recipient r) {
+        store.save(roundId, r);
+        if (listener != null) listener.onRecipientChanged(roundId, r);
+    }
+
+    private static boolean all(boolean[] flags) {
+        for (boolean f : flags) if (!f) return false;
+        return true;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.invisio;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The logged-in user and their emergency contacts, kept in memory so an emergency never
+ * waits on the database. Loaded in the background when the safety monitor starts and
+ * reloaded whenever DatabaseHelper reports a contact change or the session changes user.
+ * The user comes straight from SessionManager's in-memory session (id and name).
+ */
+final class EmergencyProfile implements DatabaseHelper.ContactsListener, SessionManager.Listener {
+
+    private static final String TAG = "EmergencyProfile";
+
+    /** Immutable copy; contacts in priority order (primary first). */
+    static final class Snapshot {
+        final int userId;
+        final String userName;
+        final List<EmergencyContact> contacts;
+        final long loadedAt;
+
+        Snapshot(int userId, String userName, List<EmergencyContact> contacts, long loadedAt) {
+            this.userId = userId;
+            this.userName = userName;
+            this.contacts = Collections.unmodifiableList(contacts);
+            this.loadedAt = loadedAt;
+        }
+
+        EmergencyContact primary() {
+            return contacts.isEmpty() ? null : contacts.get(0);
+        }
+    }
+
+    interface SnapshotCallback {
+        void onSnapshot(Snapshot snapshot);
+    }
+
+    private static EmergencyProfile instance;
+
+    static synchronized EmergencyProfile get(Context context) {
+        if (instance == null) instance = new EmergencyProfile(context.getApplicationContext());
+        return instance;
+    }
+
+    private final DatabaseHelper db;
+    private final SessionManager session;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "EmergencyProfile");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile Snapshot snapshot;
+    // User id load() is storing into the session right now; its own change notification is skipped
+    private volatile int backfillingUserId = -1;
+
+    private EmergencyProfile(Context appContext) {
+        db = DatabaseHelper.get(appContext);
+        session = SessionManager.get(appContext);
+        DatabaseHelper.addContactsListener(this);
+        session.addListener(this);
+    }
+
+    /** Reload in the background (login, contact edits). */
+    void refresh() {
+        io.execute(this::load);
+    }
+
+    /** Latest snapshot, or null before the first load finished. */
+    Snapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * Snapshot now if loaded, otherwise waits for a load on the profile thread.
+     * Blocks; call from a worker thread (the dispatcher's), never the main thread.
+     */
+    Snapshot require() {
+        Snapshot s = snapshot;
+        if (s != null) return s;
+        Future<?> f = io.submit(this::load);
+        try {
+            f.get();
+        } catch (Exception e) {
+            Log.e(TAG, "load failed", e);
+        }
+        return snapshot;
+    }
+
+    /** Delivers the snapshot on the main thread, loading it first if needed. */
+    void withSnapshot(SnapshotCallback cb) {
+        Snapshot s = snapshot;
+        if (s != null) {
+            // Posted even on a hit so callers never run it inside their own stack
+            mainHandler.post(() -> cb.onSnapshot(s));
+            return;
+        }
+        io.execute(() -> {
+            load();
+            Snapshot loaded = snapshot;
+            mainHandler.post(() -> cb.onSnapshot(loaded));
+        });
+    }
+
+    @Override
+    public void onContactsChanged() {
+        refresh();
+    }
+
+    // Login / logout: the old snapshot belongs to someone else, so nobody may use it meanwhile.
+    // load() storing the id it looked up is the same user, and that load is still running.
+    @Override
+    public void onSessionChanged(SessionManager s) {
+        if (s.isLoggedIn() && s.getUserId() >= 0 && s.getUserId() == backfillingUserId) return;
+        snapshot = null;
+        refresh();
+    }
+
+    // Profile thread
+    private void load() {
+        long t0 = System.nanoTime();
+        if (!session.isLoggedIn()) {
+            snapshot = new Snapshot(-1, null, new ArrayList<>(), System.currentTimeMillis());
+            return;
+        }
+        int userId = session.getUserId();
+        String name = session.getUserName();
+        if (userId < 0 && session.getUserEmail() != null) {
+            // Session saved before the id was kept: look it up once and store it
+            User user = db.getUserDetails(session.getUserEmail());
+            if (user != null) {
+                userId = user.getId();
+                backfillingUserId = userId;
+                try {
+                    session.setUserId(userId);   // notifies us synchronously on this thread
+                } finally {
+                    backfillingUserId = -1;
+                }
+            }
+        }
+        List<EmergencyContact> contacts = userId >= 0 ? db.getEmergencyContacts(userId) : new ArrayList<>();
+        snapshot = new Snapshot(userId, name, contacts, System.currentTimeMillis());
+        Log.d(TAG, "loaded " + contacts.size() + " contacts in " + (System.nanoTime() - t0) / 1000 + " us");
+    }
+}
@@ -1,32 +1,78 @@
 package com.example.invisio;
 
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
+import android.content.pm.ServiceInfo;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
 import android.os.IBinder;
+import android.os.Process;
+import android.os.SystemClock;
 import android.os.Vibrator;
 import android.util.Log;
 
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.ServiceCompat;
+
+import java.util.Arrays;
+import java.util.Locale;
+
 /**
- * Fall/Shake Detection Service
- * Detects sudden movements that might indicate a fall or emergency shake
+ * Fall/Shake Detection Service (foreground, "health" type, so it survives background limits)
+ * Feeds the accelerometer to FallDetector: a fall is free fall, impact, then lying still;
+ * a shake is three hard shakes in quick succession.
+ * Idle sampling is low-rate and batched in the sensor FIFO; an impact-level peak switches
+ * to a high unbatched rate until things calm down.
+ * Sensor events, detection and the emergency trigger all run on a background HandlerThread;
+ * the main looper only sees onCreate/onDestroy. Logout stops the service, closing the app doesn't.
  */
 public class FallDetectionService extends Service implements SensorEventListener {
 
     private static final String TAG = "FallDetection";
-    private static final float FALL_THRESHOLD = 25.0f; // m/s² threshold for fall detection
-    private static final float SHAKE_THRESHOLD = 20.0f; // m/s² threshold for emergency shake
-    private static final long SHAKE_TIME_WINDOW = 500; // milliseconds
+
+    // Idle: 25 Hz into the sensor FIFO, delivered every couple of seconds (one wakeup per batch)
+    private static final int IDLE_PERIOD_US = 40_000;
+    private static final int IDLE_LATENCY_US = 2_000_000;
+    // After an impact-level peak: 100 Hz, unbatched, until things have been calm for a while
+    private static final int ACTIVE_PERIOD_US = 10_000;
+    private static final long ACTIVE_HOLD_MS = 10_000;
+    private static final long STATS_EVERY_MS = 15 * 60 * 1000;
+
+    private static final String CHANNEL_MONITOR = "safety_monitor";
+    private static final String CHANNEL_ALERT = "safety_alert";
+    private static final int NOTIFICATION_MONITOR = 1001;
+    private static final int NOTIFICATION_ALERT = 1002;
 
     private SensorManager sensorManager;
     private Sensor accelerometer;
-    private long lastShakeTime = 0;
-    private int shakeCount = 0;
+    private final FallDetector detector = new FallDetector();
+    private HandlerThread sensorThread;
+    private Handler handler;
     private Vibrator vibrator;
+    private boolean active = false;
+
+    // Current block: events delivered in one burst, processed together once the burst ends
+    private long[] blockT = new long[256];
+    private float[] blockXyz = new float[256 * 3];
+    private int blockN = 0;
+    private boolean blockPosted = false;
+    private final Runnable processBlock = this::processBlock;
+
+    // Cost metrics since statsSince (elapsedRealtime); CPU is the sensor thread's own time
+    private long statsSince, cpuSince;
+    private int batches, batchSamples;
+    private long batchNanos, maxBatchNanos;
 
     @Override
     public void onCreate() {
@@ -35,60 +81,167 @@ public class FallDetectionService extends Service implements SensorEventListener
         accelerometer = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
         vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
 
+        // Contacts in memory before anything can trigger
+        EmergencyProfile.get(this).refresh();
+        EmergencyDispatcher.get(this); // delivery-report receiver up before any alert
+        createChannels();
+        goForeground();
+
         if (accelerometer != null) {
-            sensorManager.registerListener(this, accelerometer, SensorManager.SENSOR_DELAY_NORMAL);
+            Log.i(TAG, "Accelerometer FIFO: " + accelerometer.getFifoMaxEventCount() + " events");
+            sensorThread = new HandlerThread("FallDetection-Sensors", Process.THREAD_PRIORITY_BACKGROUND);
+            sensorThread.start();
+            handler = new Handler(sensorThread.getLooper());
+            handler.post(() -> {
+                statsSince = SystemClock.elapsedRealtime();
+                cpuSince = SystemClock.currentThreadTimeMillis();
+                register(false);
+            });
             Log.i(TAG, "Fall detection service started");
         } else {
             Log.w(TAG, "Accelerometer not available");
         }
+        // Last known location ready for the alert SMS; callbacks on the sensor thread
+        LocationCache.get(this).start(sensorThread != null ? sensorThread.getLooper() : Looper.getMainLooper());
+    }
+
+    // health for the sensors; location too when permitted, or a background service gets no fixes (API 29+)
+    private void goForeground() {
+        int types = 0;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            types |= ServiceInfo.FOREGROUND_SERVICE_TYPE_HEALTH;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && LocationCache.get(this).permitted()) {
+            types |= ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION;
+        }
+        ServiceCompat.startForeground(this, NOTIFICATION_MONITOR, monitorNotification(), types);
+    }
+
+    private void createChannels() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return;
+        NotificationManager nm = getSystemService(NotificationManager.class);
+        NotificationChannel monitor = new NotificationChannel(CHANNEL_MONITOR,
+                "Safety monitor", NotificationManager.IMPORTANCE_MIN);
+        monitor.setDescription("Shown while fall and shake detection is on");
+        NotificationChannel alert = new NotificationChannel(CHANNEL_ALERT,
+                "Emergency alerts", NotificationManager.IMPORTANCE_HIGH);
+        alert.setDescription("Opens the emergency screen after a fall or shake");
+        nm.createNotificationChannel(monitor);
+        nm.createNotificationChannel(alert);
+    }
+
+    private Notification monitorNotification() {
+        PendingIntent open = PendingIntent.getActivity(this, 0,
+                new Intent(this, MainActivity.class), PendingIntent.FLAG_IMMUTABLE);
+        return new NotificationCompat.Builder(this, CHANNEL_MONITOR)
+                .setSmallIcon(R.drawable.ic_person)
+                .setContentTitle("Safety monitor on")
+                .setContentText("Fall and shake detection is active")
+                .setContentIntent(open)
+                .setOngoing(true)
+                .setPriority(NotificationCompat.PRIORITY_MIN)
+                .setCategory(NotificationCompat.CATEGORY_SERVICE)
+                .build();
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
+        // Restarted after a location grant: add the location type, then start the cache
+        goForeground();
+        LocationCache.get(this).onPermissionGranted();
         return START_STICKY; // Keep service running
     }
 
+    // Batched while idle. Latency is capped so the FIFO doesn't overflow and drop samples.
+    private void register(boolean activeMode) {
+        sensorManager.unregisterListener(this);
+        active = activeMode;
+        int period = activeMode ? ACTIVE_PERIOD_US : IDLE_PERIOD_US;
+        int latency = 0;
+        if (!activeMode) {
+            int fifo = accelerometer.getFifoMaxEventCount();
+            latency = (int) Math.min(IDLE_LATENCY_US, (long) fifo * period * 8 / 10);
+        }
+        sensorManager.registerListener(this, accelerometer, period, latency, handler);
+        Log.d(TAG, (activeMode ? "active" : "idle") + " sampling: " + period + " us, latency " + latency + " us");
+    }
+
     @Override
     public void onSensorChanged(SensorEvent event) {
-        if (event.sensor.getType() == Sensor.TYPE_ACCELEROMETER) {
-            float x = event.values[0];
-            float y = event.values[1];
-            float z = event.values[2];
-
-            // Calculate total acceleration
-            float acceleration = (float) Math.sqrt(x * x + y * y + z * z);
-
-            // Remove gravity (9.8 m/s²)
-            float netAcceleration = Math.abs(acceleration - SensorManager.GRAVITY_EARTH);
-
-            long currentTime = System.currentTimeMillis();
-
-            // Detect potential fall (sudden high acceleration)
-            if (netAcceleration > FALL_THRESHOLD) {
-                Log.w(TAG, "Potential fall detected! Acceleration: " + netAcceleration);
-                triggerEmergencyMode("Fall detected");
-            }
-
-            // Detect emergency shake (3 quick shakes)
-            if (netAcceleration > SHAKE_THRESHOLD) {
-                if (currentTime - lastShakeTime < SHAKE_TIME_WINDOW) {
-                    shakeCount++;
-                    Log.d(TAG, "Shake detected. Count: " + shakeCount);
-
-                    if (shakeCount >= 3) {
-                        Log.i(TAG, "Emergency shake pattern detected!");
-                        triggerEmergencyMode("Emergency shake");
-                        shakeCount = 0; // Reset
-                    }
-                } else {
-                    shakeCount = 1; // Reset count if too much time passed
-                }
-                lastShakeTime = currentTime;
-            }
+        if (event.sensor.getType() != Sensor.TYPE_ACCELEROMETER) return;
+        if (blockN == blockT.length) {
+            blockT = Arrays.copyOf(blockT, blockN * 2);
+            blockXyz = Arrays.copyOf(blockXyz, blockN * 6);
+        }
+        blockT[blockN] = event.timestamp / 1_000_000L;
+        System.arraycopy(event.values, 0, blockXyz, blockN * 3, 3);
+        blockN++;
+        // A FIFO flush arrives as a burst of callbacks; the posted task runs after the burst
+        if (!blockPosted) {
+            blockPosted = true;
+            handler.post(processBlock);
         }
     }
 
+    private void processBlock() {
+        blockPosted = false;
+        int n = blockN;
+        blockN = 0;
+        if (n == 0) return;
+
+        long t0 = SystemClock.elapsedRealtimeNanos();
+        int result = detector.addBlock(blockT, blockXyz, n);
+        long nanos = SystemClock.elapsedRealtimeNanos() - t0;
+
+        if (result == FallDetector.FALL) {
+            Log.w(TAG, "Fall detected, impact " + detector.lastPeakG() + " g");
+            triggerEmergencyMode("Fall detected");
+        } else if (result == FallDetector.SHAKE) {
+            Log.i(TAG, "Emergency shake pattern detected!");
+            triggerEmergencyMode("Emergency shake");
+        }
+
+        // Adaptive rate: go fast on a coarse trigger, back to batching once calm
+        long last = blockT[n - 1];
+        boolean recentPeak = detector.lastPeakAt() >= 0 && last - detector.lastPeakAt() < ACTIVE_HOLD_MS;
+        if (!active && recentPeak) {
+            register(true);
+        } else if (active && !recentPeak && !detector.isCandidate()) {
+            register(false);
+        }
+
+        recordBatch(n, nanos);
+    }
+
+    private void recordBatch(int samples, long nanos) {
+        batches++;
+        batchSamples += samples;
+        batchNanos += nanos;
+        maxBatchNanos = Math.max(maxBatchNanos, nanos);
+        long now = SystemClock.elapsedRealtime();
+        long span = now - statsSince;
+        if (span < STATS_EVERY_MS) return;
+        long cpu = SystemClock.currentThreadTimeMillis();
+        double cpuPerHour = (cpu - cpuSince) * 3_600_000.0 / span;
+        Log.i(TAG, String.format(Locale.US,
+                "wakeups/h %.0f, samples/batch %.1f, batch %.1f us avg / %.1f us max, "
+                        + "cpu %.0f ms/h (%.3f%%) (%s)",
+                batches * 3_600_000.0 / span, batchSamples / (double) batches,
+                batchNanos / 1000.0 / batches, maxBatchNanos / 1000.0,
+                cpuPerHour, cpuPerHour / 36_000.0, active ? "active" : "idle"));
+        statsSince = now;
+        cpuSince = cpu;
+        batches = 0;
+        batchSamples = 0;
+        batchNanos = 0;
+        maxBatchNanos = 0;
+    }
+
     private void triggerEmergencyMode(String reason) {
+        // Alerts go out first; nothing below waits for them
+        long triggerAt = SystemClock.elapsedRealtime();
+        EmergencyDispatcher.get(this).dispatch(reason, triggerAt);
+
         // Vibrate to confirm detection
         if (vibrator != null) {
             long[] pattern = {0, 200, 100, 200, 100, 200}; // Vibration pattern
@@ -98,8 +251,28 @@ public class FallDetectionService extends Service implements SensorEventListener
         // Launch emergency activity
         Intent emergencyIntent = new Intent(this, EmergencyActivity.class);
         emergencyIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-        emergencyIntent.putExtra("trigger_reason", reason);
-        startActivity(emergencyIntent);
+        emergencyIntent.putExtra(EmergencyActivity.EXTRA_REASON, reason);
+        emergencyIntent.putExtra(EmergencyActivity.EXTRA_TRIGGER_AT, triggerAt);
+        try {
+            startActivity(emergencyIntent);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Direct launch refused", e);
+        }
+        // Background activity starts can be blocked; the full-screen alert opens it regardless
+        PendingIntent pi = PendingIntent.getActivity(this, 1, emergencyIntent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        Notification alert = new NotificationCompat.Builder(this, CHANNEL_ALERT)
+                .setSmallIcon(R.drawable.ic_person)
+                .setContentTitle(reason)
+                .setContentText("Tap to call your emergency contacts")
+                .setPriority(NotificationCompat.PRIORITY_MAX)
+                .setCategory(NotificationCompat.CATEGORY_ALARM)
+                .setFullScreenIntent(pi, true)
+                .setContentIntent(pi)
+                .setAutoCancel(true)
+                .build();
+        NotificationManager nm = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        if (nm != null) nm.notify(NOTIFICATION_ALERT, alert);
 
         Log.i(TAG, "Emergency mode triggered: " + reason);
     }
@@ -112,9 +285,17 @@ public class FallDetectionService extends Service implements SensorEventListener
     @Override
     public void onDestroy() {
         super.onDestroy();
-        if (sensorManager != null) {
+        LocationCache.get(this).stop();
+        if (sensorThread != null) {
+            // On the sensor thread, so a processBlock() in flight can't re-register afterwards
+            handler.post(() -> {
+                sensorManager.unregisterListener(this);
+                sensorThread.quit();
+            });
+        } else if (sensorManager != null) {
             sensorManager.unregisterListener(this);
         }
+        ServiceCompat.stopForeground(this, ServiceCompat.STOP_FOREGROUND_REMOVE);
         Log.i(TAG, "Fall detection service stopped");
     }
 
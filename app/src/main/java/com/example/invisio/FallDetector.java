@@ -0,0 +1,199 @@
+package com.example.invisio;
+
+/**
+ * Fall and emergency-shake recognition over accelerometer samples (m/s², timestamps in ms).
+ *  - Fall: impact above impactG, preceded within impactWindowMs by a free-fall run below
+ *    freeFallG of at least minFreeFallMs, followed (after settleMs) by stillMs of lying
+ *    still. A dropped phone that is picked up again fails the stillness check; a bump or
+ *    a hard sit-down has no free-fall run.
+ *  - Shake: shakeCount separate peaks above SHAKE net acceleration, each within shakeGapMs
+ *    of the previous one. Bounces during a fall's settle time don't count.
+ * Samples go into a primitive ring buffer of squared magnitudes; the per-sample path is a
+ * few multiplies and compares (no sqrt). The buffer is only scanned when an impact arrives
+ * and once when the stillness window closes.
+ * Not thread-safe: feed it from one thread.
+ */
+final class FallDetector {
+
+    static final int NONE = 0, FALL = 1, SHAKE = 2;
+
+    private static final float G = 9.80665f;
+
+    /** Thresholds and windows; the defaults suit a phone in a pocket or hand at 50 Hz and up. */
+    static final class Config {
+        float freeFallG = 0.5f;        // |a| below this (in g) counts as free fall
+        long minFreeFallMs = 100;
+        float impactG = 2.5f;          // |a| above this (in g) is an impact candidate
+        long impactWindowMs = 600;     // free fall must end at most this long before the impact
+        long settleMs = 500;           // bounce / roll after the impact, ignored
+        long stillMs = 1500;           // then this long lying still...
+        float stillStdG = 0.1f;        // ...with |a| standard deviation below this (in g)
+        long cooldownMs = 10000;       // no second fall right after a detected one
+
+        float shakeNet = 20f;          // m/s² above gravity per shake peak
+        int shakeCount = 3;
+        long shakeGapMs = 500;
+
+        int capacity = 1024;           // samples kept; rounded up to a power of two
+    }
+
+    private final Config cfg;
+    private final float freeFall2, impact2, shake2;
+
+    // Ring buffer
+    private final long[] times;
+    private final float[] mag2;
+    private final int mask;
+    private int head;      // next write index
+    private int count;
+
+    // Fall state
+    private long impactAt = -1;      // candidate awaiting the stillness verdict
+    private long lastFallAt = Long.MIN_VALUE / 2;
+    private float peak2;
+    private long lastPeakAt = -1;
+
+    // Shake state
+    private boolean aboveShake;
+    private int shakePeaks;
+    private long lastShakePeak;
+
+    FallDetector() {
+        this(new Config());
+    }
+
+    FallDetector(Config cfg) {
+        this.cfg = cfg;
+        freeFall2 = sq(cfg.freeFallG * G);
+        impact2 = sq(cfg.impactG * G);
+        shake2 = sq(G + cfg.shakeNet);
+        int cap = Integer.highestOneBit(Math.max(16, cfg.capacity - 1)) << 1;
+        times = new long[cap];
+        mag2 = new float[cap];
+        mask = cap - 1;
+    }
+
+    /** Feeds one sample; returns NONE, FALL or SHAKE. */
+    int add(long tMs, float x, float y, float z) {
+        float m2 = x * x + y * y + z * z;
+        if (m2 > impact2) lastPeakAt = tMs;
+        times[head] = tMs;
+        mag2[head] = m2;
+        head = (head + 1) & mask;
+        if (count <= mask) count++;
+
+        // Bounces right after a fall impact are not a shake pattern
+        boolean settling = impactAt >= 0 && tMs - impactAt < cfg.settleMs;
+        if (shake(tMs, m2, !settling)) {
+            impactAt = -1;   // a shaken phone is not lying still
+            return SHAKE;
+        }
+
+        if (impactAt >= 0) {
+            if (m2 > peak2) peak2 = m2;
+            if (tMs - impactAt >= cfg.settleMs + cfg.stillMs) {
+                boolean still = isStill(impactAt + cfg.settleMs, tMs);
+                impactAt = -1;
+                if (still) {
+                    lastFallAt = tMs;
+                    return FALL;
+                }
+            }
+            return NONE;
+        }
+
+        if (m2 > impact2 && tMs - lastFallAt >= cfg.cooldownMs && freeFallBefore(tMs)) {
+            impactAt = tMs;
+            peak2 = m2;
+        }
+        return NONE;
+    }
+
+    /**
+     * Feeds n samples in one pass (a sensor FIFO batch): ts[i] and xyz[3i..3i+2].
+     * Returns the first FALL or SHAKE in the block, or NONE; later samples are still consumed.
+     */
+    int addBlock(long[] ts, float[] xyz, int n) {
+        int result = NONE;
+        for (int i = 0, j = 0; i < n; i++, j += 3) {
+            int e = add(ts[i], xyz[j], xyz[j + 1], xyz[j + 2]);
+            if (result == NONE) result = e;
+        }
+        return result;
+    }
+
+    /** Time of the last impact-level peak (the coarse trigger), or -1. */
+    long lastPeakAt() {
+        return lastPeakAt;
+    }
+
+    /** Peak |a| of the last fall candidate, in g. */
+    float lastPeakG() {
+        return (float) Math.sqrt(peak2) / G;
+    }
+
+    /** True while an impact is waiting for its stillness window (a coarse trigger fired). */
+    boolean isCandidate() {
+        return impactAt >= 0;
+    }
+
+    // Rising edges only, so a peak spanning several samples at high rates counts once
+    private boolean shake(long tMs, float m2, boolean counting) {
+        boolean above = m2 > shake2;
+        boolean edge = above && !aboveShake;
+        aboveShake = above;
+        if (!edge || !counting) return false;
+        shakePeaks = tMs - lastShakePeak < cfg.shakeGapMs ? shakePeaks + 1 : 1;
+        lastShakePeak = tMs;
+        if (shakePeaks < cfg.shakeCount) return false;
+        shakePeaks = 0;
+        return true;
+    }
+
+    // Walks back from the impact (newest sample) looking for a low-g run of minFreeFallMs that
+    // ended within impactWindowMs. A run lasts from its first sample to the sample that ended it.
+    private boolean freeFallBefore(long impactT) {
+        long runEnd = -1;
+        long after = impactT;
+        for (int i = 1; i < count; i++) {
+            int k = (head - 1 - i) & mask;
+            long t = times[k];
+            if (impactT - t > cfg.impactWindowMs + cfg.minFreeFallMs) break;
+            if (mag2[k] < freeFall2) {
+                if (runEnd < 0) {
+                    if (impactT - after > cfg.impactWindowMs) break;
+                    runEnd = after;
+                }
+                if (runEnd - t >= cfg.minFreeFallMs) return true;
+            } else {
+                runEnd = -1;
+            }
+            after = t;
+        }
+        return false;
+    }
+
+    // Standard deviation of |a| over samples in [from, to]; sqrt is taken only here
+    private boolean isStill(long from, long to) {
+        int n = 0;
+        double sum = 0, sum2 = 0;
+        for (int i = 0; i < count; i++) {
+            int k = (head - 1 - i) & mask;
+            long t = times[k];
+            if (t < from) break;
+            if (t > to) continue;
+            double m = Math.sqrt(mag2[k]);
+            sum += m;
+            sum2 += m * m;
+            n++;
+        }
+        if (n < 3) return false;   // too few samples to call it still
+        double mean = sum / n;
+        double std = Math.sqrt(Math.max(0.0, sum2 / n - mean * mean));
+        return std < cfg.stillStdG * G;
+    }
+
+    private static float sq(float v) {
+        return v * v;
+    }
+}
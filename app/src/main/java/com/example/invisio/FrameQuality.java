@@ -0,0 +1,123 @@
+package com.example.invisio;
+
+/**
+ * Immutable quality report for one downscaled luma frame, computed in a single pass
+ * (optionally split into row stripes on a ComputePool, with per-stripe partial sums):
+ *  - laplacianVar: sharpness (variance of the 4-neighbour Laplacian, interior pixels)
+ *  - motion:       mean abs diff vs previous frame (every 4th pixel), 0 without one
+ *  - edgeDensity:  share of odd-grid pixels with a right/down step > 20
+ *  - brightness:   mean luma 0..255
+ *  - glare:        share of pixels at or above GLARE_LEVEL (blown-out highlights)
+ */
+final class FrameQuality {
+
+    static final int GLARE_LEVEL = 250;
+    private static final int EDGE_STEP = 20;
+
+    final double laplacianVar;
+    final double motion;
+    final double edgeDensity;
+    final double brightness;
+    final double glare;
+
+    private FrameQuality(double laplacianVar, double motion, double edgeDensity, double brightness, double glare) {
+        this.laplacianVar = laplacianVar;
+        this.motion = motion;
+        this.edgeDensity = edgeDensity;
+        this.brightness = brightness;
+        this.glare = glare;
+    }
+
+    // Partial sums per stripe of rows (merged by ComputePool.reduce)
+    private static final int LAP_SUM = 0, LAP_SUM2 = 1, LAP_COUNT = 2, MOTION = 3,
+            EDGES = 4, EDGE_TOTAL = 5, LUMA = 6, GLARE = 7, SLOTS = 8;
+    private static final int MIN_ROWS = 24;   // per stripe
+
+    /** prev may be null (or a different size), in which case motion is 0. */
+    static FrameQuality analyze(byte[] y, byte[] prev, int w, int h) {
+        long[] acc = new long[SLOTS];
+        rows(y, prev, w, h, 0, h, acc);
+        return finish(acc, y, prev, w, h);
+    }
+
+    /** Same result as analyze(y, prev, w, h), with row stripes spread over pool. */
+    static FrameQuality analyze(byte[] y, byte[] prev, int w, int h, ComputePool pool) {
+        long[] acc = pool.reduce(h, MIN_ROWS, new ComputePool.Reducer<long[]>() {
+            @Override public long[] create() { return new long[SLOTS]; }
+
+            @Override public void accumulate(long[] a, int from, int to) { rows(y, prev, w, h, from, to, a); }
+
+            @Override public void merge(long[] into, long[] from) {
+                for (int i = 0; i < SLOTS; i++) into[i] += from[i];
+            }
+        });
+        return finish(acc, y, prev, w, h);
+    }
+
+    private static void rows(byte[] y, byte[] prev, int w, int h, int j0, int j1, long[] acc) {
+        boolean hasPrev = prev != null && prev.length == y.length;
+
+        long lapSum = 0, lapSum2 = 0;
+        int lapCount = 0;
+        long motionAcc = 0;
+        int edges = 0, edgeTotal = 0;
+        long lumaSum = 0;
+        int glareCount = 0;
+
+        for (int j = j0; j < j1; j++) {
+            int row = j * w;
+            boolean interiorRow = j > 0 && j < h - 1;
+            boolean edgeRow = interiorRow && (j & 1) == 1;
+
+            for (int i = 0; i < w; i++) {
+                int idx = row + i;
+                int c = y[idx] & 0xFF;
+
+                lumaSum += c;
+                if (c >= GLARE_LEVEL) glareCount++;
+                if (hasPrev && (idx & 3) == 0) motionAcc += Math.abs(c - (prev[idx] & 0xFF));
+
+                if (!interiorRow || i == 0 || i == w - 1) continue;
+
+                int l = y[idx - 1] & 0xFF;
+                int r = y[idx + 1] & 0xFF;
+                int u = y[idx - w] & 0xFF;
+                int d = y[idx + w] & 0xFF;
+                int lap = 4 * c - l - r - u - d;
+                lapSum += lap;
+                lapSum2 += (long) lap * lap;
+                lapCount++;
+
+                if (edgeRow && (i & 1) == 1) {
+                    if (Math.abs(c - r) > EDGE_STEP || Math.abs(c - d) > EDGE_STEP) edges++;
+                    edgeTotal++;
+                }
+            }
+        }
+
+        acc[LAP_SUM] += lapSum;
+        acc[LAP_SUM2] += lapSum2;
+        acc[LAP_COUNT] += lapCount;
+        acc[MOTION] += motionAcc;
+        acc[EDGES] += edges;
+        acc[EDGE_TOTAL] += edgeTotal;
+        acc[LUMA] += lumaSum;
+        acc[GLARE] += glareCount;
+    }
+
+    private static FrameQuality finish(long[] acc, byte[] y, byte[] prev, int w, int h) {
+        int n = w * h;
+        boolean hasPrev = prev != null && prev.length == y.length;
+        double lapVar = 0;
+        if (acc[LAP_COUNT] > 0) {
+            double mean = acc[LAP_SUM] / (double) acc[LAP_COUNT];
+            lapVar = (acc[LAP_SUM2] / (double) acc[LAP_COUNT]) - mean * mean;
+        }
+        double motion = (hasPrev && n >= 4) ? acc[MOTION] / (double) (n / 4) : 0;
+        double edgeDensity = acc[EDGE_TOTAL] == 0 ? 0 : acc[EDGES] / (double) acc[EDGE_TOTAL];
+        double brightness = n == 0 ? 0 : acc[LUMA] / (double) n;
+        double glare = n == 0 ? 0 : acc[GLARE] / (double) n;
+
+        return new FrameQuality(lapVar, motion, edgeDensity, brightness, glare);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.invisio;
+
+/**
+ * Bilinear letterbox resize straight into a normalized [inH][inW][3] float tensor.
+ *  - Source is ARGB int[] (Bitmap.getPixels) or RGBA byte[] (copyPixelsToBuffer).
+ *  - Rows are split into stripes on a ComputePool; each row is written by one worker.
+ *  - 8-bit fixed-point weights, so the output is bit-identical to resizeReference().
+ */
+class LetterboxResizer {
+
+    static final int PAD = 114;          // YOLO letterbox gray
+    private static final int FRAC = 8;   // weight bits
+    private static final int ONE = 1 << FRAC;
+
+    private static final int MIN_ROWS = 16;   // per stripe
+
+    private final int inW, inH;
+    private final ComputePool pool;
+    private final boolean ownsPool;
+
+    // Per-call column tables (x -> source column pair + weight)
+    private final int[] colX0, colX1, colW;
+
+    /** Uses the shared ComputePool. */
+    LetterboxResizer(int inW, int inH, ComputePool pool) {
+        this(inW, inH, pool, false);
+    }
+
+    /** Dedicated pool with the given thread count, shut down by close(). */
+    LetterboxResizer(int inW, int inH, int workers) {
+        this(inW, inH, new ComputePool(workers), true);
+    }
+
+    private LetterboxResizer(int inW, int inH, ComputePool pool, boolean ownsPool) {
+        this.inW = inW;
+        this.inH = inH;
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.colX0 = new int[inW];
+        this.colX1 = new int[inW];
+        this.colW = new int[inW];
+    }
+
+    /** Resize ARGB pixels (row length = srcW) into dst. scale/dx/dy as computed by the detector. */
+    void resize(int[] argb, int srcW, int srcH, float scale, float dx, float dy, float[][][] dst) {
+        run(argb, null, srcW, srcH, 0, scale, dx, dy, dst);
+    }
+
+    /** Resize RGBA bytes (4 bytes per pixel, rowStride bytes per row) into dst. */
+    void resize(byte[] rgba, int srcW, int srcH, int rowStride, float scale, float dx, float dy, float[][][] dst) {
+        run(null, rgba, srcW, srcH, rowStride, scale, dx, dy, dst);
+    }
+
+    void close() {
+        if (ownsPool) pool.shutdown();
+    }
+
+    private void run(int[] argb, byte[] rgba, int srcW, int srcH, int rowStride,
+                     float scale, float dx, float dy, float[][][] dst) {
+        int newW = Math.round(srcW * scale);
+        int newH = Math.round(srcH * scale);
+        int left = (int) (dx + 0.5f), right = Math.min(inW, left + newW);
+        int top  = (int) (dy + 0.5f), bottom = Math.min(inH, top + newH);
+
+        for (int x = 0; x < inW; x++) {
+            float fx = srcCoord(x, dx, scale, srcW);
+            int x0 = (int) fx;
+            colX0[x] = x0;
+            colX1[x] = Math.min(x0 + 1, srcW - 1);
+            colW[x] = weight(fx - x0);
+        }
+
+        pool.forStripes(inH, MIN_ROWS, (y0, y1) ->
+                rows(argb, rgba, srcW, srcH, rowStride, scale, dy, left, right, top, bottom, dst, y0, y1));
+    }
+
+    private void rows(int[] argb, byte[] rgba, int srcW, int srcH, int rowStride,
+                      float scale, float dy, int left, int right, int top, int bottom,
+                      float[][][] dst, int yStart, int yEnd) {
+        final float pad = PixelConvert.NORM[PAD];
+        final float[] norm = PixelConvert.NORM;
+        for (int y = yStart; y < yEnd; y++) {
+            float[][] row = dst[y];
+            if (y < top || y >= bottom) {
+                for (int x = 0; x < inW; x++) {
+                    float[] px = row[x];
+                    px[0] = pad; px[1] = pad; px[2] = pad;
+                }
+                continue;
+            }
+
+            float fy = srcCoord(y, dy, scale, srcH);
+            int y0 = (int) fy;
+            int y1 = Math.min(y0 + 1, srcH - 1);
+            int wy = weight(fy - y0);
+
+            for (int x = 0; x < inW; x++) {
+                float[] px = row[x];
+                if (x < left || x >= right) {
+                    px[0] = pad; px[1] = pad; px[2] = pad;
+                    continue;
+                }
+                int x0 = colX0[x], x1 = colX1[x], wx = colW[x];
+                if (argb != null) {
+                    int p00 = argb[y0 * srcW + x0], p01 = argb[y0 * srcW + x1];
+                    int p10 = argb[y1 * srcW + x0], p11 = argb[y1 * srcW + x1];
+                    px[0] = norm[lerp2((p00 >> 16) & 0xFF, (p01 >> 16) & 0xFF, (p10 >> 16) & 0xFF, (p11 >> 16) & 0xFF, wx, wy)];
+                    px[1] = norm[lerp2((p00 >> 8) & 0xFF, (p01 >> 8) & 0xFF, (p10 >> 8) & 0xFF, (p11 >> 8) & 0xFF, wx, wy)];
+                    px[2] = norm[lerp2(p00 & 0xFF, p01 & 0xFF, p10 & 0xFF, p11 & 0xFF, wx, wy)];
+                } else {
+                    int o00 = y0 * rowStride + x0 * 4, o01 = y0 * rowStride + x1 * 4;
+                    int o10 = y1 * rowStride + x0 * 4, o11 = y1 * rowStride + x1 * 4;
+                    for (int c = 0; c < 3; c++) {
+                        px[c] = norm[lerp2(rgba[o00 + c] & 0xFF, rgba[o01 + c] & 0xFF,
+                                rgba[o10 + c] & 0xFF, rgba[o11 + c] & 0xFF, wx, wy)];
+                    }
+                }
+            }
+        }
+    }
+
+    // Pixel-center mapping from model space back to source space, clamped to the image.
+    private static float srcCoord(int d, float offset, float scale, int srcLen) {
+        float f = (d + 0.5f - offset) / scale - 0.5f;
+        if (f < 0f) return 0f;
+        if (f > srcLen - 1) return srcLen - 1;
+        return f;
+    }
+
+    private static int weight(float frac) {
+        return Math.min(ONE, (int) (frac * ONE + 0.5f));
+    }
+
+    private static int lerp2(int p00, int p01, int p10, int p11, int wx, int wy) {
+        int top = p00 * (ONE - wx) + p01 * wx;
+        int bot = p10 * (ONE - wx) + p11 * wx;
+        return (top * (ONE - wy) + bot * wy + (1 << (2 * FRAC - 1))) >> (2 * FRAC);
+    }
+
+    /** Straightforward single-threaded version of resize(int[]); the fast path must match it bit for bit. */
+    static void resizeReference(int[] argb, int srcW, int srcH, int inW, int inH,
+                                float scale, float dx, float dy, float[][][] dst) {
+        int newW = Math.round(srcW * scale);
+        int newH = Math.round(srcH * scale);
+        int left = (int) (dx + 0.5f), top = (int) (dy + 0.5f);
+        for (int y = 0; y < inH; y++) {
+            for (int x = 0; x < inW; x++) {
+                if (x < left || x >= left + newW || y < top || y >= top + newH) {
+                    for (int c = 0; c < 3; c++) dst[y][x][c] = PAD / 255f;
+                    continue;
+                }
+                float fx = srcCoord(x, dx, scale, srcW);
+                float fy = srcCoord(y, dy, scale, srcH);
+                int x0 = (int) fx, y0 = (int) fy;
+                int x1 = Math.min(x0 + 1, srcW - 1), y1 = Math.min(y0 + 1, srcH - 1);
+                int wx = weight(fx - x0), wy = weight(fy - y0);
+                for (int c = 0; c < 3; c++) {
+                    int shift = 16 - 8 * c;
+                    int v = lerp2((argb[y0 * srcW + x0] >> shift) & 0xFF, (argb[y0 * srcW + x1] >> shift) & 0xFF,
+                            (argb[y1 * srcW + x0] >> shift) & 0xFF, (argb[y1 * srcW + x1] >> shift) & 0xFF, wx, wy);
+                    dst[y][x][c] = v / 255f;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.invisio;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.location.LocationListener;
+import android.location.LocationManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+import androidx.core.location.LocationManagerCompat;
+import androidx.core.os.CancellationSignal;
+
+/**
+ * Last known position for emergency alerts, kept warm at almost no power cost while the
+ * safety monitor runs:
+ *  - seeded from getLastKnownLocation of every provider;
+ *  - a PASSIVE listener picks up fixes other apps already paid for;
+ *  - if nothing fresher than REFRESH_MS arrived, one network (cell / Wi-Fi) fix is requested.
+ * Never used to wait for a fix: dispatch just reads last().
+ */
+final class LocationCache {
+
+    private static final String TAG = "LocationCache";
+    private static final long REFRESH_MS = 15 * 60 * 1000;
+    private static final long PASSIVE_MIN_TIME_MS = 60 * 1000;
+    private static final float PASSIVE_MIN_DISTANCE_M = 25f;
+
+    private static LocationCache instance;
+
+    static synchronized LocationCache get(Context context) {
+        if (instance == null) instance = new LocationCache(context.getApplicationContext());
+        return instance;
+    }
+
+    private final Context appContext;
+    private final LocationManager lm;
+    private volatile LocationFix last;
+    private Looper looper;
+    private Handler handler;
+    private CancellationSignal pending;
+    private final LocationListener passive = this::offer;
+    private final Runnable refresh = this::refresh;
+
+    private LocationCache(Context appContext) {
+        this.appContext = appContext;
+        this.lm = (LocationManager) appContext.getSystemService(Context.LOCATION_SERVICE);
+    }
+
+    /** Best fix so far, or null. Never blocks. */
+    LocationFix last() {
+        return last;
+    }
+
+    /** Starts passive tracking with callbacks on the given looper (the monitor's sensor thread). */
+    synchronized void start(Looper looper) {
+        this.looper = looper;
+        begin();
+    }
+
+    /** Location permission was just granted: start if the monitor asked for it earlier. */
+    synchronized void onPermissionGranted() {
+        if (looper != null) begin();
+    }
+
+    synchronized void stop() {
+        looper = null;
+        if (handler == null) return;
+        handler.removeCallbacks(refresh);
+        if (pending != null) pending.cancel();
+        pending = null;
+        lm.removeUpdates(passive);
+        handler = null;
+    }
+
+    private void begin() {
+        if (handler != null || lm == null || !permitted()) return;
+        handler = new Handler(looper);
+        try {
+            for (String p : lm.getProviders(true)) {
+                Location l = lm.getLastKnownLocation(p);
+                if (l != null) offer(l);
+            }
+            if (lm.getAllProviders().contains(LocationManager.PASSIVE_PROVIDER)) {
+                lm.requestLocationUpdates(LocationManager.PASSIVE_PROVIDER, PASSIVE_MIN_TIME_MS,
+                        PASSIVE_MIN_DISTANCE_M, passive, looper);
+            }
+        } catch (SecurityException e) {
+            Log.w(TAG, "location permission revoked", e);
+        }
+        handler.post(refresh);
+    }
+
+    // Monitor thread: one network fix if the cache has gone stale, then check again later
+    private void refresh() {
+        Handler h;
+        CancellationSignal signal;
+        synchronized (this) {
+            h = handler;
+            if (h == null) return;
+            h.postDelayed(refresh, REFRESH_MS);
+            LocationFix f = last;
+            if (f != null && SystemClock.elapsedRealtime() - f.fixedAt < REFRESH_MS) return;
+            if (!permitted() || !lm.isProviderEnabled(LocationManager.NETWORK_PROVIDER)) return;
+            if (pending != null) pending.cancel();
+            pending = signal = new CancellationSignal();
+        }
+        try {
+            // The local signal: stop() may clear pending meanwhile, and cancels this one if so
+            LocationManagerCompat.getCurrentLocation(lm, LocationManager.NETWORK_PROVIDER, signal,
+                    h::post, l -> {
+                        if (l != null) offer(l);
+                    });
+        } catch (SecurityException e) {
+            Log.w(TAG, "location permission revoked", e);
+        }
+    }
+
+    // Caller thread (begin) or monitor looper: the compare and replace of last must be atomic
+    private synchronized void offer(Location l) {
+        long fixedAt = l.getElapsedRealtimeNanos() / 1_000_000L;
+        LocationFix f = new LocationFix(l.getLatitude(), l.getLongitude(),
+                l.hasAccuracy() ? l.getAccuracy() : 1000f, fixedAt, l.getProvider());
+        if (f.isBetterThan(last)) {
+            last = f;
+            Log.d(TAG, "fix from " + f.provider + ", +/-" + Math.round(f.accuracyM) + " m");
+        }
+    }
+
+    /** Fine or coarse location granted. */
+    boolean permitted() {
+        return ContextCompat.checkSelfPermission(appContext, Manifest.permission.ACCESS_FINE_LOCATION)
+                == PackageManager.PERMISSION_GRANTED
+                || ContextCompat.checkSelfPermission(appContext, Manifest.permission.ACCESS_COARSE_LOCATION)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+}
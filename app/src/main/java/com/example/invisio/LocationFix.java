@@ -0,0 +1,50 @@
+package com.example.invisio;
+
+import java.util.Locale;
+
+/** A cached position for emergency alerts; fixedAt is on the elapsedRealtime clock. */
+final class LocationFix {
+
+    private static final long SIGNIFICANTLY_NEWER_MS = 2 * 60 * 1000;
+
+    final double lat, lon;
+    final float accuracyM;
+    final long fixedAt;
+    final String provider;
+
+    LocationFix(double lat, double lon, float accuracyM, long fixedAt, String provider) {
+        this.lat = lat;
+        this.lon = lon;
+        this.accuracyM = accuracyM;
+        this.fixedAt = fixedAt;
+        this.provider = provider;
+    }
+
+    /** Newer by a couple of minutes wins; otherwise the more accurate fix wins. */
+    boolean isBetterThan(LocationFix other) {
+        if (other == null) return true;
+        long dt = fixedAt - other.fixedAt;
+        if (dt > SIGNIFICANTLY_NEWER_MS) return true;
+        if (dt < -SIGNIFICANTLY_NEWER_MS) return false;
+        return accuracyM <= other.accuracyM;
+    }
+
+    String mapsLink() {
+        return String.format(Locale.US, "https://maps.google.com/?q=%.6f,%.6f", lat, lon);
+    }
+
+    /** Line for the alert SMS, e.g. "Last known location (4 min ago, within 30 m): https://...". */
+    String alertLine(long now) {
+        return "Last known location (" + age(now - fixedAt) + ", within "
+                + Math.max(1, Math.round(accuracyM)) + " m): " + mapsLink();
+    }
+
+    static String age(long ms) {
+        long min = Math.max(0, ms) / 60_000;
+        if (min < 1) return "just now";
+        if (min < 60) return min + " min ago";
+        long h = min / 60;
+        if (h < 48) return h + (h == 1 ? " hour ago" : " hours ago");
+        return (h / 24) + " days ago";
+    }
+}
@@ -16,7 +16,7 @@ public class LoginActivity extends AppCompatActivity {
     private EditText etEmail, etPassword;
     private Button btnLogin;
     private TextView tvCreateAccount, tvForgotPassword;
-    private DatabaseHelper dbHelper;
+    private UserRepository users;
     private SessionManager sessionManager;
 
     @Override
@@ -32,11 +32,8 @@ public class LoginActivity extends AppCompatActivity {
         initViews();
         initListeners();
 
-        dbHelper = new DatabaseHelper(this);
-        sessionManager = new SessionManager(this);
-
-        // Debug: Print all users in database
-        dbHelper.debugPrintAllUsers();
+        users = UserRepository.get(this);
+        sessionManager = SessionManager.get(this);
     }
 
     private void initViews() {
@@ -95,33 +92,31 @@ public class LoginActivity extends AppCompatActivity {
             return;
         }
 
-        // Check if user exists first
-        if (!dbHelper.userExists(email)) {
-            Toast.makeText(this, "No account found with this email", Toast.LENGTH_SHORT).show();
-            Log.d("LoginActivity", "User does not exist with email: " + email);
-            return;
-        }
-
-        Log.d("LoginActivity", "User exists, attempting login...");
-
-        if (dbHelper.loginUser(email, password)) {
-            User user = dbHelper.getUserDetails(email);
-            if (user != null) {
-                sessionManager.createLoginSession(user.getEmail(), user.getFullName());
-                Toast.makeText(this, "Login successful!", Toast.LENGTH_SHORT).show();
-                Log.d("LoginActivity", "Login successful for user: " + user.getFullName());
-
-                Intent intent = new Intent(LoginActivity.this, MainActivity.class);
-                intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-                startActivity(intent);
-                finish();
-            } else {
-                Toast.makeText(this, "Error retrieving user details", Toast.LENGTH_SHORT).show();
-                Log.e("LoginActivity", "Failed to retrieve user details after successful login");
+        // Lookup and password check on the repository's I/O thread
+        btnLogin.setEnabled(false);
+        users.login(email, password, (result, user) -> {
+            if (isFinishing() || isDestroyed()) return;
+            btnLogin.setEnabled(true);
+            switch (result) {
+                case NO_ACCOUNT:
+                    Toast.makeText(this, "No account found with this email", Toast.LENGTH_SHORT).show();
+                    Log.d("LoginActivity", "User does not exist with email: " + email);
+                    break;
+                case WRONG_PASSWORD:
+                    Toast.makeText(this, "Invalid email or password", Toast.LENGTH_SHORT).show();
+                    Log.d("LoginActivity", "Login failed - Invalid credentials");
+                    break;
+                case OK:
+                    sessionManager.createLoginSession(user.getId(), user.getEmail(), user.getFullName());
+                    Toast.makeText(this, "Login successful!", Toast.LENGTH_SHORT).show();
+                    Log.d("LoginActivity", "Login successful for user: " + user.getFullName());
+
+                    Intent intent = new Intent(LoginActivity.this, MainActivity.class);
+                    intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+                    startActivity(intent);
+                    finish();
+                    break;
             }
-        } else {
-            Toast.makeText(this, "Invalid email or password", Toast.LENGTH_SHORT).show();
-            Log.d("LoginActivity", "Login failed - Invalid credentials");
-        }
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.example.invisio;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Allocation-free luma downscaler for analysis frames.
+ *  - Reads the Y plane straight from its ByteBuffer, honouring row and pixel stride.
+ *  - Area-averages (box filter) each output pixel; no per-pixel division. A rounded
+ *    2^24 / area reciprocal keeps every result within one level of the exact mean,
+ *    without the downward bias a truncated 65536 / area had for large boxes.
+ *  - Two preallocated buffers used as a ring: after update(), current() is this frame
+ *    and previous() the one before (same size), so motion needs no retained objects.
+ * Buffers are only reallocated when the output size changes.
+ */
+class LumaDownsampler {
+
+    private static final int SHIFT = 24;
+
+    private final int targetW;
+
+    private int srcW, srcH;
+    private int w, h;
+    private final byte[][] ring = new byte[2][];
+    private int cur = 0;
+    private boolean hasPrev = false;
+
+    // Per-size tables / scratch
+    private int[] colStart;   // tw + 1 source column boundaries
+    private int[] rowStart;   // th + 1 source row boundaries
+    private int[] colRecip;   // per output column: 2^SHIFT / (colWidth * rowHeight) for the current row band, rounded
+    private int[] acc;        // per output column sums for the current row band
+    private byte[] rowBuf = new byte[0];
+
+    LumaDownsampler(int targetW) {
+        this.targetW = targetW;
+    }
+
+    int width() { return w; }
+    int height() { return h; }
+    byte[] current() { return ring[cur]; }
+    /** Previous frame at the same size, or null after a size change. */
+    byte[] previous() { return hasPrev ? ring[cur ^ 1] : null; }
+
+    void update(ByteBuffer plane, int rowStride, int pixelStride, int iw, int ih) {
+        if (iw != srcW || ih != srcH) resize(iw, ih);
+        else {
+            cur ^= 1;
+            hasPrev = true;
+        }
+
+        byte[] out = ring[cur];
+        int rowLen = (iw - 1) * pixelStride + 1;
+        if (rowBuf.length < rowLen) rowBuf = new byte[rowLen];
+
+        for (int oy = 0; oy < h; oy++) {
+            int y0 = rowStart[oy], y1 = rowStart[oy + 1];
+            int bandH = y1 - y0;
+            for (int ox = 0; ox < w; ox++) {
+                acc[ox] = 0;
+                int area = (colStart[ox + 1] - colStart[ox]) * bandH;
+                colRecip[ox] = ((1 << SHIFT) + area / 2) / area;
+            }
+
+            for (int sy = y0; sy < y1; sy++) {
+                plane.position(sy * rowStride);
+                plane.get(rowBuf, 0, rowLen);
+                int sx = 0;
+                for (int ox = 0; ox < w; ox++) {
+                    int end = colStart[ox + 1];
+                    int sum = 0;
+                    for (; sx < end; sx++) sum += rowBuf[sx * pixelStride] & 0xFF;
+                    acc[ox] += sum;
+                }
+            }
+
+            int base = oy * w;
+            for (int ox = 0; ox < w; ox++) {
+                out[base + ox] = (byte) Math.min(255, (acc[ox] * (long) colRecip[ox] + (1 << (SHIFT - 1))) >> SHIFT);
+            }
+        }
+        plane.rewind();
+    }
+
+    private void resize(int iw, int ih) {
+        srcW = iw;
+        srcH = ih;
+        w = Math.min(targetW, iw);
+        h = Math.max(1, (int) (ih * (w / (float) iw)));
+
+        colStart = new int[w + 1];
+        for (int i = 0; i <= w; i++) colStart[i] = (int) ((long) i * iw / w);
+        rowStart = new int[h + 1];
+        for (int i = 0; i <= h; i++) rowStart[i] = (int) ((long) i * ih / h);
+
+        colRecip = new int[w];
+        acc = new int[w];
+        ring[0] = new byte[w * h];
+        ring[1] = new byte[w * h];
+        cur = 0;
+        hasPrev = false;
+    }
+}
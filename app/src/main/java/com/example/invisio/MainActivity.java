@@ -3,10 +3,10 @@ package com.example.invisio;
 import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
+import android.os.Build;
 import android.os.Bundle;
 import android.speech.RecognizerIntent;
 import android.speech.SpeechRecognizer;
-import android.speech.tts.TextToSpeech;
 import android.util.Log;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
@@ -25,7 +25,7 @@ import java.util.Locale;
 /**
  * Main Activity with Emergency Features Integration
  */
-public class MainActivity extends AppCompatActivity implements TextToSpeech.OnInitListener {
+public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "InVisio-Main";
     private static final int PERMISSION_REQUEST_CODE = 100;
@@ -42,7 +42,7 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
     private LinearLayout voiceControlStatus;
     private TextView voiceStatusText;
 
-    private TextToSpeech tts;
+    private SpeechManager speech;
     private SpeechRecognizer speechRecognizer;
     private boolean ttsReady = false;
     private boolean isListening = false;
@@ -78,7 +78,7 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        sessionManager = new SessionManager(this);
+        sessionManager = SessionManager.get(this);
 
         if (!sessionManager.isLoggedIn()) {
             startActivity(new Intent(this, LoginActivity.class));
@@ -95,11 +95,18 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
     }
 
     private void requestPermissions() {
-        String[] permissions = {
-                Manifest.permission.RECORD_AUDIO,
-                Manifest.permission.CALL_PHONE,
-                Manifest.permission.SEND_SMS
-        };
+        ArrayList<String> wanted = new ArrayList<>();
+        wanted.add(Manifest.permission.RECORD_AUDIO);
+        wanted.add(Manifest.permission.CALL_PHONE);
+        wanted.add(Manifest.permission.SEND_SMS);
+        // Last known location in the emergency SMS
+        wanted.add(Manifest.permission.ACCESS_FINE_LOCATION);
+        wanted.add(Manifest.permission.ACCESS_COARSE_LOCATION);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            // Safety monitor and emergency alert notifications
+            wanted.add(Manifest.permission.POST_NOTIFICATIONS);
+        }
+        String[] permissions = wanted.toArray(new String[0]);
 
         boolean allGranted = true;
         for (String permission : permissions) {
@@ -121,13 +128,20 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
         if (requestCode == PERMISSION_REQUEST_CODE) {
             boolean audioGranted = false;
+            boolean locationGranted = false;
             for (int i = 0; i < permissions.length; i++) {
-                if (permissions[i].equals(Manifest.permission.RECORD_AUDIO) &&
-                        grantResults[i] == PackageManager.PERMISSION_GRANTED) {
+                if (grantResults[i] != PackageManager.PERMISSION_GRANTED) continue;
+                if (permissions[i].equals(Manifest.permission.RECORD_AUDIO)) {
                     audioGranted = true;
-                    break;
+                } else if (permissions[i].equals(Manifest.permission.ACCESS_FINE_LOCATION)
+                        || permissions[i].equals(Manifest.permission.ACCESS_COARSE_LOCATION)) {
+                    locationGranted = true;
                 }
             }
+            if (locationGranted) {
+                // Re-promote the monitor with the location type; it then starts the cache
+                startFallDetectionService();
+            }
 
             if (audioGranted) {
                 initializeVoiceControl();
@@ -156,7 +170,7 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
 
         // NEW: Emergency button - Large, red, prominent
         btnEmergency.setOnClickListener(v -> {
-            speak("Opening emergency contacts");
+            speakEmergency("Opening emergency contacts");
             launchFeature(Feature.EMERGENCY);
         });
 
@@ -178,7 +192,7 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
         btnLogout.setOnClickListener(v -> {
             speak("Logging out");
             stopFallDetectionService(); // Stop fall detection on logout
-            sessionManager.logoutUser();
+            sessionManager.logoutUser(); // profile and repository drop the user's data on the change
             startActivity(new Intent(MainActivity.this, LoginActivity.class));
             finish();
         });
@@ -186,7 +200,7 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
 
     private void startFallDetectionService() {
         Intent serviceIntent = new Intent(this, FallDetectionService.class);
-        startService(serviceIntent);
+        ContextCompat.startForegroundService(this, serviceIntent);
         Log.i(TAG, "Fall detection service started");
     }
 
@@ -231,7 +245,7 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
 
             if (downHeld && upHeld) {
                 // Both volume buttons held for 3 seconds
-                speak("Emergency mode activated");
+                speakEmergency("Emergency mode activated");
                 launchFeature(Feature.EMERGENCY);
                 volumeDownPressTime = 0;
                 volumeUpPressTime = 0;
@@ -240,7 +254,8 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
     }
 
     private void initializeVoiceControl() {
-        tts = new TextToSpeech(this, this);
+        speech = SpeechManager.get(this);
+        speech.whenReady(this::onSpeechReady);
 
         if (SpeechRecognizer.isRecognitionAvailable(this)) {
             speechRecognizer = SpeechRecognizer.createSpeechRecognizer(this);
@@ -251,12 +266,8 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
         }
     }
 
-    @Override
-    public void onInit(int status) {
-        if (status == TextToSpeech.SUCCESS) {
-            tts.setLanguage(Locale.US);
-            tts.setSpeechRate(0.9f);
-            tts.setPitch(1.0f);
+    private void onSpeechReady(boolean success) {
+        if (success) {
             ttsReady = true;
             Log.i(TAG, "TTS Ready");
 
@@ -341,6 +352,19 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
         if (bestMatch.contains("emergency") || bestMatch.contains("help") ||
                 bestMatch.contains("sos") || bestMatch.contains("urgent")) {
             selectedFeature = Feature.EMERGENCY;
+        } else if (DocumentQuery.isDocumentRequest(bestMatch)) {
+            // "read my last letter", "find electricity bill": read a saved scan
+            updateVoiceStatus("Searching saved documents");
+            startActivity(new Intent(MainActivity.this, DocReaderActivity.class)
+                    .putExtra(DocReaderActivity.EXTRA_QUERY, bestMatch));
+            return;
+        } else if (bestMatch.contains("book")) {
+            // Read Mate in continuous multi-page mode
+            updateVoiceStatus("Selected: Book mode");
+            speak("Opening book mode");
+            postDelayed(() -> startActivity(new Intent(MainActivity.this, DocReaderActivity.class)
+                    .putExtra(DocReaderActivity.EXTRA_CONTINUOUS, true)), 800);
+            return;
         } else {
             // Check other features
             for (Feature f : Feature.values()) {
@@ -384,10 +408,14 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
 
     private void speak(String text) {
         if (ttsReady && text != null && !text.isEmpty()) {
-            tts.speak(text, TextToSpeech.QUEUE_FLUSH, null, "TTS_" + System.currentTimeMillis());
+            speech.sayNow(this, text, SpeechManager.Priority.HIGH);
         }
     }
 
+    private void speakEmergency(String text) {
+        SpeechManager.get(this).sayNow(this, text, SpeechManager.Priority.EMERGENCY);
+    }
+
     private void postDelayed(Runnable r, long delayMs) {
         new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(r, delayMs);
     }
@@ -412,13 +440,10 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        stopFallDetectionService();
+        // Fall detection keeps running in its foreground service; only logout stops it
         if (speechRecognizer != null) {
             speechRecognizer.destroy();
         }
-        if (tts != null) {
-            tts.stop();
-            tts.shutdown();
-        }
+        if (speech != null) speech.cancel(this);
     }
 }
\ No newline at end of file
@@ -27,9 +27,9 @@ public class ManageEmergencyContactsActivity extends AppCompatActivity {
     private EditText etContactName, etContactPhone;
     private Spinner spinnerRelationship, spinnerPriority;
 
-    private DatabaseHelper dbHelper;
+    private UserRepository users;
     private SessionManager sessionManager;
-    private int userId;
+    private int userId = -1;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -40,19 +40,23 @@ public class ManageEmergencyContactsActivity extends AppCompatActivity {
             getSupportActionBar().hide();
         }
 
-        dbHelper = new DatabaseHelper(this);
-        sessionManager = new SessionManager(this);
-
-        // Get user ID
-        String email = sessionManager.getUserEmail();
-        User user = dbHelper.getUserDetails(email);
-        if (user != null) {
-            userId = user.getId();
-        }
+        users = UserRepository.get(this);
+        sessionManager = SessionManager.get(this);
 
         initializeViews();
         setupSpinners();
-        loadContacts();
+
+        userId = sessionManager.getUserId();
+        if (userId >= 0) {
+            loadContacts();
+        } else {
+            // Session saved before the id was kept: the profile load fills it in
+            EmergencyProfile.get(this).withSnapshot(snapshot -> {
+                if (snapshot.userId < 0 || isDestroyed()) return;
+                userId = snapshot.userId;
+                loadContacts();
+            });
+        }
     }
 
     private void initializeViews() {
@@ -104,22 +108,35 @@ public class ManageEmergencyContactsActivity extends AppCompatActivity {
             return;
         }
 
-        long result = dbHelper.addEmergencyContact(userId, name, phone, relationship, priority);
-
-        if (result != -1) {
-            Toast.makeText(this, "Emergency contact added", Toast.LENGTH_SHORT).show();
-            etContactName.setText("");
-            etContactPhone.setText("");
-            spinnerPriority.setSelection(0);
-            loadContacts();
-        } else {
-            Toast.makeText(this, "Failed to add contact", Toast.LENGTH_SHORT).show();
+        if (userId < 0) {
+            Toast.makeText(this, "Account still loading, try again", Toast.LENGTH_SHORT).show();
+            return;
         }
+
+        btnAddContact.setEnabled(false);
+        users.addContact(userId, name, phone, relationship, priority, added -> {
+            if (isDestroyed()) return;
+            btnAddContact.setEnabled(true);
+            if (added) {
+                Toast.makeText(this, "Emergency contact added", Toast.LENGTH_SHORT).show();
+                etContactName.setText("");
+                etContactPhone.setText("");
+                spinnerPriority.setSelection(0);
+                loadContacts();
+            } else {
+                Toast.makeText(this, "Failed to add contact", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private void loadContacts() {
+        users.contacts(userId, contacts -> {
+            if (!isDestroyed()) showContacts(contacts);
+        });
+    }
+
+    private void showContacts(List<EmergencyContact> contacts) {
         contactsList.removeAllViews();
-        List<EmergencyContact> contacts = dbHelper.getEmergencyContacts(userId);
 
         if (contacts.isEmpty()) {
             TextView emptyView = new TextView(this);
@@ -184,14 +201,15 @@ public class ManageEmergencyContactsActivity extends AppCompatActivity {
         new AlertDialog.Builder(this)
                 .setTitle("Delete Contact")
                 .setMessage("Are you sure you want to delete " + contact.getName() + " from emergency contacts?")
-                .setPositiveButton("Delete", (dialog, which) -> {
-                    if (dbHelper.deleteEmergencyContact(contact.getId())) {
+                .setPositiveButton("Delete", (dialog, which) -> users.deleteContact(contact.getId(), deleted -> {
+                    if (isDestroyed()) return;
+                    if (deleted) {
                         Toast.makeText(this, "Contact deleted", Toast.LENGTH_SHORT).show();
                         loadContacts();
                     } else {
                         Toast.makeText(this, "Failed to delete contact", Toast.LENGTH_SHORT).show();
                     }
-                })
+                }))
                 .setNegativeButton("Cancel", null)
                 .show();
     }
@@ -0,0 +1,124 @@
+package com.example.invisio;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packs YUV_420_888 planes into NV21 (Y, then interleaved VU) in a reused byte[].
+ *  - Planes are read with ByteBuffer bulk gets: one per stripe when rows are unpadded,
+ *    one per row when rowStride > width. No intermediate copies of whole planes.
+ *  - When U and V are the same NV21 buffer seen twice (pixel stride 2, V one byte ahead
+ *    of U), the VU rows are bulk-copied too; other layouts are gathered pixel by pixel.
+ *    The layout check reads a few sampled bytes per frame, not the whole chroma plane.
+ * Not thread-safe: the returned array is overwritten by the next pack().
+ */
+final class Nv21Packer {
+
+    private static final int MIN_ROWS = 64;   // per stripe
+    private static final int PROBES = 32;     // chroma bytes compared per frame by the layout check
+
+    private final ComputePool pool;
+    private byte[] out = new byte[0];
+    private boolean interleaved;
+    private int probePhase;   // moves the probed bytes from frame to frame
+
+    Nv21Packer(ComputePool pool) {
+        this.pool = pool;
+    }
+
+    static int size(int width, int height) {
+        return width * height + 2 * (width / 2) * (height / 2);
+    }
+
+    /** True if the last pack() took the VU bulk-copy path. */
+    boolean lastWasInterleaved() {
+        return interleaved;
+    }
+
+    /**
+     * Returns NV21 for the planes; valid until the next call. Planes are read from index 0
+     * whatever their position (analyzers may have consumed Y already) and are not modified.
+     */
+    byte[] pack(int width, int height,
+                ByteBuffer y, int yRowStride,
+                ByteBuffer u, int uRowStride, int uPixelStride,
+                ByteBuffer v, int vRowStride, int vPixelStride) {
+        int ySize = width * height;
+        int need = size(width, height);
+        if (out.length != need) out = new byte[need];
+        final byte[] dst = out;
+
+        // Y
+        pool.forStripes(height, MIN_ROWS, (r0, r1) ->
+                copyRows(y, yRowStride, width, dst, 0, r0, r1));
+
+        // VU
+        int cw = width / 2, ch = height / 2;
+        if (cw == 0 || ch == 0) {
+            interleaved = false;
+            return dst;
+        }
+        probePhase += 97;
+        interleaved = isInterleavedVu(u, uRowStride, uPixelStride, v, vRowStride, vPixelStride, probePhase);
+        if (interleaved) {
+            pool.forStripes(ch, MIN_ROWS / 2, (r0, r1) -> {
+                // V holds VUVU..., but stops one byte short of the final U in each row run
+                copyRows(v, vRowStride, 2 * cw, dst, ySize, r0, r1);
+                int lastU = (r1 - 1) * uRowStride + 2 * (cw - 1);
+                dst[ySize + r1 * 2 * cw - 1] = u.get(lastU);
+            });
+        } else {
+            pool.forStripes(ch, MIN_ROWS / 2, (r0, r1) ->
+                    gatherVu(u, uRowStride, uPixelStride, v, vRowStride, vPixelStride, cw, dst, ySize, r0, r1));
+        }
+        return dst;
+    }
+
+    /**
+     * NV21 memory seen as two planes: both with pixel stride 2, the same row stride and
+     * length, and V one byte ahead of U. About PROBES bytes spread over the plane (shifted
+     * by phase) are compared instead of all of them. A separate NV12-style pair only passes
+     * on a frame whose chroma is flat at every probe; bulk-copying it then moves U by one
+     * chroma pixel at worst, and a later frame with colour falls back to gathering.
+     */
+    static boolean isInterleavedVu(ByteBuffer u, int uRowStride, int uPixelStride,
+                                   ByteBuffer v, int vRowStride, int vPixelStride, int phase) {
+        if (uPixelStride != 2 || vPixelStride != 2 || uRowStride != vRowStride) return false;
+        if (u.limit() != v.limit() || v.limit() < 1) return false;
+        int n = u.limit() - 1;   // pairs v[i + 1] / u[i]
+        int step = Math.max(1, n / PROBES);
+        for (int i = (phase & Integer.MAX_VALUE) % step; i < n; i += step) {
+            if (v.get(i + 1) != u.get(i)) return false;
+        }
+        return true;
+    }
+
+    // Rows [r0, r1) of len bytes each from src (rowStride apart) into dst at off + row * len.
+    // The last row may be the plane's shortest (its padding is not in the buffer), so it is
+    // read with min(len, remaining).
+    private static void copyRows(ByteBuffer src, int rowStride, int len, byte[] dst, int off, int r0, int r1) {
+        ByteBuffer b = src.duplicate();
+        if (rowStride == len) {
+            b.position(r0 * len);
+            b.get(dst, off + r0 * len, Math.min((r1 - r0) * len, b.remaining()));
+            return;
+        }
+        for (int row = r0; row < r1; row++) {
+            b.position(row * rowStride);
+            b.get(dst, off + row * len, Math.min(len, b.remaining()));
+        }
+    }
+
+    private static void gatherVu(ByteBuffer u, int uRowStride, int uPixelStride,
+                                 ByteBuffer v, int vRowStride, int vPixelStride,
+                                 int cw, byte[] dst, int off, int r0, int r1) {
+        int pos = off + r0 * cw * 2;
+        for (int row = r0; row < r1; row++) {
+            int uRow = row * uRowStride;
+            int vRow = row * vRowStride;
+            for (int col = 0; col < cw; col++) {
+                dst[pos++] = v.get(vRow + col * vPixelStride);
+                dst[pos++] = u.get(uRow + col * uPixelStride);
+            }
+        }
+    }
+}
@@ -1,59 +1,61 @@
 package com.example.invisio;
 
 import android.graphics.Bitmap;
-import android.graphics.Color;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
 
 public class OcrUtils {
+    /** Global Otsu binarisation (see Binarizer); returns a new black/white bitmap. */
     public static Bitmap otsuThreshold(Bitmap src) {
-        // Simple grayscale + Otsu (not super-optimized; fine for single frame)
-        int w = src.getWidth(), h = src.getHeight();
-        int[] pixels = new int[w * h];
-        src.getPixels(pixels, 0, w, 0, 0, w, h);
+        Binarizer b = new Binarizer(ComputePool.get());
+        return binarize(src, b, Binarizer.Method.OTSU);
+    }
 
-        int[] gray = new int[w * h];
-        int[] hist = new int[256];
-        for (int i = 0; i < pixels.length; i++) {
-            int p = pixels[i];
-            int r = (p >> 16) & 0xFF;
-            int g = (p >> 8) & 0xFF;
-            int b = p & 0xFF;
-            int gr = (r * 299 + g * 587 + b * 114) / 1000;
-            gray[i] = gr;
-            hist[gr]++;
+    /**
+     * Binarise a page with a caller-owned (reused) Binarizer. Mutable ARGB sources are
+     * written in place; otherwise a new bitmap is returned.
+     */
+    public static Bitmap binarize(Bitmap src, Binarizer binarizer, Binarizer.Method method) {
+        int w = src.getWidth(), h = src.getHeight();
+        synchronized (binarizer) {
+            int[] px = binarizer.pixels(w * h);
+            src.getPixels(px, 0, w, 0, 0, w, h);
+            // ~1/40 of the short side: a few text line heights
+            int window = Math.max(15, Math.min(w, h) / 40) | 1;
+            binarizer.binarize(px, w, h, method, window);
+            Bitmap out = (src.isMutable() && src.getConfig() == Bitmap.Config.ARGB_8888)
+                    ? src : Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+            out.setPixels(px, 0, w, 0, 0, w, h);
+            return out;
         }
+    }
 
-        int total = w * h;
-        float sum = 0;
-        for (int t = 0; t < 256; t++) sum += t * hist[t];
-
-        float sumB = 0;
-        int wB = 0;
-        float varMax = 0;
-        int threshold = 0;
-
-        for (int t = 0; t < 256; t++) {
-            wB += hist[t];
-            if (wB == 0) continue;
-            int wF = total - wB;
-            if (wF == 0) break;
-
-            sumB += t * hist[t];
-            float mB = sumB / wB;
-            float mF = (sum - sumB) / wF;
-
-            float varBetween = (float) wB * wF * (mB - mF) * (mB - mF);
-            if (varBetween > varMax) {
-                varMax = varBetween;
-                threshold = t;
-            }
+    /**
+     * Perspective-correct a page into an upright rectangle.
+     * quadNorm = TL, TR, BR, BL as x,y pairs normalized to src (e.g. PageDetector.Quad.pts).
+     */
+    public static Bitmap rectify(Bitmap src, float[] quadNorm) {
+        int w = src.getWidth(), h = src.getHeight();
+        float[] s = new float[8];
+        for (int i = 0; i < 4; i++) {
+            s[2 * i] = quadNorm[2 * i] * w;
+            s[2 * i + 1] = quadNorm[2 * i + 1] * h;
         }
+        float outW = (dist(s, 0, 1) + dist(s, 3, 2)) / 2f;
+        float outH = (dist(s, 0, 3) + dist(s, 1, 2)) / 2f;
+        int ow = Math.max(1, Math.round(outW)), oh = Math.max(1, Math.round(outH));
 
-        for (int i = 0; i < pixels.length; i++) {
-            int v = gray[i] > threshold ? 255 : 0;
-            pixels[i] = Color.rgb(v, v, v);
-        }
-        Bitmap out = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
-        out.setPixels(pixels, 0, w, 0, 0, w, h);
+        Matrix m = new Matrix();
+        if (!m.setPolyToPoly(s, 0, new float[]{ 0, 0, ow, 0, ow, oh, 0, oh }, 0, 4)) return src;
+
+        Bitmap out = Bitmap.createBitmap(ow, oh, Bitmap.Config.ARGB_8888);
+        new Canvas(out).drawBitmap(src, m, new Paint(Paint.FILTER_BITMAP_FLAG));
         return out;
     }
+
+    private static float dist(float[] p, int a, int b) {
+        float dx = p[2 * a] - p[2 * b], dy = p[2 * a + 1] - p[2 * b + 1];
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
 }
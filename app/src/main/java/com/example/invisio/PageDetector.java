@@ -0,0 +1,349 @@
+package com.example.invisio;
+
+import java.util.Arrays;
+
+/**
+ * Finds the page outline on the downscaled analysis luma and turns it into guidance.
+ *  - Edges: 3x3 Sobel magnitude, thresholded by Otsu on its histogram, so a page darker
+ *    than the table is found as well as a bright one.
+ *  - Contours: 8-connected edge components; each large one is reduced to the convex
+ *    hull of its row extremes.
+ *  - Quad: the largest-area quadrilateral on that hull, kept only if edge pixels lie
+ *    along its four sides (a side on the frame border counts, so clipped pages still
+ *    give "move left"); the largest such quad wins.
+ *  - Quad is returned in normalized image (sensor) coordinates, so it maps onto the
+ *    still capture at any resolution.
+ * Buffers are reused across frames; call from one thread.
+ */
+class PageDetector {
+
+    private static final double MIN_AREA = 0.12;   // of the frame
+    private static final int MIN_EDGE = 20;        // Sobel magnitude (0..255) floor for an edge
+    private static final int MAX_HULL = 48;        // hull vertices tried for the quad fit
+    private static final int SIDE_SAMPLES = 16;    // support probes per quad side
+    private static final float MIN_SUPPORT = 0.75f; // probes that must land on an edge
+    private static final int SUPPORT_RADIUS = 2;   // px
+    private static final float EDGE_MARGIN = 0.02f;
+    private static final float MIN_PAGE = 0.30f;   // page area (of frame) before "move closer"
+    private static final float MAX_OFFSET = 0.12f; // centre offset before "move ..."
+    private static final float MAX_KEYSTONE = 0.80f; // short/long opposite edge ratio
+
+    /** Four corners TL, TR, BR, BL as x,y pairs in [0..1]. */
+    static final class Quad {
+        final float[] pts;
+
+        Quad(float[] pts) { this.pts = pts; }
+
+        float area() {
+            float a = 0f;
+            for (int i = 0; i < 4; i++) {
+                int j = (i + 1) % 4;
+                a += pts[2 * i] * pts[2 * j + 1] - pts[2 * j] * pts[2 * i + 1];
+            }
+            return Math.abs(a) / 2f;
+        }
+
+        /** Same quad as seen on a display rotated by rotationDeg (0/90/180/270), corners re-sorted. */
+        Quad rotated(int rotationDeg) {
+            float[] p = new float[8];
+            for (int i = 0; i < 4; i++) {
+                float u = pts[2 * i], v = pts[2 * i + 1];
+                switch (rotationDeg) {
+                    case 90:  p[2 * i] = 1f - v; p[2 * i + 1] = u; break;
+                    case 180: p[2 * i] = 1f - u; p[2 * i + 1] = 1f - v; break;
+                    case 270: p[2 * i] = v; p[2 * i + 1] = 1f - u; break;
+                    default:  p[2 * i] = u; p[2 * i + 1] = v; break;
+                }
+            }
+            return new Quad(sortCorners(p));
+        }
+    }
+
+    private int w, h;
+    private byte[] edges = new byte[0];   // 0 = none, 1 = edge, 2 = edge already in a component
+    private int[] queue = new int[0];
+    private int[] rowMin = new int[0];
+    private int[] rowMax = new int[0];
+    private long[] keys = new long[0];
+    private int[] hx = new int[0];
+    private int[] hy = new int[0];
+    private final int[] hist = new int[256];
+    private final int[] quadIdx = new int[4];
+
+    /** Returns the page quad, or null if no page-like outline is visible. */
+    Quad detect(byte[] y, int w, int h) {
+        int n = w * h;
+        if (w < 3 || h < 3) return null;
+        if (edges.length < n) {
+            edges = new byte[n];
+            queue = new int[n];
+        }
+        if (rowMin.length < h) {
+            rowMin = new int[h];
+            rowMax = new int[h];
+            keys = new long[2 * h];
+            hx = new int[2 * h + 1];
+            hy = new int[2 * h + 1];
+        }
+        this.w = w;
+        this.h = h;
+
+        findEdges(y);
+
+        Quad best = null;
+        float bestArea = 0f;
+        int tail = 0;
+        for (int start = 0; start < n; start++) {
+            if (edges[start] != 1) continue;
+            int head = tail;
+            tail = trace(start, tail);
+            Quad q = fitQuad(head, tail);
+            if (q == null) continue;
+            float a = q.area();
+            if (a > bestArea) {
+                bestArea = a;
+                best = q;
+            }
+        }
+        if (best == null) return null;
+
+        // Outline on all four frame corners is background (e.g. a patterned table), not a page
+        float[] p = best.pts;
+        if (p[0] < EDGE_MARGIN && p[1] < EDGE_MARGIN && p[2] > 1f - EDGE_MARGIN && p[3] < EDGE_MARGIN
+                && p[4] > 1f - EDGE_MARGIN && p[5] > 1f - EDGE_MARGIN && p[6] < EDGE_MARGIN && p[7] > 1f - EDGE_MARGIN) {
+            return null;
+        }
+        return best;
+    }
+
+    /**
+     * Spoken guidance for a detected page (display orientation), or null when the page
+     * is fully visible, centred, large enough and roughly parallel to the camera.
+     */
+    static String guidance(Quad q, int rotationDeg) {
+        if (q == null) return "Center the page in view.";
+        float[] p = q.rotated(rotationDeg).pts;
+        float minX = Math.min(Math.min(p[0], p[2]), Math.min(p[4], p[6]));
+        float maxX = Math.max(Math.max(p[0], p[2]), Math.max(p[4], p[6]));
+        float minY = Math.min(Math.min(p[1], p[3]), Math.min(p[5], p[7]));
+        float maxY = Math.max(Math.max(p[1], p[3]), Math.max(p[5], p[7]));
+
+        boolean clipL = minX < EDGE_MARGIN, clipR = maxX > 1f - EDGE_MARGIN;
+        boolean clipT = minY < EDGE_MARGIN, clipB = maxY > 1f - EDGE_MARGIN;
+        if ((clipL && clipR) || (clipT && clipB)) return "Move the phone farther from the page.";
+        if (clipL) return "Move the phone left.";
+        if (clipR) return "Move the phone right.";
+        if (clipT) return "Move the phone up.";
+        if (clipB) return "Move the phone down.";
+
+        if (q.area() < MIN_PAGE) return "Move closer.";
+
+        float cx = (p[0] + p[2] + p[4] + p[6]) / 4f;
+        float cy = (p[1] + p[3] + p[5] + p[7]) / 4f;
+        if (cx < 0.5f - MAX_OFFSET) return "Move the phone left.";
+        if (cx > 0.5f + MAX_OFFSET) return "Move the phone right.";
+        if (cy < 0.5f - MAX_OFFSET) return "Move the phone up.";
+        if (cy > 0.5f + MAX_OFFSET) return "Move the phone down.";
+
+        float top = dist(p, 0, 1), right = dist(p, 1, 2), bottom = dist(p, 2, 3), left = dist(p, 3, 0);
+        if (top < bottom * MAX_KEYSTONE) return "Tilt the phone up.";
+        if (bottom < top * MAX_KEYSTONE) return "Tilt the phone down.";
+        if (left < right * MAX_KEYSTONE) return "Tilt the phone left.";
+        if (right < left * MAX_KEYSTONE) return "Tilt the phone right.";
+        return null;
+    }
+
+    // Sobel magnitude scaled to 0..255 (frame border = 0), then Otsu on its histogram
+    private void findEdges(byte[] y) {
+        int n = w * h;
+        Arrays.fill(hist, 0);
+        Arrays.fill(edges, 0, n, (byte) 0);
+        for (int py = 1; py < h - 1; py++) {
+            int row = py * w;
+            for (int px = 1; px < w - 1; px++) {
+                int i = row + px;
+                int a = y[i - w - 1] & 0xFF, b = y[i - w] & 0xFF, c = y[i - w + 1] & 0xFF;
+                int d = y[i - 1] & 0xFF, f = y[i + 1] & 0xFF;
+                int g = y[i + w - 1] & 0xFF, k = y[i + w] & 0xFF, l = y[i + w + 1] & 0xFF;
+                int gx = (c + 2 * f + l) - (a + 2 * d + g);
+                int gy = (g + 2 * k + l) - (a + 2 * b + c);
+                int m = Math.min(255, (Math.abs(gx) + Math.abs(gy)) >> 3);
+                edges[i] = (byte) m;   // magnitude for now, replaced by the edge flag below
+                hist[m]++;
+            }
+        }
+        hist[0] += n - (w - 2) * (h - 2);
+        int thr = Math.max(MIN_EDGE, Binarizer.otsu(hist, n));
+        for (int i = 0; i < n; i++) edges[i] = (byte) ((edges[i] & 0xFF) > thr ? 1 : 0);
+    }
+
+    // BFS over 8-connected edge pixels from start; the component fills queue[tail..returned)
+    private int trace(int start, int tail) {
+        int head = tail;
+        queue[tail++] = start;
+        edges[start] = 2;
+        while (head < tail) {
+            int idx = queue[head++];
+            int px = idx % w, py = idx / w;
+            for (int dy = -1; dy <= 1; dy++) {
+                int ny = py + dy;
+                if (ny < 0 || ny >= h) continue;
+                for (int dx = -1; dx <= 1; dx++) {
+                    int nx = px + dx;
+                    if (nx < 0 || nx >= w) continue;
+                    int j = ny * w + nx;
+                    if (edges[j] == 1) {
+                        edges[j] = 2;
+                        queue[tail++] = j;
+                    }
+                }
+            }
+        }
+        return tail;
+    }
+
+    // Convex hull of the component's row extremes -> largest inscribed quad -> edge support check
+    private Quad fitQuad(int from, int to) {
+        int minX = w, maxX = -1, minY = h, maxY = -1;
+        for (int i = from; i < to; i++) {
+            int px = queue[i] % w, py = queue[i] / w;
+            if (px < minX) minX = px;
+            if (px > maxX) maxX = px;
+            if (py < minY) minY = py;
+            if (py > maxY) maxY = py;
+        }
+        if ((double) (maxX - minX) * (maxY - minY) < MIN_AREA * w * h) return null;
+
+        Arrays.fill(rowMin, minY, maxY + 1, Integer.MAX_VALUE);
+        Arrays.fill(rowMax, minY, maxY + 1, -1);
+        for (int i = from; i < to; i++) {
+            int px = queue[i] % w, py = queue[i] / w;
+            if (px < rowMin[py]) rowMin[py] = px;
+            if (px > rowMax[py]) rowMax[py] = px;
+        }
+        int k = 0;
+        for (int r = minY; r <= maxY; r++) {
+            if (rowMax[r] < 0) continue;
+            keys[k++] = ((long) rowMin[r] << 32) | r;
+            if (rowMax[r] != rowMin[r]) keys[k++] = ((long) rowMax[r] << 32) | r;
+        }
+        int m = hull(k);
+        if (m < 4) return null;
+
+        // Evenly thin a ragged hull; the quad corners survive as the widest turns
+        if (m > MAX_HULL) {
+            for (int i = 0; i < MAX_HULL; i++) {
+                int src = (int) ((long) i * m / MAX_HULL);
+                hx[i] = hx[src];
+                hy[i] = hy[src];
+            }
+            m = MAX_HULL;
+        }
+        if (!largestQuad(m)) return null;
+
+        float sx = 1f / (w - 1), sy = 1f / (h - 1);
+        float[] p = new float[8];
+        for (int i = 0; i < 4; i++) {
+            p[2 * i] = hx[quadIdx[i]] * sx;
+            p[2 * i + 1] = hy[quadIdx[i]] * sy;
+        }
+        Quad q = new Quad(sortCorners(p));
+        if (q.area() < MIN_AREA) return null;
+        return support(q.pts) >= MIN_SUPPORT ? q : null;
+    }
+
+    // Monotone chain over keys[0..k) (x << 32 | y); hull into hx/hy, returns its size
+    private int hull(int k) {
+        Arrays.sort(keys, 0, k);
+        int m = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            int base = m;
+            for (int t = 0; t < k; t++) {
+                long key = keys[pass == 0 ? t : k - 1 - t];
+                int px = (int) (key >>> 32), py = (int) key;
+                while (m >= base + 2 && cross(hx[m - 2], hy[m - 2], hx[m - 1], hy[m - 1], px, py) <= 0) m--;
+                hx[m] = px;
+                hy[m] = py;
+                m++;
+            }
+            m--;   // last point of each chain starts the other one
+        }
+        return m;
+    }
+
+    // Largest-area quad on the convex hull hx/hy[0..m) (vertices in order) into quadIdx
+    private boolean largestQuad(int m) {
+        long best = 0;
+        for (int a = 0; a < m; a++) {
+            for (int c = a + 2; c < m - (a == 0 ? 1 : 0); c++) {
+                long left = 0, right = 0;
+                int bi = -1, di = -1;
+                for (int b = a + 1; b < c; b++) {
+                    long t = Math.abs(cross(hx[a], hy[a], hx[b], hy[b], hx[c], hy[c]));
+                    if (t > left) { left = t; bi = b; }
+                }
+                for (int d = c + 1; d < m + a; d++) {
+                    int dd = d % m;
+                    long t = Math.abs(cross(hx[c], hy[c], hx[dd], hy[dd], hx[a], hy[a]));
+                    if (t > right) { right = t; di = dd; }
+                }
+                if (bi >= 0 && di >= 0 && left + right > best) {
+                    best = left + right;
+                    quadIdx[0] = a; quadIdx[1] = bi; quadIdx[2] = c; quadIdx[3] = di;
+                }
+            }
+        }
+        return best > 0;
+    }
+
+    // Fraction of probes along the quad sides with an edge pixel (or the frame border) nearby
+    private float support(float[] p) {
+        int hits = 0;
+        for (int s = 0; s < 4; s++) {
+            int e = (s + 1) % 4;
+            for (int t = 1; t <= SIDE_SAMPLES; t++) {
+                float f = t / (SIDE_SAMPLES + 1f);
+                int px = Math.round((p[2 * s] + (p[2 * e] - p[2 * s]) * f) * (w - 1));
+                int py = Math.round((p[2 * s + 1] + (p[2 * e + 1] - p[2 * s + 1]) * f) * (h - 1));
+                if (nearEdge(px, py)) hits++;
+            }
+        }
+        return hits / (4f * SIDE_SAMPLES);
+    }
+
+    private boolean nearEdge(int px, int py) {
+        if (px <= SUPPORT_RADIUS || py <= SUPPORT_RADIUS || px >= w - 1 - SUPPORT_RADIUS || py >= h - 1 - SUPPORT_RADIUS) {
+            return true;
+        }
+        for (int dy = -SUPPORT_RADIUS; dy <= SUPPORT_RADIUS; dy++) {
+            int row = (py + dy) * w + px;
+            for (int dx = -SUPPORT_RADIUS; dx <= SUPPORT_RADIUS; dx++) {
+                if (edges[row + dx] != 0) return true;
+            }
+        }
+        return false;
+    }
+
+    private static long cross(int ox, int oy, int ax, int ay, int bx, int by) {
+        return (long) (ax - ox) * (by - oy) - (long) (ay - oy) * (bx - ox);
+    }
+
+    /** Reorder 4 points as TL, TR, BR, BL using the x+y / x-y extremes. */
+    private static float[] sortCorners(float[] p) {
+        int tl = 0, tr = 0, br = 0, bl = 0;
+        for (int i = 1; i < 4; i++) {
+            float s = p[2 * i] + p[2 * i + 1], d = p[2 * i] - p[2 * i + 1];
+            if (s < p[2 * tl] + p[2 * tl + 1]) tl = i;
+            if (s > p[2 * br] + p[2 * br + 1]) br = i;
+            if (d > p[2 * tr] - p[2 * tr + 1]) tr = i;
+            if (d < p[2 * bl] - p[2 * bl + 1]) bl = i;
+        }
+        return new float[]{ p[2 * tl], p[2 * tl + 1], p[2 * tr], p[2 * tr + 1],
+                p[2 * br], p[2 * br + 1], p[2 * bl], p[2 * bl + 1] };
+    }
+
+    private static float dist(float[] p, int a, int b) {
+        float dx = p[2 * a] - p[2 * b], dy = p[2 * a + 1] - p[2 * b + 1];
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.invisio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 64-bit SimHash of a page's OCR text, for skipping pages that were already read.
+ *  - Text is normalised to lowercase letter/digit words; features are word bigrams.
+ *  - Two re-reads of the same page differ only in a few OCR errors, which flip few bits,
+ *    so samePage() compares by Hamming distance rather than equality.
+ */
+final class PageHash {
+
+    private static final int SHINGLE = 2;
+    private static final int MAX_DISTANCE = 12;   // bits
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private PageHash() {}
+
+    /** 0 for text without words. */
+    static long of(String text) {
+        List<String> words = words(text);
+        if (words.isEmpty()) return 0L;
+
+        int[] votes = new int[64];
+        int k = Math.min(SHINGLE, words.size());
+        for (int i = 0; i + k <= words.size(); i++) {
+            long h = FNV_OFFSET;
+            for (int j = i; j < i + k; j++) {
+                String w = words.get(j);
+                for (int c = 0; c < w.length(); c++) {
+                    h ^= w.charAt(c);
+                    h *= FNV_PRIME;
+                }
+                h ^= ' ';
+                h *= FNV_PRIME;
+            }
+            for (int b = 0; b < 64; b++) votes[b] += ((h >>> b) & 1L) != 0 ? 1 : -1;
+        }
+
+        long hash = 0L;
+        for (int b = 0; b < 64; b++) if (votes[b] > 0) hash |= 1L << b;
+        return hash == 0L ? 1L : hash;
+    }
+
+    static boolean samePage(long a, long b) {
+        if (a == 0L || b == 0L) return false;
+        return Long.bitCount(a ^ b) <= MAX_DISTANCE;
+    }
+
+    private static List<String> words(String text) {
+        List<String> out = new ArrayList<>();
+        if (text == null) return out;
+        StringBuilder sb = new StringBuilder();
+        String s = text.toLowerCase(Locale.US);
+        for (int i = 0; i <= s.length(); i++) {
+            char c = i < s.length() ? s.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+            } else if (sb.length() > 0) {
+                out.add(sb.toString());
+                sb.setLength(0);
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.invisio;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads an ordered document aloud one sentence at a time through SpeechManager.
+ *  - Only the paragraph being read is split into sentences; speech starts as soon as
+ *    the first paragraph is ready instead of after the whole page is formatted.
+ *  - next()/previous() jump between paragraphs without re-running OCR.
+ *  - If other speech preempts a sentence, reading pauses there; resume() restarts it.
+ *  - interject() speaks a prompt at once and then resumes reading where it stopped.
+ *  - append() adds pages while reading; if the reader already ran out, it continues.
+ * Main thread only.
+ */
+final class ParagraphReader {
+
+    private static final int MAX_CHUNK = 300; // chars per utterance, well under TTS limits
+
+    interface Listener {
+        /** Called when the last paragraph finished. */
+        void onFinished();
+    }
+
+    private final SpeechManager speech;
+    private final SpeechManager.Priority priority;
+    private Listener listener;
+
+    private List<ReadingOrder.Block> blocks = new ArrayList<>();
+    private List<String> sentences = new ArrayList<>();
+    private int paragraph = -1;
+    private int sentence = 0;
+    private int generation = 0;   // bumped on every jump; stale callbacks are ignored
+    private boolean playing = false;
+    private boolean finished = false;  // read past the last paragraph, waiting for append()
+    private int prompts = 0;           // interjected prompts not yet finished
+    private boolean resumeAfterPrompts = false;
+
+    ParagraphReader(SpeechManager speech, SpeechManager.Priority priority) {
+        this.speech = speech;
+        this.priority = priority;
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Start reading ordered blocks from the first paragraph (queued behind current speech). */
+    void start(List<ReadingOrder.Block> ordered) {
+        blocks = new ArrayList<>(ordered);
+        playing = false;
+        resumeAfterPrompts = false;
+        finished = false;
+        generation++;
+        openParagraph(0);
+    }
+
+    /** Add paragraphs at the end; reading continues into them. */
+    void append(List<ReadingOrder.Block> more) {
+        if (!hasDocument()) {
+            start(more);
+            return;
+        }
+        int from = blocks.size();
+        blocks.addAll(more);
+        if (finished) {
+            finished = false;
+            generation++;
+            openParagraph(from);
+        }
+    }
+
+    /** True while sentences are queued or being spoken. */
+    boolean isReading() {
+        return playing;
+    }
+
+    boolean hasDocument() {
+        return !blocks.isEmpty();
+    }
+
+    int paragraphIndex() { return paragraph; }
+
+    void next() {
+        if (!hasDocument()) return;
+        if (paragraph + 1 >= blocks.size()) {
+            jumpAnnounce("Last paragraph.");
+            return;
+        }
+        jumpTo(paragraph + 1);
+    }
+
+    void previous() {
+        if (!hasDocument()) return;
+        if (paragraph <= 0) {
+            jumpAnnounce("First paragraph.");
+            jumpTo(0);
+            return;
+        }
+        jumpTo(paragraph - 1);
+    }
+
+    /**
+     * Restart the current sentence, queued behind other speech. Call after speaking
+     * something that interrupted reading; its pending callback is invalidated here.
+     */
+    void resume() {
+        resumeAfterPrompts = false;
+        if (!hasDocument() || finished || paragraph < 0 || sentence >= sentences.size()) return;
+        generation++;
+        speakCurrent();
+    }
+
+    /**
+     * Speak a prompt now, cutting into the current sentence. If a sentence was playing or
+     * queued, it is read again once the last prompt finished, unless a jump, start() or
+     * stop() happened in between.
+     */
+    void interject(String text) {
+        if (playing) resumeAfterPrompts = true;
+        prompts++;
+        speech.sayNow(this, text, priority, completed -> {
+            if (--prompts > 0 || !resumeAfterPrompts) return;
+            resume();
+        });
+    }
+
+    /** Stop and forget the document; prompts still playing are cut off too. */
+    void stop() {
+        generation++;
+        resumeAfterPrompts = false;
+        playing = false;
+        finished = false;
+        blocks = new ArrayList<>();
+        sentences = new ArrayList<>();
+        paragraph = -1;
+        sentence = 0;
+        speech.cancel(this);
+    }
+
+    private void jumpTo(int index) {
+        generation++;
+        resumeAfterPrompts = false;
+        if (playing) speech.cancel(this);
+        playing = false;
+        finished = false;
+        openParagraph(index);
+    }
+
+    private void jumpAnnounce(String text) {
+        generation++;
+        resumeAfterPrompts = false;
+        if (playing) speech.cancel(this);
+        playing = false;
+        speech.say(this, text, priority);
+    }
+
+    private void openParagraph(int index) {
+        while (index < blocks.size()) {
+            sentences = ReadingOrder.sentences(ReadingOrder.joinLines(blocks.get(index).lines), MAX_CHUNK);
+            if (!sentences.isEmpty()) break;
+            index++;
+        }
+        if (index >= blocks.size()) {
+            paragraph = blocks.size() - 1;
+            finished = true;
+            if (listener != null) listener.onFinished();
+            return;
+        }
+        paragraph = index;
+        sentence = 0;
+        speakCurrent();
+    }
+
+    private void speakCurrent() {
+        final int gen = generation;
+        playing = true;
+        speech.say(this, sentences.get(sentence), priority, completed -> {
+            if (gen != generation) return;
+            playing = false;
+            if (!completed) return; // paused; resume() picks up this sentence
+            if (sentence + 1 < sentences.size()) {
+                sentence++;
+                speakCurrent();
+            } else {
+                openParagraph(paragraph + 1);
+            }
+        });
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.invisio;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.function.IntToLongFunction;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Salted PBKDF2 password storage.
+ *  - Stored form: "pbkdf2-sha256$<iterations>$<salt hex>$<hash hex>" (sha1 where SHA-256 PBKDF2
+ *    is missing, before API 26).
+ *  - Rows from before hashing hold the plain password; check() accepts them and hands back the
+ *    hashed form to store instead, as it does for hashes made with fewer iterations than now.
+ *  - The iteration count comes from calibrate(): as many as fit a time budget on this device.
+ * Hashing is deliberately slow: call from a background thread.
+ */
+final class PasswordHasher {
+
+    static final String PREFIX = "pbkdf2-";
+    static final int MIN_ITERATIONS = 10_000;
+    static final int MAX_ITERATIONS = 1_000_000;
+    static final int PROBE_ITERATIONS = 2_000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    /** Outcome of check(). upgrade: the value to store instead, or null if the stored one is current. */
+    static final class Check {
+        final boolean ok;
+        final String upgrade;
+
+        Check(boolean ok, String upgrade) {
+            this.ok = ok;
+            this.upgrade = upgrade;
+        }
+    }
+
+    private final int iterations;
+    private final String algorithm;
+    private final SecureRandom random = new SecureRandom();
+
+    PasswordHasher(int iterations) {
+        this.iterations = iterations;
+        this.algorithm = bestAlgorithm();
+    }
+
+    int iterations() {
+        return iterations;
+    }
+
+    /** New stored form with a fresh salt. */
+    String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return format(algorithm, iterations, salt, derive(algorithm, password, salt, iterations));
+    }
+
+    /** Verifies a password against a stored value (hashed or legacy plain text). */
+    Check check(String password, String stored) {
+        if (stored == null) return new Check(false, null);
+        String[] f = stored.split("\\$");
+        if (!stored.startsWith(PREFIX) || f.length != 4) {
+            // Legacy row: plain text, replaced by a hash on the first successful login
+            boolean ok = MessageDigest.isEqual(bytes(password), bytes(stored));
+            return new Check(ok, ok ? hash(password) : null);
+        }
+        String alg = f[0].substring(PREFIX.length());
+        if (!"sha1".equals(alg) && !"sha256".equals(alg)) return new Check(false, null);
+        int n;
+        byte[] salt, expected;
+        try {
+            n = Integer.parseInt(f[1]);
+            salt = unhex(f[2]);
+            expected = unhex(f[3]);
+        } catch (IllegalArgumentException e) {
+            return new Check(false, null);
+        }
+        if (n < 1) return new Check(false, null);
+        byte[] actual;
+        try {
+            actual = derive(alg, password, salt, n);
+        } catch (IllegalStateException e) {
+            return new Check(false, null);   // e.g. a sha256 row on a device without it
+        }
+        boolean ok = MessageDigest.isEqual(expected, actual);
+        boolean stale = n < iterations || !alg.equals(algorithm);
+        return new Check(ok, ok && stale ? hash(password) : null);
+    }
+
+    /**
+     * Iterations that take about budgetMs. costNanos(n) times n iterations; the fastest of
+     * three probes is scaled linearly, clamped to [MIN_ITERATIONS, MAX_ITERATIONS] and rounded
+     * down to a thousand.
+     */
+    static int calibrate(long budgetMs, IntToLongFunction costNanos) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) best = Math.min(best, costNanos.applyAsLong(PROBE_ITERATIONS));
+        long n = best <= 0 ? MAX_ITERATIONS : budgetMs * 1_000_000L * PROBE_ITERATIONS / best;
+        n = Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, n));
+        return (int) (n / 1000 * 1000);
+    }
+
+    /** calibrate() against real PBKDF2 on this device. */
+    static int calibrate(long budgetMs) {
+        String alg = bestAlgorithm();
+        byte[] salt = new byte[SALT_BYTES];
+        return calibrate(budgetMs, n -> {
+            long t0 = System.nanoTime();
+            derive(alg, "calibration", salt, n);
+            return System.nanoTime() - t0;
+        });
+    }
+
+    private static String bestAlgorithm() {
+        try {
+            SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+            return "sha256";
+        } catch (NoSuchAlgorithmException e) {
+            return "sha1";
+        }
+    }
+
+    private static byte[] derive(String alg, String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            String name = "sha256".equals(alg) ? "PBKDF2WithHmacSHA256" : "PBKDF2WithHmacSHA1";
+            return SecretKeyFactory.getInstance(name).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 unavailable", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static String format(String alg, int iterations, byte[] salt, byte[] hash) {
+        return PREFIX + alg + "$" + iterations + "$" + hex(salt) + "$" + hex(hash);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String hex(byte[] b) {
+        StringBuilder sb = new StringBuilder(b.length * 2);
+        for (byte x : b) sb.append(Character.forDigit((x >> 4) & 0xF, 16)).append(Character.forDigit(x & 0xF, 16));
+        return sb.toString();
+    }
+
+    private static byte[] unhex(String s) {
+        if ((s.length() & 1) != 0) throw new IllegalArgumentException("odd hex length");
+        byte[] b = new byte[s.length() / 2];
+        for (int i = 0; i < b.length; i++) {
+            int hi = Character.digit(s.charAt(2 * i), 16), lo = Character.digit(s.charAt(2 * i + 1), 16);
+            if (hi < 0 || lo < 0) throw new IllegalArgumentException("bad hex");
+            b[i] = (byte) ((hi << 4) | lo);
+        }
+        return b;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.invisio;
+
+/**
+ * Shared lookup tables for per-pixel conversions.
+ *  - NORM: byte value -> float [0..1] (same bits as v / 255f).
+ *  - LUMA_R/G/B: per-channel BT.601 weights (x299, x587, x114); the /1000 is a
+ *    reciprocal multiply that is exact over the whole RGB range.
+ */
+final class PixelConvert {
+
+    static final float[] NORM = new float[256];
+    static final int[] LUMA_R = new int[256];
+    static final int[] LUMA_G = new int[256];
+    static final int[] LUMA_B = new int[256];
+
+    // ceil(2^32 / 1000): floor(sum * RECIP_1000 / 2^32) == sum / 1000 for sum <= 255000
+    private static final long RECIP_1000 = 4294968L;
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            NORM[i] = i / 255f;
+            LUMA_R[i] = i * 299;
+            LUMA_G[i] = i * 587;
+            LUMA_B[i] = i * 114;
+        }
+    }
+
+    private PixelConvert() {}
+
+    /** Integer luma (0..255) of an ARGB pixel, equal to (r*299 + g*587 + b*114) / 1000. */
+    static int luma(int argb) {
+        int sum = LUMA_R[(argb >> 16) & 0xFF] + LUMA_G[(argb >> 8) & 0xFF] + LUMA_B[argb & 0xFF];
+        return (int) ((sum * RECIP_1000) >>> 32);
+    }
+
+    /** Arithmetic reference for luma(); used by the tests and PixelConvertBenchmarkTest. */
+    static int lumaArithmetic(int argb) {
+        int r = (argb >> 16) & 0xFF;
+        int g = (argb >> 8) & 0xFF;
+        int b = argb & 0xFF;
+        return (r * 299 + g * 587 + b * 114) / 1000;
+    }
+}
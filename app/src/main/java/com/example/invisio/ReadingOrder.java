@@ -0,0 +1,147 @@
+package com.example.invisio;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Turns OCR blocks into speakable reading order (pure Java, no ML Kit types).
+ *  - Blocks are cut into horizontal bands at full-width blocks (titles, captions);
+ *    within a band, blocks are grouped into columns by horizontal overlap and read
+ *    column by column, top to bottom.
+ *  - A block is one paragraph; its lines are joined (de-hyphenated) and split into
+ *    sentences, with over-long sentences cut at commas/spaces to stay under maxChunk.
+ */
+final class ReadingOrder {
+
+    private static final float FULL_WIDTH = 0.6f;   // of the text extent: spans columns
+    private static final float COLUMN_OVERLAP = 0.5f; // of the narrower block
+    private static final Pattern BLANK_LINE = Pattern.compile("\n\\s*\n");
+    private static final Pattern SENTENCE_END = Pattern.compile("(?<=[.!?][\"')\\]]?)\\s+");
+
+    static final class Block {
+        final int left, top, right, bottom;
+        final List<String> lines;
+
+        Block(int left, int top, int right, int bottom, List<String> lines) {
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+            this.lines = lines;
+        }
+
+        int width() { return right - left; }
+    }
+
+    private static final class Column {
+        int left, right;
+        final List<Block> blocks = new ArrayList<>();
+    }
+
+    private ReadingOrder() {}
+
+    /** Blocks in reading order. Input order is ignored. */
+    static List<Block> order(List<Block> blocks) {
+        List<Block> out = new ArrayList<>(blocks.size());
+        if (blocks.isEmpty()) return out;
+
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+        for (Block b : blocks) {
+            minX = Math.min(minX, b.left);
+            maxX = Math.max(maxX, b.right);
+        }
+        float fullWidth = FULL_WIDTH * Math.max(1, maxX - minX);
+
+        List<Block> sorted = new ArrayList<>(blocks);
+        Collections.sort(sorted, (a, b) -> a.top != b.top ? Integer.compare(a.top, b.top) : Integer.compare(a.left, b.left));
+
+        List<Block> band = new ArrayList<>();
+        for (Block b : sorted) {
+            if (b.width() >= fullWidth) {
+                orderBand(band, out);
+                band.clear();
+                out.add(b);
+            } else {
+                band.add(b);
+            }
+        }
+        orderBand(band, out);
+        return out;
+    }
+
+    private static void orderBand(List<Block> band, List<Block> out) {
+        if (band.isEmpty()) return;
+        List<Column> columns = new ArrayList<>();
+        for (Block b : band) { // band is sorted by top
+            Column target = null;
+            for (Column c : columns) {
+                int overlap = Math.min(c.right, b.right) - Math.max(c.left, b.left);
+                int narrower = Math.max(1, Math.min(c.right - c.left, b.width()));
+                if (overlap >= COLUMN_OVERLAP * narrower) {
+                    target = c;
+                    break;
+                }
+            }
+            if (target == null) {
+                target = new Column();
+                target.left = b.left;
+                target.right = b.right;
+                columns.add(target);
+            } else {
+                target.left = Math.min(target.left, b.left);
+                target.right = Math.max(target.right, b.right);
+            }
+            target.blocks.add(b);
+        }
+        Collections.sort(columns, (a, b) -> Integer.compare(a.left, b.left));
+        for (Column c : columns) out.addAll(c.blocks);
+    }
+
+    /** Block lines as one paragraph string; "exam-" + "ple" becomes "example". */
+    static String joinLines(List<String> lines) {
+        StringBuilder sb = new StringBuilder();
+        for (String raw : lines) {
+            String line = raw == null ? "" : raw.trim();
+            if (line.isEmpty()) continue;
+            int n = sb.length();
+            if (n > 1 && sb.charAt(n - 1) == '-' && Character.isLetter(sb.charAt(n - 2))
+                    && Character.isLowerCase(line.charAt(0))) {
+                sb.setLength(n - 1);
+            } else if (n > 0) {
+                sb.append(' ');
+            }
+            sb.append(line);
+        }
+        return sb.toString();
+    }
+
+    /** Paragraphs of a stored page body (separated by blank lines, which may hold spaces, tabs or \r). */
+    static List<String> paragraphs(String body) {
+        List<String> out = new ArrayList<>();
+        for (String p : BLANK_LINE.split(body)) {
+            String para = p.trim();
+            if (!para.isEmpty()) out.add(para);
+        }
+        return out;
+    }
+
+    /** Speakable chunks of a paragraph: sentences, none longer than maxChunk chars. */
+    static List<String> sentences(String paragraph, int maxChunk) {
+        List<String> out = new ArrayList<>();
+        for (String s : SENTENCE_END.split(paragraph.trim())) {
+            String sentence = s.trim();
+            while (sentence.length() > maxChunk) {
+                int cut = sentence.lastIndexOf(", ", maxChunk);
+                if (cut < maxChunk / 2) cut = sentence.lastIndexOf(' ', maxChunk);
+                if (cut <= 0) cut = maxChunk;
+                else cut++; // keep the comma with the first part
+                out.add(sentence.substring(0, cut).trim());
+                sentence = sentence.substring(cut).trim();
+            }
+            if (!sentence.isEmpty()) out.add(sentence);
+        }
+        return out;
+    }
+}
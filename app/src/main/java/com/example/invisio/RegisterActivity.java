@@ -18,7 +18,7 @@ public class RegisterActivity extends AppCompatActivity {
     private CheckBox cbTerms;
     private Button btnSignUp;
     private TextView tvAlreadyHaveAccount;
-    private DatabaseHelper dbHelper;
+    private UserRepository users;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -33,11 +33,7 @@ public class RegisterActivity extends AppCompatActivity {
         initViews();
         initListeners();
 
-        dbHelper = new DatabaseHelper(this);
-
-        // Debug: Check database state
-        Log.d("RegisterActivity", "Database initialized");
-        dbHelper.debugPrintAllUsers();
+        users = UserRepository.get(this);
     }
 
     private void initViews() {
@@ -121,57 +117,27 @@ public class RegisterActivity extends AppCompatActivity {
             return;
         }
 
-        // Check if user already exists
-        Log.d("RegisterActivity", "Checking if user exists...");
-        if (dbHelper.userExists(email)) {
-            etEmail.setError("User already exists with this email");
-            etEmail.requestFocus();
-            Log.d("RegisterActivity", "User already exists with email: " + email);
-            return;
-        }
-
-        Log.d("RegisterActivity", "User doesn't exist, proceeding with registration...");
-
-        // Attempt registration
-        boolean registrationSuccess = dbHelper.registerUser(fullName, email, password);
-        Log.d("RegisterActivity", "Registration result: " + registrationSuccess);
-
-        if (registrationSuccess) {
-            // Verify user was actually created
-            boolean userNowExists = dbHelper.userExists(email);
-            Log.d("RegisterActivity", "User exists after registration: " + userNowExists);
-
-            // Debug: Print all users after registration
-            dbHelper.debugPrintAllUsers();
-
-            // Test login immediately
-            testLoginAfterRegistration(email, password);
-
-            Toast.makeText(this, "Registration successful! Please login.", Toast.LENGTH_LONG).show();
-            finish();
-        } else {
-            Log.e("RegisterActivity", "Registration failed for unknown reason");
-            Toast.makeText(this, "Registration failed. Please try again.", Toast.LENGTH_SHORT).show();
-        }
-    }
-
-    // Test login immediately after registration
-    private void testLoginAfterRegistration(String email, String password) {
-        Log.d("RegisterActivity", "Testing login immediately after registration...");
-
-        // Create a new DatabaseHelper instance to ensure fresh connection
-        DatabaseHelper testDbHelper = new DatabaseHelper(this);
-
-        boolean loginTest = testDbHelper.loginUser(email, password);
-        Log.d("RegisterActivity", "Immediate login test result: " + loginTest);
-
-        if (loginTest) {
-            Log.d("RegisterActivity", "✓ Registration and login test PASSED");
-        } else {
-            Log.e("RegisterActivity", "✗ Registration succeeded but login test FAILED");
-            // Additional debugging
-            boolean userExists = testDbHelper.userExists(email);
-            Log.e("RegisterActivity", "User exists check: " + userExists);
-        }
+        // Existence check and insert on the repository's I/O thread
+        btnSignUp.setEnabled(false);
+        users.register(fullName, email, password, result -> {
+            if (isFinishing() || isDestroyed()) return;
+            btnSignUp.setEnabled(true);
+            Log.d("RegisterActivity", "Registration result: " + result);
+            switch (result) {
+                case EXISTS:
+                    etEmail.setError("User already exists with this email");
+                    etEmail.requestFocus();
+                    Log.d("RegisterActivity", "User already exists with email: " + email);
+                    break;
+                case OK:
+                    Toast.makeText(this, "Registration successful! Please login.", Toast.LENGTH_LONG).show();
+                    finish();
+                    break;
+                case FAILED:
+                    Log.e("RegisterActivity", "Registration failed for unknown reason");
+                    Toast.makeText(this, "Registration failed. Please try again.", Toast.LENGTH_SHORT).show();
+                    break;
+            }
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.example.invisio;
+
+public class ScannedPage {
+    private long id;
+    private long sessionId;   // pages scanned in one reader session (e.g. one book run)
+    private int pageNo;
+    private String title;
+    private String body;      // paragraphs separated by blank lines
+    private long textHash;    // PageHash.of(body)
+    private long createdAt;   // epoch millis
+
+    public ScannedPage(long id, long sessionId, int pageNo, String title, String body, long textHash, long createdAt) {
+        this.id = id;
+        this.sessionId = sessionId;
+        this.pageNo = pageNo;
+        this.title = title;
+        this.body = body;
+        this.textHash = textHash;
+        this.createdAt = createdAt;
+    }
+
+    // Getters
+    public long getId() { return id; }
+    public long getSessionId() { return sessionId; }
+    public int getPageNo() { return pageNo; }
+    public String getTitle() { return title; }
+    public String getBody() { return body; }
+    public long getTextHash() { return textHash; }
+    public long getCreatedAt() { return createdAt; }
+
+    void setId(long id) { this.id = id; }
+
+    @Override
+    public String toString() {
+        return title + " (page " + pageNo + ")";
+    }
+}
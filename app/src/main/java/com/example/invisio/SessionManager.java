@@ -3,43 +3,111 @@ package com.example.invisio;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The logged-in user, process-wide. Prefs are read once; after that the session lives in
+ * memory (readable from any thread) and changes are written back with apply(), off the
+ * caller's thread. Listeners hear about login / logout on the thread that made the change.
+ */
 public class SessionManager {
     private static final String PREF_NAME = "InVisioSession";
     private static final String KEY_IS_LOGGED_IN = "isLoggedIn";
+    private static final String KEY_USER_ID = "userId";
     private static final String KEY_USER_EMAIL = "userEmail";
     private static final String KEY_USER_NAME = "userName";
 
-    private SharedPreferences pref;
-    private SharedPreferences.Editor editor;
-    private Context context;
+    /** Login, logout or a changed user id. */
+    interface Listener {
+        void onSessionChanged(SessionManager session);
+    }
+
+    // Immutable so readers on other threads always see one consistent user
+    private static final class Session {
+        final boolean loggedIn;
+        final int userId;
+        final String email;
+        final String name;
+
+        Session(boolean loggedIn, int userId, String email, String name) {
+            this.loggedIn = loggedIn;
+            this.userId = userId;
+            this.email = email;
+            this.name = name;
+        }
+    }
+
+    private static SessionManager instance;
 
-    public SessionManager(Context context) {
-        this.context = context;
-        pref = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        editor = pref.edit();
+    public static synchronized SessionManager get(Context context) {
+        if (instance == null) instance = new SessionManager(context.getApplicationContext());
+        return instance;
     }
 
-    public void createLoginSession(String email, String name) {
-        editor.putBoolean(KEY_IS_LOGGED_IN, true);
-        editor.putString(KEY_USER_EMAIL, email);
-        editor.putString(KEY_USER_NAME, name);
-        editor.commit();
+    private final SharedPreferences pref;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Session session;
+
+    private SessionManager(Context appContext) {
+        pref = appContext.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        // Sessions saved before the id was stored read back as -1 until setUserId()
+        session = new Session(pref.getBoolean(KEY_IS_LOGGED_IN, false), pref.getInt(KEY_USER_ID, -1),
+                pref.getString(KEY_USER_EMAIL, null), pref.getString(KEY_USER_NAME, null));
+    }
+
+    void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    public void createLoginSession(int userId, String email, String name) {
+        session = new Session(true, userId, email, name);
+        pref.edit()
+                .putBoolean(KEY_IS_LOGGED_IN, true)
+                .putInt(KEY_USER_ID, userId)
+                .putString(KEY_USER_EMAIL, email)
+                .putString(KEY_USER_NAME, name)
+                .apply();
+        notifyChanged();
+    }
+
+    /** Fills in the id of a session saved without one. */
+    void setUserId(int userId) {
+        Session s = session;
+        if (!s.loggedIn || s.userId == userId) return;
+        session = new Session(true, userId, s.email, s.name);
+        pref.edit().putInt(KEY_USER_ID, userId).apply();
+        notifyChanged();
     }
 
     public boolean isLoggedIn() {
-        return pref.getBoolean(KEY_IS_LOGGED_IN, false);
+        return session.loggedIn;
+    }
+
+    /** Id of the logged-in user, or -1. */
+    public int getUserId() {
+        return session.userId;
     }
 
     public String getUserEmail() {
-        return pref.getString(KEY_USER_EMAIL, null);
+        return session.email;
     }
 
     public String getUserName() {
-        return pref.getString(KEY_USER_NAME, null);
+        return session.name;
     }
 
     public void logoutUser() {
-        editor.clear();
-        editor.commit();
+        session = new Session(false, -1, null, null);
+        pref.edit().clear().apply();
+        notifyChanged();
+    }
+
+    private void notifyChanged() {
+        for (Listener l : listeners) l.onSessionChanged(this);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,129 @@
+package com.example.invisio;
+
+import android.app.Activity;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+import android.telephony.SmsManager;
+import android.telephony.SmsMessage;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * EmergencyMessenger.Gateway over the platform SmsManager.
+ *  - divideMessage + sendMultipartTextMessage, one sent and one delivered PendingIntent per part;
+ *  - a receiver (registered for the app's lifetime) turns the reports back into
+ *    onSent / onDeliveryReport calls on the messenger.
+ * Sends run on the given executor so all contacts go out in parallel.
+ */
+final class SmsManagerGateway extends BroadcastReceiver implements EmergencyMessenger.Gateway {
+
+    private static final String TAG = "SmsGateway";
+    private static final String ACTION_SENT = "com.example.invisio.EMERGENCY_SMS_SENT";
+    private static final String ACTION_DELIVERED = "com.example.invisio.EMERGENCY_SMS_DELIVERED";
+    private static final String EXTRA_ROUND = "round";
+    private static final String EXTRA_CONTACT = "contact";
+    private static final String EXTRA_ATTEMPT = "attempt";
+    private static final String EXTRA_PART = "part";
+
+    private final Context appContext;
+    private final Executor executor;
+    private final AtomicInteger requestCodes = new AtomicInteger();
+    private EmergencyMessenger messenger;
+
+    SmsManagerGateway(Context appContext, Executor executor) {
+        this.appContext = appContext;
+        this.executor = executor;
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(ACTION_SENT);
+        filter.addAction(ACTION_DELIVERED);
+        ContextCompat.registerReceiver(appContext, this, filter, ContextCompat.RECEIVER_NOT_EXPORTED);
+    }
+
+    void attach(EmergencyMessenger messenger) {
+        this.messenger = messenger;
+    }
+
+    @Override
+    public List<String> divide(String text) {
+        return smsManager().divideMessage(text);
+    }
+
+    @Override
+    public void send(long roundId, int contact, int attempt, String phone, List<String> parts) {
+        ArrayList<PendingIntent> sent = new ArrayList<>(parts.size());
+        ArrayList<PendingIntent> delivered = new ArrayList<>(parts.size());
+        for (int p = 0; p < parts.size(); p++) {
+            sent.add(report(ACTION_SENT, roundId, contact, attempt, p, PendingIntent.FLAG_IMMUTABLE));
+            // The delivery report PDU is filled into the intent, so that one must be mutable
+            delivered.add(report(ACTION_DELIVERED, roundId, contact, attempt, p,
+                    Build.VERSION.SDK_INT >= Build.VERSION_CODES.S ? PendingIntent.FLAG_MUTABLE : 0));
+        }
+        ArrayList<String> list = new ArrayList<>(parts);
+        executor.execute(() -> {
+            try {
+                smsManager().sendMultipartTextMessage(phone, null, list, sent, delivered);
+            } catch (RuntimeException e) {
+                // Never reached the radio: fail every part so the messenger retries
+                Log.e(TAG, "send failed", e);
+                for (int p = 0; p < list.size(); p++) {
+                    messenger.onSent(roundId, contact, attempt, p, false, SmsManager.RESULT_ERROR_GENERIC_FAILURE);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        EmergencyMessenger m = messenger;
+        if (m == null) return;
+        long round = intent.getLongExtra(EXTRA_ROUND, -1);
+        int contact = intent.getIntExtra(EXTRA_CONTACT, -1);
+        int attempt = intent.getIntExtra(EXTRA_ATTEMPT, -1);
+        int part = intent.getIntExtra(EXTRA_PART, -1);
+        if (ACTION_SENT.equals(intent.getAction())) {
+            int code = getResultCode();
+            m.onSent(round, contact, attempt, part, code == Activity.RESULT_OK, code);
+        } else if (ACTION_DELIVERED.equals(intent.getAction())) {
+            m.onDeliveryReport(round, contact, attempt, part, tpStatus(intent));
+        }
+    }
+
+    // TP-Status from the status report; an unreadable report counts as delivered (0)
+    private static int tpStatus(Intent intent) {
+        byte[] pdu = intent.getByteArrayExtra("pdu");
+        if (pdu == null) return 0;
+        try {
+            SmsMessage msg = SmsMessage.createFromPdu(pdu, intent.getStringExtra("format"));
+            return msg == null ? 0 : msg.getStatus();
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private PendingIntent report(String action, long round, int contact, int attempt, int part, int flags) {
+        Intent i = new Intent(action)
+                .setPackage(appContext.getPackageName())
+                .putExtra(EXTRA_ROUND, round)
+                .putExtra(EXTRA_CONTACT, contact)
+                .putExtra(EXTRA_ATTEMPT, attempt)
+                .putExtra(EXTRA_PART, part);
+        return PendingIntent.getBroadcast(appContext, requestCodes.incrementAndGet(), i, flags);
+    }
+
+    private SmsManager smsManager() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            return appContext.getSystemService(SmsManager.class);
+        }
+        return SmsManager.getDefault();
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.invisio;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Process-wide speech output. One TextToSpeech engine (TtsEngine), initialised once and
+ * shared by every screen instead of each activity paying the engine start-up cost.
+ *  - Priorities: EMERGENCY preempts everything and flushes lower-priority speech.
+ *  - One utterance is handed to the engine at a time; the next one is started from the
+ *    engine's completion callbacks (no fixed sleeps).
+ *  - Queued phrases sharing a suffix are coalesced ("car and person in front of you").
+ *  - Optional per-utterance DoneCallback, so callers can feed long text one chunk at a time.
+ *  - Every utterance has an owner (a screen, a reader); cancel(owner) drops only its speech,
+ *    and never EMERGENCY speech, which always plays out.
+ * Engine calls are made outside the state lock, in order, under a separate engine lock.
+ * The engine sits behind the Engine interface so the queue logic runs in JVM tests.
+ */
+final class SpeechManager {
+
+    private static final int MAX_PENDING = 8;
+    private static final int MAX_COALESCE = 3;
+
+    /** Lower ordinal = more urgent. */
+    enum Priority { EMERGENCY, HIGH, NORMAL }
+
+    interface ReadyCallback {
+        void onReady(boolean success);
+    }
+
+    /** Main thread. completed = false if the utterance was dropped, preempted or failed. */
+    interface DoneCallback {
+        void onDone(boolean completed);
+    }
+
+    /** The TTS engine. Reports back through engineReady() and utteranceFinished(). */
+    interface Engine {
+        /** Starts text, replacing anything playing; false if the engine refused it. */
+        boolean speak(String text, String utteranceId, Priority priority);
+
+        void stop();
+    }
+
+    private static final class Utterance {
+        final Object owner;
+        final String subject;
+        final String suffix;   // null = not coalescable
+        final Priority priority;
+        final DoneCallback done;
+        String id;
+        String text;
+
+        Utterance(Object owner, String subject, String suffix, Priority priority, DoneCallback done) {
+            this.owner = owner;
+            this.subject = subject;
+            this.suffix = suffix;
+            this.priority = priority;
+            this.done = done;
+        }
+
+        boolean sameAs(Utterance o) {
+            return owner == o.owner && priority == o.priority && subject.equals(o.subject)
+                    && (suffix == null ? o.suffix == null : suffix.equals(o.suffix));
+        }
+    }
+
+    private static SpeechManager instance;
+
+    static synchronized SpeechManager get(Context context) {
+        if (instance == null) {
+            Handler main = new Handler(Looper.getMainLooper());
+            instance = new SpeechManager(main::post);
+            instance.attach(new TtsEngine(context.getApplicationContext(), instance));
+        }
+        return instance;
+    }
+
+    private final Executor callbacks;
+    private final Object engineLock = new Object();   // taken before the state lock (this)
+    private Engine engine;
+    private final List<Utterance> pending = new ArrayList<>();
+    private final List<ReadyCallback> readyCallbacks = new ArrayList<>();
+    private Utterance current;
+    private long nextId = 0;
+
+    private boolean initDone = false;
+    private boolean ready = false;
+
+    /** callbacks: where Ready / Done callbacks run (the main thread in the app). */
+    SpeechManager(Executor callbacks) {
+        this.callbacks = callbacks;
+    }
+
+    void attach(Engine engine) {
+        this.engine = engine;
+    }
+
+    /** From the engine once initialisation finished. */
+    void engineReady(boolean success) {
+        List<ReadyCallback> waiting;
+        synchronized (engineLock) {
+            Utterance next;
+            synchronized (this) {
+                initDone = true;
+                ready = success;
+                if (!success) {
+                    for (Utterance u : pending) notifyDone(u, false);
+                    pending.clear();
+                }
+                waiting = new ArrayList<>(readyCallbacks);
+                readyCallbacks.clear();
+                next = success ? takeNextLocked() : null;
+            }
+            run(false, next);
+        }
+        for (ReadyCallback cb : waiting) callbacks.execute(() -> cb.onReady(success));
+    }
+
+    /** From the engine when an utterance completed (true) or errored / was stopped (false). */
+    void utteranceFinished(String utteranceId, boolean completed) {
+        synchronized (engineLock) {
+            Utterance next;
+            synchronized (this) {
+                if (current == null || !current.id.equals(utteranceId)) return;  // stale (preempted)
+                notifyDone(current, completed);
+                current = null;
+                next = takeNextLocked();
+            }
+            run(false, next);
+        }
+    }
+
+    /** Runs cb on the main thread once the engine is initialised (immediately if it already is). */
+    void whenReady(ReadyCallback cb) {
+        boolean ok;
+        synchronized (this) {
+            if (!initDone) {
+                readyCallbacks.add(cb);
+                return;
+            }
+            ok = ready;
+        }
+        callbacks.execute(() -> cb.onReady(ok));
+    }
+
+    synchronized boolean isReady() {
+        return ready;
+    }
+
+    /** Queue text behind anything already pending (EMERGENCY always goes first). */
+    void say(Object owner, String text, Priority priority) {
+        enqueue(new Utterance(owner, text, null, priority, null), priority == Priority.EMERGENCY);
+    }
+
+    /** Like say(), and reports on the main thread when the text finished or was dropped. */
+    void say(Object owner, String text, Priority priority, DoneCallback done) {
+        enqueue(new Utterance(owner, text, null, priority, done), priority == Priority.EMERGENCY);
+    }
+
+    /** Drop pending speech of the same or lower urgency and speak text right away. */
+    void sayNow(Object owner, String text, Priority priority) {
+        enqueue(new Utterance(owner, text, null, priority, null), true);
+    }
+
+    /** Like sayNow(), and reports on the main thread when the text finished or was dropped. */
+    void sayNow(Object owner, String text, Priority priority, DoneCallback done) {
+        enqueue(new Utterance(owner, text, null, priority, done), true);
+    }
+
+    /**
+     * Queue "subject suffix"; while it waits, other phrases from the same owner with the
+     * same priority and suffix are merged into one utterance ("car and person ahead").
+     */
+    void sayCoalesced(Object owner, String subject, String suffix, Priority priority) {
+        enqueue(new Utterance(owner, subject, suffix, priority, null), false);
+    }
+
+    /** Number of queued or playing utterances at this priority. */
+    synchronized int pendingCount(Priority priority) {
+        int n = (current != null && current.priority == priority) ? 1 : 0;
+        for (Utterance u : pending) if (u.priority == priority) n++;
+        return n;
+    }
+
+    /** Silence and drop this owner's non-EMERGENCY speech; other owners' speech is untouched. */
+    void cancel(Object owner) {
+        synchronized (engineLock) {
+            boolean stop = false;
+            Utterance next = null;
+            synchronized (this) {
+                for (int i = pending.size() - 1; i >= 0; i--) {
+                    if (cancels(pending.get(i), owner)) notifyDone(pending.remove(i), false);
+                }
+                if (current != null && cancels(current, owner)) {
+                    notifyDone(current, false);
+                    current = null;
+                    stop = true;
+                    next = takeNextLocked();
+                }
+            }
+            run(stop, next);
+        }
+    }
+
+    private static boolean cancels(Utterance u, Object owner) {
+        return u.owner == owner && u.priority != Priority.EMERGENCY;
+    }
+
+    private void enqueue(Utterance u, boolean flush) {
+        if (u.subject == null || u.subject.trim().length() < 2) {
+            notifyDone(u, false);
+            return;
+        }
+        synchronized (engineLock) {
+            boolean stop = false;
+            Utterance next = null;
+            synchronized (this) {
+                if (initDone && !ready) {
+                    notifyDone(u, false);
+                    return;
+                }
+
+                if (flush) {
+                    for (int i = pending.size() - 1; i >= 0; i--) {
+                        if (pending.get(i).priority.ordinal() >= u.priority.ordinal()) notifyDone(pending.remove(i), false);
+                    }
+                } else if (u.done == null) {
+                    for (Utterance p : pending) {
+                        if (u.sameAs(p)) return;
+                    }
+                }
+
+                int pos = 0;
+                if (flush) {
+                    while (pos < pending.size() && pending.get(pos).priority.ordinal() < u.priority.ordinal()) pos++;
+                } else {
+                    while (pos < pending.size() && pending.get(pos).priority.ordinal() <= u.priority.ordinal()) pos++;
+                }
+                pending.add(pos, u);
+                while (pending.size() > MAX_PENDING) notifyDone(pending.remove(pending.size() - 1), false);
+
+                if (!ready) return;
+                if (current == null) {
+                    next = takeNextLocked();
+                } else if (u.priority.ordinal() < current.priority.ordinal()
+                        || (flush && u.priority.ordinal() <= current.priority.ordinal())) {
+                    // Preempt: stop() reports the old id as finished, which is ignored as stale
+                    notifyDone(current, false);
+                    current = null;
+                    stop = true;
+                    next = takeNextLocked();
+                }
+            }
+            run(stop, next);
+        }
+    }
+
+    // Engine lock held, state lock not: the engine may call back synchronously
+    private void run(boolean stop, Utterance next) {
+        if (stop) engine.stop();
+        while (next != null) {
+            if (engine.speak(next.text, next.id, next.priority)) return;
+            synchronized (this) {
+                if (current != next) return;
+                notifyDone(next, false);
+                current = null;
+                next = takeNextLocked();
+            }
+        }
+    }
+
+    // Pops the next utterance (coalescing its suffix group) and makes it current
+    private Utterance takeNextLocked() {
+        if (current != null || pending.isEmpty()) return null;
+        Utterance u = pending.remove(0);
+
+        if (u.suffix != null) {
+            List<String> subjects = new ArrayList<>();
+            subjects.add(u.subject);
+            for (int i = 0; i < pending.size() && subjects.size() < MAX_COALESCE; ) {
+                Utterance p = pending.get(i);
+                if (p.owner == u.owner && p.priority == u.priority && u.suffix.equals(p.suffix) && p.done == null) {
+                    if (!subjects.contains(p.subject)) subjects.add(p.subject);
+                    pending.remove(i);
+                } else {
+                    i++;
+                }
+            }
+            u.text = joinSubjects(subjects) + " " + u.suffix;
+        } else {
+            u.text = u.subject;
+        }
+
+        u.id = "SPK_" + (nextId++);
+        current = u;
+        return u;
+    }
+
+    private void notifyDone(Utterance u, boolean completed) {
+        if (u.done != null) callbacks.execute(() -> u.done.onDone(completed));
+    }
+
+    static String joinSubjects(List<String> s) {
+        if (s.size() == 1) return s.get(0);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < s.size(); i++) {
+            if (i > 0) sb.append(i == s.size() - 1 ? " and " : ", ");
+            sb.append(s.get(i));
+        }
+        return sb.toString();
+    }
+}
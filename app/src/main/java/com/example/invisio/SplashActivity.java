@@ -1,8 +1,10 @@
 package com.example.invisio;
 
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.StrictMode;
 import androidx.appcompat.app.AppCompatActivity;
 
 public class SplashActivity extends AppCompatActivity {
@@ -12,6 +14,14 @@ public class SplashActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            // Debug builds: log any disk access on the main thread (database work belongs in UserRepository)
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .penaltyLog()
+                    .build());
+        }
         setContentView(R.layout.activity_splash);
 
         // Hide action bar
@@ -22,7 +32,7 @@ public class SplashActivity extends AppCompatActivity {
         new Handler().postDelayed(new Runnable() {
             @Override
             public void run() {
-                SessionManager sessionManager = new SessionManager(SplashActivity.this);
+                SessionManager sessionManager = SessionManager.get(SplashActivity.this);
 
                 Intent intent;
                 if (sessionManager.isLoggedIn()) {
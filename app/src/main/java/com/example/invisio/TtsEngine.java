@@ -0,0 +1,65 @@
+package com.example.invisio;
+
+import android.content.Context;
+import android.speech.tts.TextToSpeech;
+import android.speech.tts.UtteranceProgressListener;
+import android.util.Log;
+
+import java.util.Locale;
+
+/**
+ * The TextToSpeech engine behind SpeechManager. Sets rate and pitch per priority and
+ * reports initialisation and utterance progress back to the manager.
+ */
+final class TtsEngine implements SpeechManager.Engine {
+
+    private static final String TAG = "SpeechManager";
+
+    private final TextToSpeech tts;
+
+    TtsEngine(Context appContext, SpeechManager manager) {
+        tts = new TextToSpeech(appContext, status -> {
+            boolean ok = status == TextToSpeech.SUCCESS;
+            if (ok) {
+                this.tts.setLanguage(Locale.US);
+                this.tts.setSpeechRate(0.9f);
+                Log.i(TAG, "TTS ready");
+            } else {
+                Log.e(TAG, "TTS initialization failed");
+            }
+            manager.engineReady(ok);
+        });
+        tts.setOnUtteranceProgressListener(new UtteranceProgressListener() {
+            @Override public void onStart(String utteranceId) {}
+
+            @Override public void onDone(String utteranceId) { manager.utteranceFinished(utteranceId, true); }
+
+            @Override public void onError(String utteranceId) { manager.utteranceFinished(utteranceId, false); }
+
+            @Override public void onStop(String utteranceId, boolean interrupted) {
+                manager.utteranceFinished(utteranceId, false);
+            }
+        });
+    }
+
+    @Override
+    public boolean speak(String text, String utteranceId, SpeechManager.Priority priority) {
+        if (priority == SpeechManager.Priority.EMERGENCY) {
+            tts.setSpeechRate(1.0f);
+            tts.setPitch(1.1f);
+        } else {
+            tts.setSpeechRate(0.9f);
+            tts.setPitch(1.0f);
+        }
+        if (tts.speak(text, TextToSpeech.QUEUE_FLUSH, null, utteranceId) != TextToSpeech.SUCCESS) {
+            Log.w(TAG, "speak() rejected: " + text);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void stop() {
+        tts.stop();
+    }
+}
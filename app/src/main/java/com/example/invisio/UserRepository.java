@@ -0,0 +1,187 @@
+package com.example.invisio;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Users and emergency contacts for the screens, never touching the database on the main thread:
+ *  - every query and write runs on one I/O thread; results come back on the main thread;
+ *  - users (by email) and contact lists (by user id) are cached in memory;
+ *  - the contact cache is dropped on every write (DatabaseHelper.ContactsListener);
+ *  - passwords are stored as PasswordHasher (PBKDF2) hashes; the iteration count is calibrated
+ *    once per install on the I/O thread, and plain-text or weaker rows are rehashed at login.
+ */
+final class UserRepository implements DatabaseHelper.ContactsListener, SessionManager.Listener {
+
+    private static final String TAG = "UserRepository";
+    private static final String PREFS = "invisio_security";
+    private static final String KEY_ITERATIONS = "pbkdf2_iterations";
+    private static final long HASH_BUDGET_MS = 250;
+
+    enum LoginResult { OK, NO_ACCOUNT, WRONG_PASSWORD }
+
+    enum RegisterResult { OK, EXISTS, FAILED }
+
+    /** Result on the main thread. */
+    interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /** Login outcome on the main thread; user is set only for OK. */
+    interface LoginCallback {
+        void onLogin(LoginResult result, User user);
+    }
+
+    private static UserRepository instance;
+
+    static synchronized UserRepository get(Context context) {
+        if (instance == null) instance = new UserRepository(context.getApplicationContext());
+        return instance;
+    }
+
+    private final Context appContext;
+    private final DatabaseHelper db;
+    private PasswordHasher hasher;   // I/O thread only
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "UserRepository-IO");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+    private final Map<Integer, List<EmergencyContact>> contacts = new ConcurrentHashMap<>();
+
+    private UserRepository(Context appContext) {
+        this.appContext = appContext;
+        db = DatabaseHelper.get(appContext);
+        DatabaseHelper.addContactsListener(this);
+        SessionManager.get(appContext).addListener(this);
+        io.execute(this::hasher);   // calibrate before the first login needs it
+    }
+
+    void login(String email, String password, LoginCallback cb) {
+        String key = key(email);
+        io.execute(() -> {
+            LoginResult result;
+            User user = null;
+            String stored = db.getStoredPassword(key);
+            PasswordHasher.Check check = stored != null ? hasher().check(password, stored) : null;
+            if (check == null) {
+                result = LoginResult.NO_ACCOUNT;
+            } else if (!check.ok) {
+                result = LoginResult.WRONG_PASSWORD;
+            } else {
+                if (check.upgrade != null && db.updatePassword(key, check.upgrade)) {
+                    Log.i(TAG, "password rehashed at " + hasher().iterations() + " iterations");
+                }
+                user = loadUser(key);
+                result = user != null ? LoginResult.OK : LoginResult.WRONG_PASSWORD;
+            }
+            LoginResult r = result;
+            User u = user;
+            mainHandler.post(() -> cb.onLogin(r, u));
+        });
+    }
+
+    void register(String fullName, String email, String password, Callback<RegisterResult> cb) {
+        String key = key(email);
+        io.execute(() -> {
+            RegisterResult result;
+            if (users.containsKey(key) || db.userExists(key)) {
+                result = RegisterResult.EXISTS;
+            } else {
+                String hash = hasher().hash(password);
+                result = db.registerUser(fullName, key, hash) ? RegisterResult.OK : RegisterResult.FAILED;
+            }
+            Log.d(TAG, "register: " + result);
+            post(cb, result);
+        });
+    }
+
+    /**
+     * Contacts of a user in priority order (unmodifiable; cached until the next contact write).
+     * Always answered through the main-thread queue, never inside this call, even on a cache hit.
+     */
+    void contacts(int userId, Callback<List<EmergencyContact>> cb) {
+        List<EmergencyContact> cached = contacts.get(userId);
+        if (cached != null) {
+            post(cb, cached);
+            return;
+        }
+        io.execute(() -> post(cb, loadContacts(userId)));
+    }
+
+    void addContact(int userId, String name, String phone, String relationship, int priority,
+                    Callback<Boolean> cb) {
+        io.execute(() -> post(cb, db.addEmergencyContact(userId, name, phone, relationship, priority) != -1));
+    }
+
+    void deleteContact(int contactId, Callback<Boolean> cb) {
+        io.execute(() -> post(cb, db.deleteEmergencyContact(contactId)));
+    }
+
+    @Override
+    public void onContactsChanged() {
+        contacts.clear();
+    }
+
+    // Logout: forget the previous user's data
+    @Override
+    public void onSessionChanged(SessionManager session) {
+        if (session.isLoggedIn()) return;
+        users.clear();
+        contacts.clear();
+    }
+
+    // I/O thread. Calibrated once per install (the result is per device), then read from prefs.
+    private PasswordHasher hasher() {
+        if (hasher != null) return hasher;
+        SharedPreferences prefs = appContext.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        int iterations = prefs.getInt(KEY_ITERATIONS, 0);
+        if (iterations <= 0) {
+            long t0 = System.nanoTime();
+            iterations = PasswordHasher.calibrate(HASH_BUDGET_MS);
+            prefs.edit().putInt(KEY_ITERATIONS, iterations).apply();
+            Log.i(TAG, "PBKDF2 calibrated to " + iterations + " iterations in "
+                    + (System.nanoTime() - t0) / 1_000_000 + " ms");
+        }
+        hasher = new PasswordHasher(iterations);
+        return hasher;
+    }
+
+    // I/O thread
+    private User loadUser(String key) {
+        User user = users.get(key);
+        if (user != null) return user;
+        user = db.getUserDetails(key);
+        if (user != null) users.put(key, user);
+        return user;
+    }
+
+    // I/O thread. Contact writes run on this thread too, so a load never races the invalidation.
+    private List<EmergencyContact> loadContacts(int userId) {
+        List<EmergencyContact> list = contacts.get(userId);
+        if (list != null) return list;
+        list = Collections.unmodifiableList(db.getEmergencyContacts(userId));
+        contacts.put(userId, list);
+        return list;
+    }
+
+    private <T> void post(Callback<T> cb, T result) {
+        mainHandler.post(() -> cb.onResult(result));
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase().trim();
+    }
+}
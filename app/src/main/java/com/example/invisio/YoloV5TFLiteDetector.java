@@ -3,8 +3,6 @@ package com.example.invisio;
 import android.content.Context;
 import android.content.res.AssetFileDescriptor;
 import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.Matrix;
 import android.graphics.RectF;
 import android.util.Log;
 import android.util.Pair;
@@ -39,36 +37,50 @@ public class YoloV5TFLiteDetector {
         public String position;
     }
 
+    /** Letterbox mapping for one frame (model <-> source bitmap). */
+    private static class Letterbox {
+        float scale = 1f;
+        float dx = 0f, dy = 0f;
+        int srcW = 0, srcH = 0;
+    }
+
     private final Interpreter interpreter;
     private final int inW, inH;
     private final List<String> labels;
 
     // Buffers
     private final float[][][][] input;    // [1][inH][inW][3]
-    private final int[] rgbBuffer;        // inW * inH
+    private int[] srcPixels = new int[0]; // srcW * srcH, grown on demand
     private final float[][][] output;     // [1][N][C]
 
+    // Batched buffers (allocated lazily once a batch > 1 is requested)
+    private float[][][][] batchInput;     // [B][inH][inW][3]
+    private float[][][] batchOutput;      // [B][N][C]
+    private int currentBatch = 1;
+    private boolean batchUnsupported = false;
+
     // Thresholds
     private final float confThreshold = 0.25f;
     private final float iouThreshold  = 0.45f;
 
-    // Preprocess canvas (letterbox)
-    private final Bitmap modelCanvas;     // ARGB_8888 (inW x inH)
-    private final Canvas drawCanvas = new Canvas();
-    private final Matrix drawMatrix = new Matrix();
+    // Preprocess (letterbox resize straight into the input tensor)
+    private final LetterboxResizer resizer;
 
     // Remember last letterbox mapping (model <-> source bitmap)
-    private float lastScale = 1f;
-    private float lastDx = 0f, lastDy = 0f;
-    private int lastSrcW = 0, lastSrcH = 0;
+    private final Letterbox lastBox = new Letterbox();
 
     private static final String TAG = "InVisio";
 
     public YoloV5TFLiteDetector(Context ctx, String modelAsset, String labelsAsset) throws Exception {
+        this(ctx, modelAsset, labelsAsset, true);
+    }
+
+    /** @param allowGpu false forces the CPU path (e.g. for batched runs, which the GPU delegate can't resize). */
+    public YoloV5TFLiteDetector(Context ctx, String modelAsset, String labelsAsset, boolean allowGpu) throws Exception {
         Interpreter.Options opts = new Interpreter.Options();
         try {
             CompatibilityList cl = new CompatibilityList();
-            if (cl.isDelegateSupportedOnThisDevice()) {
+            if (allowGpu && cl.isDelegateSupportedOnThisDevice()) {
                 GpuDelegate gpu = new GpuDelegate();
                 opts.addDelegate(gpu);
             } else {
@@ -86,10 +98,7 @@ public class YoloV5TFLiteDetector {
         output = new float[outShape[0]][outShape[1]][outShape[2]];
 
         input = new float[1][inH][inW][3];
-        rgbBuffer = new int[inW * inH];
-
-        modelCanvas = Bitmap.createBitmap(inW, inH, Bitmap.Config.ARGB_8888);
-        drawCanvas.setBitmap(modelCanvas);
+        resizer = new LetterboxResizer(inW, inH, ComputePool.get());
 
         labels = loadLabels(ctx, labelsAsset);
     }
@@ -109,41 +118,8 @@ public class YoloV5TFLiteDetector {
     public Pair<List<Det>, float[]> detect(Bitmap src) {
         long t0 = System.nanoTime();
 
-        // Letterbox src into modelCanvas (inW x inH), gray pad (114)
-        drawCanvas.drawARGB(255, 114, 114, 114);
-
-        lastSrcW = src.getWidth();
-        lastSrcH = src.getHeight();
-
-        float scale = Math.min(inW / (float) lastSrcW, inH / (float) lastSrcH);
-        int newW = Math.round(lastSrcW * scale);
-        int newH = Math.round(lastSrcH * scale);
-        float dx = (inW - newW) / 2f;
-        float dy = (inH - newH) / 2f;
-
-        lastScale = scale;
-        lastDx = dx;
-        lastDy = dy;
-
-        drawMatrix.reset();
-        drawMatrix.postScale(scale, scale);
-        drawMatrix.postTranslate(dx, dy);
-        drawCanvas.drawBitmap(src, drawMatrix, null);
-
-        // Pack into float [0..1]
-        modelCanvas.getPixels(rgbBuffer, 0, inW, 0, 0, inW, inH);
-        int idx = 0;
-        for (int y = 0; y < inH; y++) {
-            for (int x = 0; x < inW; x++) {
-                int p = rgbBuffer[idx++];
-                float r = ((p >> 16) & 0xFF) / 255f;
-                float g = ((p >> 8)  & 0xFF) / 255f;
-                float b = (p & 0xFF) / 255f;
-                input[0][y][x][0] = r;
-                input[0][y][x][1] = g;
-                input[0][y][x][2] = b;
-            }
-        }
+        ensureBatch(1);
+        letterbox(src, lastBox, input[0]);
 
         // Inference
         interpreter.run(input, output);
@@ -157,14 +133,111 @@ public class YoloV5TFLiteDetector {
         // If your export outputs pixel coords (not normalized), set this to false
         boolean normalizedCoords = true;
 
-        List<Det> raw = parseDetections(output[0], normalizedCoords);
+        List<Det> raw = parseDetections(output[0], normalizedCoords, lastBox);
         List<Det> kept = nms(raw, iouThreshold);
 
         long t2 = System.nanoTime();
         return new Pair<>(kept, new float[]{ (t1 - t0)/1e6f, (t2 - t1)/1e6f });
     }
 
-    private List<Det> parseDetections(float[][] preds, boolean normalizedCoords) {
+    /**
+     * Runs several frames through one interpreter call (input resized to [B,H,W,3]).
+     * Each frame keeps its own letterbox mapping, so boxSrc is correct per frame.
+     * Falls back to frame-by-frame inference if the model/delegate can't be resized.
+     */
+    public Pair<List<List<Det>>, float[]> detect(List<Bitmap> frames) {
+        int n = frames.size();
+        List<List<Det>> results = new ArrayList<>(n);
+        if (n == 0) return new Pair<>(results, new float[]{ 0f, 0f });
+
+        if (n == 1 || !ensureBatch(n)) {
+            float pre = 0f, post = 0f;
+            for (Bitmap b : frames) {
+                Pair<List<Det>, float[]> r = detect(b);
+                results.add(r.first);
+                pre += r.second[0];
+                post += r.second[1];
+            }
+            return new Pair<>(results, new float[]{ pre, post });
+        }
+
+        long t0 = System.nanoTime();
+
+        Letterbox[] boxes = new Letterbox[n];
+        for (int i = 0; i < n; i++) {
+            boxes[i] = new Letterbox();
+            letterbox(frames.get(i), boxes[i], batchInput[i]);
+        }
+
+        interpreter.run(batchInput, batchOutput);
+        Log.i(TAG, "Batch infer ok. B=" + n);
+
+        long t1 = System.nanoTime();
+
+        for (int i = 0; i < n; i++) {
+            results.add(nms(parseDetections(batchOutput[i], true, boxes[i]), iouThreshold));
+        }
+
+        long t2 = System.nanoTime();
+        return new Pair<>(results, new float[]{ (t1 - t0)/1e6f, (t2 - t1)/1e6f });
+    }
+
+    /**
+     * Resizes the input tensor to batch n if needed. Returns false if the model can't take
+     * that batch; the interpreter is then put back to batch 1 so single-frame detect() works.
+     */
+    private boolean ensureBatch(int n) {
+        if (n == currentBatch) return true;
+        if (n > 1 && batchUnsupported) return false;
+        try {
+            interpreter.resizeInput(0, new int[]{ n, inH, inW, 3 });
+            interpreter.allocateTensors();
+            if (n > 1 && (batchInput == null || batchInput.length != n)) {
+                int[] outShape = interpreter.getOutputTensor(0).shape(); // [B, N, C]
+                batchInput = new float[n][inH][inW][3];
+                batchOutput = new float[outShape[0]][outShape[1]][outShape[2]];
+            }
+            currentBatch = n;
+            return true;
+        } catch (Throwable t) {
+            Log.w(TAG, "Batch " + n + " not supported by model/delegate", t);
+            if (n > 1) batchUnsupported = true;
+            resetToSingle();
+            return false;
+        }
+    }
+
+    // After a failed resize the tensors are in an unknown shape; 0 = unknown, retried next call
+    private void resetToSingle() {
+        currentBatch = 0;
+        try {
+            interpreter.resizeInput(0, new int[]{ 1, inH, inW, 3 });
+            interpreter.allocateTensors();
+            currentBatch = 1;
+        } catch (Throwable t) {
+            Log.e(TAG, "Could not restore batch 1", t);
+        }
+    }
+
+    /** Letterbox src into dst ([inH][inW][3], normalized, gray pad 114) and record the mapping. */
+    private void letterbox(Bitmap src, Letterbox lb, float[][][] dst) {
+        lb.srcW = src.getWidth();
+        lb.srcH = src.getHeight();
+
+        float scale = Math.min(inW / (float) lb.srcW, inH / (float) lb.srcH);
+        int newW = Math.round(lb.srcW * scale);
+        int newH = Math.round(lb.srcH * scale);
+        lb.scale = scale;
+        lb.dx = (inW - newW) / 2f;
+        lb.dy = (inH - newH) / 2f;
+
+        int n = lb.srcW * lb.srcH;
+        if (srcPixels.length < n) srcPixels = new int[n];
+        src.getPixels(srcPixels, 0, lb.srcW, 0, 0, lb.srcW, lb.srcH);
+        resizer.resize(srcPixels, lb.srcW, lb.srcH, scale, lb.dx, lb.dy, dst);
+    }
+
+    private List<Det> parseDetections(float[][] preds, boolean normalizedCoords, Letterbox lb) {
         List<Det> out = new ArrayList<>();
         for (float[] d : preds) {
             if (d.length < 6) continue;
@@ -199,16 +272,16 @@ public class YoloV5TFLiteDetector {
             RectF boxModel = new RectF(x1, y1, x2, y2);
 
             // Map model-space box -> source bitmap space (invert letterbox)
-            float inv = (lastScale == 0f) ? 1f : (1f / lastScale);
-            float sx1 = (boxModel.left   - lastDx) * inv;
-            float sy1 = (boxModel.top    - lastDy) * inv;
-            float sx2 = (boxModel.right  - lastDx) * inv;
-            float sy2 = (boxModel.bottom - lastDy) * inv;
-
-            sx1 = clamp(sx1, 0, Math.max(0, lastSrcW - 1));
-            sy1 = clamp(sy1, 0, Math.max(0, lastSrcH - 1));
-            sx2 = clamp(sx2, 0, Math.max(0, lastSrcW - 1));
-            sy2 = clamp(sy2, 0, Math.max(0, lastSrcH - 1));
+            float inv = (lb.scale == 0f) ? 1f : (1f / lb.scale);
+            float sx1 = (boxModel.left   - lb.dx) * inv;
+            float sy1 = (boxModel.top    - lb.dy) * inv;
+            float sx2 = (boxModel.right  - lb.dx) * inv;
+            float sy2 = (boxModel.bottom - lb.dy) * inv;
+
+            sx1 = clamp(sx1, 0, Math.max(0, lb.srcW - 1));
+            sy1 = clamp(sy1, 0, Math.max(0, lb.srcH - 1));
+            sx2 = clamp(sx2, 0, Math.max(0, lb.srcW - 1));
+            sy2 = clamp(sy2, 0, Math.max(0, lb.srcH - 1));
             RectF boxSrc = new RectF(sx1, sy1, sx2, sy2);
 
             // Position string uses model width thirds (fine for voice cue)
@@ -298,5 +371,8 @@ public class YoloV5TFLiteDetector {
         return list;
     }
 
-    public void close() { interpreter.close(); }
+    public void close() {
+        interpreter.close();
+        resizer.close();
+    }
 }
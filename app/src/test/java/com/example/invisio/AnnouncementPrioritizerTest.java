@@ -0,0 +1,131 @@
+package com.example.invisio;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AnnouncementPrioritizerTest {
+
+    private static final int FW = 640, FH = 480;
+
+    private final AnnouncementPrioritizer p = new AnnouncementPrioritizer();
+
+    // Box given as centre and size in pixels
+    private void offer(String label, String position, float cx, float cy, float size, long now) {
+        p.offer(label, position, 0.9f, cx - size / 2, cy - size / 2, cx + size / 2, cy + size / 2, FW, FH, now);
+    }
+
+    @Test
+    public void mostUrgentFirst() {
+        offer("cup", "in front of you", 320, 240, 200, 0);
+        offer("person", "on your left", 60, 240, 80, 0);
+        offer("car", "in front of you", 320, 240, 120, 0);
+        p.endFrame(0);
+
+        assertEquals("car", p.poll(10).subject);      // danger outweighs the bigger cup
+        assertEquals("cup", p.poll(10).subject);      // size and centrality
+        assertEquals("person", p.poll(10).subject);
+        assertNull(p.poll(10));
+    }
+
+    @Test
+    public void queueKeepsTheThreeBest() {
+        offer("bench", "on your right", 600, 240, 40, 0);
+        offer("car", "in front of you", 320, 240, 150, 0);
+        offer("dog", "on your left", 100, 240, 80, 0);
+        offer("bus", "in front of you", 320, 100, 150, 0);
+        offer("cup", "on your right", 560, 400, 30, 0);
+        p.endFrame(0);
+
+        assertEquals("car", p.poll(0).subject);
+        assertEquals("bus", p.poll(0).subject);
+        assertEquals("dog", p.poll(0).subject);
+        assertNull(p.poll(0));
+    }
+
+    @Test
+    public void staleEntriesAreDropped() {
+        offer("car", "in front of you", 320, 240, 150, 0);
+        p.endFrame(0);
+        assertNull(p.poll(1501));
+
+        offer("car", "in front of you", 320, 240, 150, 2000);
+        p.endFrame(2000);
+        assertNotNull(p.poll(3500));
+    }
+
+    @Test
+    public void newerFrameReplacesTheQueuedEntry() {
+        offer("person", "on your left", 150, 240, 100, 0);
+        p.endFrame(0);
+        offer("person", "in front of you", 200, 240, 100, 100);   // walked right a little
+        p.endFrame(100);
+        assertEquals("in front of you", p.poll(100).position);
+        assertNull(p.poll(100));
+    }
+
+    @Test
+    public void cooldownFollowsTheObjectAcrossPositions() {
+        offer("person", "on your left", 150, 240, 100, 0);
+        p.endFrame(0);
+        assertNotNull(p.poll(0));
+
+        // Same person crossing into the centre: still cooling down
+        long t = 0;
+        for (float cx = 170; cx <= 330; cx += 20) {
+            t += 500;
+            offer("person", cx < 213 ? "on your left" : "in front of you", cx, 240, 100, t);
+            p.endFrame(t);
+            assertNull(p.poll(t));
+        }
+
+        offer("person", "in front of you", 330, 240, 100, 8001);
+        p.endFrame(8001);
+        assertEquals("in front of you", p.poll(8001).position);
+    }
+
+    @Test
+    public void twoObjectsOfOneLabelAreTrackedSeparately() {
+        offer("person", "on your left", 100, 240, 100, 0);
+        offer("person", "on your right", 540, 240, 100, 0);
+        p.endFrame(0);
+        assertNotNull(p.poll(0));
+        assertNotNull(p.poll(0));
+
+        // A third person appearing in between is new, the other two stay quiet
+        offer("person", "on your left", 110, 240, 100, 500);
+        offer("person", "on your right", 530, 240, 100, 500);
+        offer("person", "in front of you", 320, 240, 100, 500);
+        p.endFrame(500);
+        assertEquals("in front of you", p.poll(500).position);
+        assertNull(p.poll(500));
+    }
+
+    @Test
+    public void approachingObjectBreaksTheCooldown() {
+        offer("car", "in front of you", 320, 240, 100, 0);
+        p.endFrame(0);
+        assertEquals("car", p.poll(0).subject);
+
+        offer("car", "in front of you", 320, 240, 140, 500);   // area about doubles in 0.5 s
+        p.endFrame(500);
+        assertEquals("car approaching", p.poll(500).subject);
+    }
+
+    @Test
+    public void unseenTrackKeepsItsCooldownThenIsForgotten() {
+        offer("dog", "on your left", 100, 240, 80, 0);
+        p.endFrame(0);
+        assertEquals("dog", p.poll(0).subject);
+
+        p.endFrame(3500);   // unseen past the track TTL, but still cooling down: kept
+        offer("dog", "on your left", 100, 240, 80, 3500);
+        p.endFrame(3500);
+        assertNull(p.poll(3500));
+
+        p.endFrame(14_000);   // unseen and cooled down: forgotten
+        offer("dog", "on your left", 100, 240, 80, 14_000);
+        p.endFrame(14_000);
+        assertEquals("dog", p.poll(14_000).subject);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.invisio;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BinarizerTest {
+
+    /** Text-like dark strokes on a page lit from one side. */
+    private static int[] unevenPage(int w, int h, long seed) {
+        Random rnd = new Random(seed);
+        int[] argb = new int[w * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int paper = 60 + 180 * x / w;               // dark left, bright right
+                boolean ink = (y % 12) < 3 && rnd.nextInt(4) != 0;
+                int v = Math.max(0, Math.min(255, (ink ? paper / 3 : paper) + rnd.nextInt(11) - 5));
+                argb[y * w + x] = 0xFF000000 | (v << 16) | (v << 8) | v;
+            }
+        }
+        return argb;
+    }
+
+    private static int[] reference(int[] src, int w, int h, Binarizer.Method m, int window) {
+        int[] l = new int[w * h];
+        int[] hist = new int[256];
+        for (int i = 0; i < l.length; i++) hist[l[i] = PixelConvert.luma(src[i])]++;
+        int otsu = Binarizer.otsu(hist, w * h);
+        int r = Math.max(1, window / 2);
+        int[] out = new int[w * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int v = l[y * w + x];
+                boolean white;
+                if (m == Binarizer.Method.OTSU) {
+                    white = v > otsu;
+                } else {
+                    long sum = 0, sq = 0;
+                    int n = 0;
+                    for (int j = Math.max(0, y - r); j < Math.min(h, y + r + 1); j++) {
+                        for (int i = Math.max(0, x - r); i < Math.min(w, x + r + 1); i++) {
+                            int p = l[j * w + i];
+                            sum += p;
+                            sq += p * p;
+                            n++;
+                        }
+                    }
+                    if (m == Binarizer.Method.BRADLEY) {
+                        white = (long) v * n * 100 >= sum * 85;
+                    } else {
+                        double mean = sum / (double) n;
+                        double var = Math.max(0.0, sq / (double) n - mean * mean);
+                        white = v > mean * (1.0 + Binarizer.SAUVOLA_K * (Math.sqrt(var) / Binarizer.SAUVOLA_R - 1.0));
+                    }
+                }
+                out[y * w + x] = white ? 0xFFFFFFFF : 0xFF000000;
+            }
+        }
+        return out;
+    }
+
+    @Test
+    public void matchesReferenceForAllMethodsAndWorkerCounts() {
+        int w = 67, h = 293;   // enough rows for 8 stripes
+        int[] src = unevenPage(w, h, 3);
+        for (Binarizer.Method m : Binarizer.Method.values()) {
+            int[] expected = reference(src, w, h, m, 15);
+            for (int workers : new int[]{ 1, 3, 8 }) {
+                Binarizer b = new Binarizer(workers);
+                int[] px = src.clone();
+                b.binarize(px, w, h, m, 15);
+                assertArrayEquals(m + " x" + workers, expected, px);
+                // Buffers are reused: a second call gives the same result
+                px = src.clone();
+                b.binarize(px, w, h, m, 15);
+                assertArrayEquals(m + " x" + workers + " (reuse)", expected, px);
+                b.close();
+            }
+        }
+    }
+
+    @Test
+    public void localMethodsKeepDarkSideText() {
+        int w = 200, h = 120;
+        int[] src = unevenPage(w, h, 7);
+        int[] otsu = src.clone(), sauvola = src.clone();
+        Binarizer b = new Binarizer(2);
+        b.binarize(otsu, w, h, Binarizer.Method.OTSU, 25);
+        b.binarize(sauvola, w, h, Binarizer.Method.SAUVOLA, 25);
+        b.close();
+        // Paper on the dark left edge (row 6 is between text lines)
+        int paperOtsu = 0, paperSauvola = 0;
+        for (int x = 0; x < w / 4; x++) {
+            if (otsu[6 * w + x] == 0xFFFFFFFF) paperOtsu++;
+            if (sauvola[6 * w + x] == 0xFFFFFFFF) paperSauvola++;
+        }
+        assertEquals(0, paperOtsu);
+        assertTrue("sauvola paper " + paperSauvola, paperSauvola > w / 4 * 9 / 10);
+    }
+
+    @Test
+    public void illuminationSpreadSeesGradient() {
+        byte[] flat = new byte[64 * 48];
+        java.util.Arrays.fill(flat, (byte) 200);
+        assertEquals(0f, Binarizer.illuminationSpread(flat, 64, 0, 0, 64, 48), 1e-6);
+        byte[] ramp = new byte[64 * 48];
+        for (int i = 0; i < ramp.length; i++) ramp[i] = (byte) (40 + 3 * (i % 64));
+        assertTrue(Binarizer.illuminationSpread(ramp, 64, 0, 0, 64, 48) > 0.5f);
+        // A narrow region of the ramp is nearly even
+        assertTrue(Binarizer.illuminationSpread(ramp, 64, 30, 0, 34, 48) < 0.05f);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.invisio;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+
+public class ComputePoolTest {
+
+    @Test
+    public void forStripesCoversEveryRowOnce() {
+        for (int threads : new int[]{ 1, 2, 3, 8 }) {
+            ComputePool pool = new ComputePool(threads);
+            for (int n : new int[]{ 0, 1, 7, 100, 1001 }) {
+                AtomicIntegerArray hits = new AtomicIntegerArray(Math.max(1, n));
+                pool.forStripes(n, 4, (from, to) -> {
+                    for (int i = from; i < to; i++) hits.incrementAndGet(i);
+                });
+                for (int i = 0; i < n; i++) assertEquals("n=" + n + " row " + i, 1, hits.get(i));
+            }
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void reduceMergesPartialHistograms() {
+        int n = 5000;
+        byte[] data = new byte[n];
+        for (int i = 0; i < n; i++) data[i] = (byte) (i * 31);
+        int[] expected = new int[256];
+        for (byte b : data) expected[b & 0xFF]++;
+
+        ComputePool pool = new ComputePool(4);
+        int[] hist = pool.reduce(n, 100, new ComputePool.Reducer<int[]>() {
+            @Override public int[] create() { return new int[256]; }
+
+            @Override public void accumulate(int[] h, int from, int to) {
+                for (int i = from; i < to; i++) h[data[i] & 0xFF]++;
+            }
+
+            @Override public void merge(int[] into, int[] from) {
+                for (int i = 0; i < 256; i++) into[i] += from[i];
+            }
+        });
+        pool.shutdown();
+        for (int i = 0; i < 256; i++) assertEquals(expected[i], hist[i]);
+    }
+
+    @Test
+    public void nestedCallsRunInline() {
+        ComputePool pool = new ComputePool(2);
+        int[] total = new int[1];
+        pool.forStripes(2, 1, (a, b) -> pool.forStripes(10, 1, (c, d) -> {
+            synchronized (total) { total[0] += d - c; }
+        }));
+        pool.shutdown();
+        assertEquals(20, total[0]);
+    }
+}
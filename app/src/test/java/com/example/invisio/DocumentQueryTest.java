@@ -0,0 +1,34 @@
+package com.example.invisio;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DocumentQueryTest {
+
+    @Test
+    public void documentTypeExpandsToTypicalWords() {
+        assertEquals("letter* OR dear OR sincerely OR regards", DocumentQuery.fts("Read my last letter"));
+        assertEquals("bills* OR invoice OR amount OR due OR payment", DocumentQuery.fts("find my bills"));
+    }
+
+    @Test
+    public void freeWordsArePrefixMatchedTogether() {
+        assertEquals("electricity* march*", DocumentQuery.fts("search for the electricity, March"));
+    }
+
+    @Test
+    public void noTopicMeansNewest() {
+        assertNull(DocumentQuery.fts("read my last document"));
+    }
+
+    @Test
+    public void recognisesRequests() {
+        assertTrue(DocumentQuery.isDocumentRequest("Read my last letter"));
+        assertTrue(DocumentQuery.isDocumentRequest("search bill"));
+        assertFalse(DocumentQuery.isDocumentRequest("read mate"));
+    }
+}
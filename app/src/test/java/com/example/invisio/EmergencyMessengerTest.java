@@ -0,0 +1,201 @@
+package com.example.invisio;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EmergencyMessengerTest {
+
+    // Stand-in for SmsManager: records sends, splits every 20 characters like divideMessage
+    private static final class FakeSms implements EmergencyMessenger.Gateway {
+        final List<long[]> sends = new ArrayList<>();   // { contact, attempt, parts }
+        int failNextSends;
+
+        @Override
+        public List<String> divide(String text) {
+            List<String> parts = new ArrayList<>();
+            for (int i = 0; i < text.length(); i += 20) parts.add(text.substring(i, Math.min(text.length(), i + 20)));
+            return parts;
+        }
+
+        @Override
+        public void send(long roundId, int contact, int attempt, String phone, List<String> parts) {
+            if (failNextSends > 0) {
+                failNextSends--;
+                throw new IllegalStateException("radio off");
+            }
+            sends.add(new long[]{ contact, attempt, parts.size() });
+        }
+    }
+
+    private static final class ManualScheduler implements EmergencyMessenger.Scheduler {
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<Long> delays = new ArrayList<>();
+
+        @Override
+        public void schedule(Runnable task, long delayMs) {
+            tasks.add(task);
+            delays.add(delayMs);
+        }
+
+        void runAll() {
+            List<Runnable> due = new ArrayList<>(tasks);
+            tasks.clear();
+            for (Runnable r : due) r.run();
+        }
+    }
+
+    private FakeSms sms;
+    private ManualScheduler scheduler;
+    private List<String> saved;
+    private EmergencyMessenger messenger;
+
+    private static final long ROUND = 42;
+    private static final String TEXT = "EMERGENCY: Sam has activated emergency mode. Please check on them.";  // 4 parts
+
+    @Before
+    public void setUp() {
+        sms = new FakeSms();
+        scheduler = new ManualScheduler();
+        saved = new ArrayList<>();
+        messenger = new EmergencyMessenger(sms,
+                (round, r) -> saved.add(r.name + ":" + r.state + "#" + r.attempts), scheduler);
+    }
+
+    private static List<EmergencyContact> contacts(int n) {
+        List<EmergencyContact> list = new ArrayList<>();
+        for (int i = 0; i < n; i++) list.add(new EmergencyContact(10 + i, "C" + i, "555-000" + i, "Family", i + 1, 1));
+        return list;
+    }
+
+    private void reportAll(int contact, int attempt, boolean delivered) {
+        for (int p = 0; p < 4; p++) messenger.onSent(ROUND, contact, attempt, p, true, 0);
+        if (delivered) for (int p = 0; p < 4; p++) messenger.onDelivered(ROUND, contact, attempt, p, true);
+    }
+
+    @Test
+    public void multipartSentThenDeliveredPerContact() {
+        messenger.start(ROUND, contacts(3), TEXT);
+        assertEquals(3, sms.sends.size());
+        assertEquals(4, sms.sends.get(0)[2]);
+
+        // Sent only once every part reported
+        for (int p = 0; p < 3; p++) messenger.onSent(ROUND, 0, 1, p, true, 0);
+        assertEquals(EmergencyMessenger.State.SENDING, messenger.recipients().get(0).state);
+        messenger.onSent(ROUND, 0, 1, 3, true, 0);
+        assertEquals(EmergencyMessenger.State.SENT, messenger.recipients().get(0).state);
+
+        for (int p = 0; p < 4; p++) messenger.onDelivered(ROUND, 0, 1, p, true);
+        reportAll(1, 1, true);
+        reportAll(2, 1, false);
+
+        assertEquals("Alerts delivered to 2 of 3 contacts, 1 sent awaiting delivery", messenger.summary());
+        assertFalse(messenger.inProgress());
+        assertEquals(Arrays.asList("C0:SENDING#1", "C1:SENDING#1", "C2:SENDING#1", "C0:SENT#1", "C0:DELIVERED#1",
+                "C1:SENT#1", "C1:DELIVERED#1", "C2:SENT#1"), saved);
+    }
+
+    @Test
+    public void failedPartRetriesWithBackoffThenGivesUp() {
+        messenger.start(ROUND, contacts(1), TEXT);
+        for (int attempt = 1; attempt <= EmergencyMessenger.MAX_ATTEMPTS; attempt++) {
+            messenger.onSent(ROUND, 0, attempt, 1, false, 4 /* no service */);
+            scheduler.runAll();
+        }
+        assertEquals(Arrays.asList(2000L, 4000L, 8000L), scheduler.delays);
+        assertEquals(EmergencyMessenger.MAX_ATTEMPTS, sms.sends.size());
+        EmergencyMessenger.Recipient r = messenger.recipients().get(0);
+        assertEquals(EmergencyMessenger.State.FAILED, r.state);
+        assertEquals(4, r.lastError);
+        assertEquals("Alerts delivered to 0 of 1 contact, 1 failed", messenger.summary());
+    }
+
+    @Test
+    public void retrySucceedsAndStaleReportsAreIgnored() {
+        sms.failNextSends = 1;   // gateway throws on the first attempt
+        messenger.start(ROUND, contacts(1), TEXT);
+        assertTrue(messenger.inProgress());
+        assertEquals(EmergencyMessenger.State.RETRY_WAIT, messenger.recipients().get(0).state);
+        scheduler.runAll();
+        assertEquals(2, sms.sends.get(0)[1]);
+
+        // Late reports for attempt 1 or an older round change nothing
+        reportAll(0, 1, true);
+        messenger.onSent(ROUND - 1, 0, 2, 0, true, 0);
+        assertEquals(EmergencyMessenger.State.SENDING, messenger.recipients().get(0).state);
+
+        // Delivery reports may overtake sent reports
+        for (int p = 0; p < 4; p++) messenger.onDelivered(ROUND, 0, 2, p, true);
+        for (int p = 0; p < 4; p++) messenger.onSent(ROUND, 0, 2, p, true, 0);
+        assertEquals(EmergencyMessenger.State.DELIVERED, messenger.recipients().get(0).state);
+        assertEquals("Alerts delivered to 1 of 1 contact", messenger.summary());
+    }
+
+    @Test
+    public void failedDeliveryRetriesLikeAFailedSendThenGivesUp() {
+        messenger.start(ROUND, contacts(1), TEXT);
+        for (int attempt = 1; attempt <= EmergencyMessenger.MAX_ATTEMPTS; attempt++) {
+            for (int p = 0; p < 4; p++) messenger.onSent(ROUND, 0, attempt, p, true, 0);
+            assertEquals(EmergencyMessenger.State.SENT, messenger.recipients().get(0).state);
+            messenger.onDelivered(ROUND, 0, attempt, 0, true);
+            messenger.onDelivered(ROUND, 0, attempt, 2, false);
+            messenger.onDelivered(ROUND, 0, attempt, 3, false);   // one retry per attempt, not per part
+            scheduler.runAll();
+        }
+        assertEquals(Arrays.asList(2000L, 4000L, 8000L), scheduler.delays);
+        assertEquals(EmergencyMessenger.MAX_ATTEMPTS, sms.sends.size());
+        assertEquals(EmergencyMessenger.State.FAILED, messenger.recipients().get(0).state);
+        assertFalse(messenger.inProgress());
+        assertEquals("Alerts delivered to 0 of 1 contact, 1 failed", messenger.summary());
+    }
+
+    @Test
+    public void failedDeliveryBeforeTheSentReportsAlsoRetries() {
+        messenger.start(ROUND, contacts(1), TEXT);
+        messenger.onDelivered(ROUND, 0, 1, 1, false);
+        assertEquals(EmergencyMessenger.State.RETRY_WAIT, messenger.recipients().get(0).state);
+        for (int p = 0; p < 4; p++) messenger.onSent(ROUND, 0, 1, p, true, 0);   // late, ignored
+        assertEquals(EmergencyMessenger.State.RETRY_WAIT, messenger.recipients().get(0).state);
+        scheduler.runAll();
+        reportAll(0, 2, true);
+        assertEquals(EmergencyMessenger.State.DELIVERED, messenger.recipients().get(0).state);
+    }
+
+    @Test
+    public void temporaryDeliveryErrorWaitsForTheFinalReport() {
+        messenger.start(ROUND, contacts(1), TEXT);
+        for (int p = 0; p < 4; p++) messenger.onSent(ROUND, 0, 1, p, true, 0);
+        messenger.onDeliveryReport(ROUND, 0, 1, 0, 0x00);
+        messenger.onDeliveryReport(ROUND, 0, 1, 1, 0x30);   // SC still trying
+        assertEquals(EmergencyMessenger.State.SENT, messenger.recipients().get(0).state);
+        assertTrue(scheduler.tasks.isEmpty());
+        assertEquals(1, sms.sends.size());
+
+        messenger.onDeliveryReport(ROUND, 0, 1, 1, 0x00);   // the SMSC's later report
+        messenger.onDeliveryReport(ROUND, 0, 1, 2, 0x00);
+        messenger.onDeliveryReport(ROUND, 0, 1, 3, 0x00);
+        assertEquals(EmergencyMessenger.State.DELIVERED, messenger.recipients().get(0).state);
+    }
+
+    @Test
+    public void permanentDeliveryErrorRetries() {
+        messenger.start(ROUND, contacts(1), TEXT);
+        for (int p = 0; p < 4; p++) messenger.onSent(ROUND, 0, 1, p, true, 0);
+        messenger.onDeliveryReport(ROUND, 0, 1, 0, 0x41);   // incompatible destination
+        assertEquals(EmergencyMessenger.State.RETRY_WAIT, messenger.recipients().get(0).state);
+        messenger.onDeliveryReport(ROUND, 0, 1, 1, 0x60);   // SC gave up; same attempt, no second retry
+        assertEquals(1, scheduler.tasks.size());
+    }
+
+    @Test
+    public void backoffIsCapped() {
+        assertEquals(2000, EmergencyMessenger.backoff(1));
+        assertEquals(16000, EmergencyMessenger.backoff(4));
+        assertEquals(EmergencyMessenger.BACKOFF_MAX_MS, EmergencyMessenger.backoff(10));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.invisio;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FallDetectorTest {
+
+    private static final String[] TRACES = {
+            "fall_forward", "fall_backward_slow",
+            "drop_pickup", "drop_bounces",
+            "adl_sit_down", "adl_walk_run", "adl_table_slam", "adl_shake_slow",
+            "shake_triple",
+    };
+
+    private static final float G = 9.80665f;
+
+    @Test
+    public void recordedTracesMatchTheirLabels() throws Exception {
+        int correct = 0;
+        StringBuilder report = new StringBuilder();
+        for (String name : TRACES) {
+            FallTraceReplay r = FallTraceReplay.run(name, new FallDetector());
+            report.append(r).append('\n');
+            if (r.correct()) correct++;
+        }
+        assertEquals(report.toString(), TRACES.length, correct);
+    }
+
+    @Test
+    public void batchedIdleRateKeepsAccuracy() throws Exception {
+        // 25 Hz delivered in 2 s FIFO batches, as the service samples while idle
+        for (String name : TRACES) {
+            FallTraceReplay r = FallTraceReplay.run(name, new FallDetector(), 2, 50);
+            assertTrue(r.toString(), r.correct());
+        }
+    }
+
+    @Test
+    public void blockResultsMatchSampleBySample() throws Exception {
+        for (String name : TRACES) {
+            FallTraceReplay single = FallTraceReplay.run(name, new FallDetector(), 1, 1);
+            FallTraceReplay blocks = FallTraceReplay.run(name, new FallDetector(), 1, 64);
+            assertEquals(name, single.events.size(), blocks.events.size());
+            for (int i = 0; i < single.events.size(); i++) {
+                assertEquals(name, single.events.get(i)[1], blocks.events.get(i)[1]);
+            }
+        }
+    }
+
+    @Test
+    public void impactWithoutFreeFallIsNotAFall() {
+        FallDetector d = new FallDetector();
+        long t = 0;
+        for (int i = 0; i < 50; i++, t += 20) d.add(t, 0, G, 0);
+        d.add(t, 0, 4 * G, 0);
+        t += 20;
+        for (int i = 0; i < 200; i++, t += 20) assertEquals(FallDetector.NONE, d.add(t, 0, 0, G));
+    }
+
+    @Test
+    public void freeFallImpactStillnessIsAFall() {
+        FallDetector d = new FallDetector();
+        long t = 0;
+        for (int i = 0; i < 50; i++, t += 20) d.add(t, 0, G, 0);
+        for (int i = 0; i < 15; i++, t += 20) d.add(t, 0, 0.2f * G, 0);
+        d.add(t, 0, 4 * G, 0);
+        assertTrue(d.isCandidate());
+        t += 20;
+        int fallAt = -1;
+        for (int i = 0; i < 200; i++, t += 20) {
+            if (d.add(t, 0, 0, G) == FallDetector.FALL) fallAt = i;
+        }
+        assertTrue(fallAt > 0);
+        assertEquals(4f, d.lastPeakG(), 0.01f);
+        // Cooldown: the same sequence straight away is ignored
+        for (int i = 0; i < 15; i++, t += 20) d.add(t, 0, 0.2f * G, 0);
+        d.add(t, 0, 4 * G, 0);
+        assertFalse(d.isCandidate());
+    }
+
+    @Test
+    public void shakePeakSpanningSeveralSamplesCountsOnce() {
+        FallDetector d = new FallDetector();
+        long t = 0;
+        int shakes = 0;
+        // Two peaks of four samples each at 200 Hz: not three shakes
+        for (int p = 0; p < 2; p++) {
+            for (int i = 0; i < 4; i++, t += 5) shakes += d.add(t, 0, 3.5f * G, 0) == FallDetector.SHAKE ? 1 : 0;
+            for (int i = 0; i < 40; i++, t += 5) shakes += d.add(t, 0, G, 0) == FallDetector.SHAKE ? 1 : 0;
+        }
+        assertEquals(0, shakes);
+        for (int i = 0; i < 4; i++, t += 5) shakes += d.add(t, 0, 3.5f * G, 0) == FallDetector.SHAKE ? 1 : 0;
+        assertEquals(1, shakes);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.invisio;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays a CSV accelerometer trace (t_ms,x,y,z in m/s²; '#' comments and a header line
+ * allowed) through a FallDetector. Traces live in src/test/resources/falls; the file name
+ * prefix is the label: fall_ expects FALL, shake_ expects SHAKE, drop_ / adl_ expect nothing.
+ */
+final class FallTraceReplay {
+
+    final String name;
+    final int expected;
+    final List<long[]> events = new ArrayList<>();   // { time ms, FALL / SHAKE }
+    int samples;
+    long nanos;
+
+    private FallTraceReplay(String name) {
+        this.name = name;
+        if (name.startsWith("fall_")) expected = FallDetector.FALL;
+        else if (name.startsWith("shake_")) expected = FallDetector.SHAKE;
+        else expected = FallDetector.NONE;
+    }
+
+    static FallTraceReplay run(String name, FallDetector detector) throws IOException {
+        return run(name, detector, 1, 1);
+    }
+
+    /**
+     * step: keep every step-th sample (step 2 turns a 50 Hz trace into 25 Hz).
+     * block: samples per addBlock() call, like a sensor FIFO batch; 1 feeds add() directly.
+     */
+    static FallTraceReplay run(String name, FallDetector detector, int step, int block) throws IOException {
+        FallTraceReplay r = new FallTraceReplay(name);
+        List<float[]> rows = new ArrayList<>();
+        List<Long> times = new ArrayList<>();
+        InputStream in = FallTraceReplay.class.getResourceAsStream("/falls/" + name + ".csv");
+        if (in == null) throw new IOException("missing trace " + name);
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || !Character.isDigit(line.charAt(0))) continue;
+                String[] f = line.split(",");
+                times.add(Long.parseLong(f[0]));
+                rows.add(new float[]{ Float.parseFloat(f[1]), Float.parseFloat(f[2]), Float.parseFloat(f[3]) });
+            }
+        }
+        int n = (rows.size() + step - 1) / step;
+        long[] ts = new long[n];
+        float[] xyz = new float[n * 3];
+        for (int i = 0; i < n; i++) {
+            ts[i] = times.get(i * step);
+            System.arraycopy(rows.get(i * step), 0, xyz, i * 3, 3);
+        }
+
+        // Parsing is kept out of the timed loop
+        long[] bt = new long[block];
+        float[] bxyz = new float[block * 3];
+        long t0 = System.nanoTime();
+        for (int i = 0; i < n; i += block) {
+            int m = Math.min(block, n - i);
+            int e;
+            if (block == 1) {
+                e = detector.add(ts[i], xyz[i * 3], xyz[i * 3 + 1], xyz[i * 3 + 2]);
+            } else {
+                System.arraycopy(ts, i, bt, 0, m);
+                System.arraycopy(xyz, i * 3, bxyz, 0, m * 3);
+                e = detector.addBlock(bt, bxyz, m);
+            }
+            if (e != FallDetector.NONE) r.events.add(new long[]{ ts[i + m - 1], e });
+        }
+        r.nanos = System.nanoTime() - t0;
+        r.samples = n;
+        return r;
+    }
+
+    /** Correct when exactly the labelled event fired (or none for negatives). */
+    boolean correct() {
+        if (expected == FallDetector.NONE) return events.isEmpty();
+        return events.size() == 1 && events.get(0)[1] == expected;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(name).append(": ");
+        if (events.isEmpty()) sb.append("none");
+        for (long[] e : events) {
+            sb.append(e[1] == FallDetector.FALL ? "FALL" : "SHAKE").append('@').append(e[0]).append(' ');
+        }
+        return sb.append(String.format(" (%d samples, %.0f ns/sample)", samples, nanos / (double) Math.max(1, samples)))
+                .toString();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.invisio;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** FrameQuality's fused pass against straightforward one-metric-per-loop references. */
+public class FrameQualityTest {
+
+    @Test
+    public void matchesReferences_random() {
+        assertMatches(320, 240, 1);
+        assertMatches(37, 19, 2);  // odd sizes
+    }
+
+    @Test
+    public void matchesReferences_tinyFrames() {
+        assertMatches(1, 1, 3);
+        assertMatches(3, 2, 4);
+        assertMatches(2, 5, 5);
+    }
+
+    @Test
+    public void stripedPoolMatchesSinglePass() {
+        ComputePool pool = new ComputePool(4);
+        for (int[] size : new int[][]{ { 320, 240 }, { 37, 19 }, { 5, 100 } }) {
+            int w = size[0], h = size[1];
+            byte[] y = random(w * h, w + h);
+            byte[] prev = random(w * h, w * h);
+            FrameQuality a = FrameQuality.analyze(y, prev, w, h);
+            FrameQuality b = FrameQuality.analyze(y, prev, w, h, pool);
+            assertEquals(a.laplacianVar, b.laplacianVar, 0.0);
+            assertEquals(a.motion, b.motion, 0.0);
+            assertEquals(a.edgeDensity, b.edgeDensity, 0.0);
+            assertEquals(a.brightness, b.brightness, 0.0);
+            assertEquals(a.glare, b.glare, 0.0);
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void noPreviousFrameMeansNoMotion() {
+        byte[] y = random(64 * 48, 9);
+        assertEquals(0.0, FrameQuality.analyze(y, null, 64, 48).motion, 0.0);
+        assertEquals(0.0, FrameQuality.analyze(y, new byte[10], 64, 48).motion, 0.0);
+    }
+
+    @Test
+    public void glareAndBrightness() {
+        int w = 10, h = 10;
+        byte[] y = new byte[w * h];
+        for (int i = 0; i < y.length; i++) y[i] = (byte) (i < 25 ? 255 : 100);
+        FrameQuality q = FrameQuality.analyze(y, null, w, h);
+        assertEquals(0.25, q.glare, 1e-12);
+        assertEquals((25 * 255 + 75 * 100) / 100.0, q.brightness, 1e-12);
+    }
+
+    private static void assertMatches(int w, int h, long seed) {
+        byte[] y = random(w * h, seed);
+        byte[] prev = random(w * h, seed + 100);
+        FrameQuality q = FrameQuality.analyze(y, prev, w, h);
+
+        assertEquals(refLaplacianVar(y, w, h), q.laplacianVar, 1e-9);
+        assertEquals(refMotion(y, prev), q.motion, 1e-12);
+        assertEquals(refEdgeDensity(y, w, h), q.edgeDensity, 1e-12);
+        assertEquals(refBrightness(y), q.brightness, 1e-9);
+        assertEquals(refGlare(y), q.glare, 1e-12);
+    }
+
+    // ---- References (the original per-metric GrayFrame loops) ----
+
+    private static double refLaplacianVar(byte[] y, int w, int h) {
+        long sum = 0, sum2 = 0;
+        int count = 0;
+        for (int j = 1; j < h - 1; j++) {
+            for (int i = 1; i < w - 1; i++) {
+                int c = y[j * w + i] & 0xFF;
+                int l = y[j * w + (i - 1)] & 0xFF;
+                int r = y[j * w + (i + 1)] & 0xFF;
+                int u = y[(j - 1) * w + i] & 0xFF;
+                int d = y[(j + 1) * w + i] & 0xFF;
+                int lap = 4 * c - l - r - u - d;
+                sum += lap;
+                sum2 += (long) lap * lap;
+                count++;
+            }
+        }
+        if (count == 0) return 0;
+        double mean = sum / (double) count;
+        return (sum2 / (double) count) - mean * mean;
+    }
+
+    private static double refMotion(byte[] y, byte[] prev) {
+        if (y.length < 4) return 0;
+        long acc = 0;
+        for (int i = 0; i < y.length; i += 4) acc += Math.abs((y[i] & 0xFF) - (prev[i] & 0xFF));
+        return acc / (double) (y.length / 4);
+    }
+
+    private static double refEdgeDensity(byte[] y, int w, int h) {
+        int edges = 0, total = 0;
+        for (int j = 1; j < h - 1; j += 2) {
+            for (int i = 1; i < w - 1; i += 2) {
+                int c = y[j * w + i] & 0xFF;
+                int r = y[j * w + (i + 1)] & 0xFF;
+                int d = y[(j + 1) * w + i] & 0xFF;
+                if (Math.abs(c - r) > 20 || Math.abs(c - d) > 20) edges++;
+                total++;
+            }
+        }
+        return total == 0 ? 0 : edges / (double) total;
+    }
+
+    private static double refBrightness(byte[] y) {
+        long sum = 0;
+        for (byte b : y) sum += b & 0xFF;
+        return sum / (double) y.length;
+    }
+
+    private static double refGlare(byte[] y) {
+        int n = 0;
+        for (byte b : y) if ((b & 0xFF) >= FrameQuality.GLARE_LEVEL) n++;
+        return n / (double) y.length;
+    }
+
+    private static byte[] random(int n, long seed) {
+        byte[] b = new byte[n];
+        new Random(seed).nextBytes(b);
+        return b;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.invisio;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LetterboxResizerTest {
+
+    private static final int IN_W = 64, IN_H = 48;
+
+    @Test
+    public void parallelMatchesReference_downscale() {
+        assertMatchesReference(200, 100, 4);
+    }
+
+    @Test
+    public void parallelMatchesReference_upscaleTall() {
+        assertMatchesReference(17, 31, 3);
+    }
+
+    @Test
+    public void singleWorkerMatchesReference() {
+        assertMatchesReference(120, 90, 1);
+    }
+
+    @Test
+    public void rgbaBytesMatchArgbInts() {
+        int w = 90, h = 70, stride = w * 4 + 8; // padded rows
+        int[] argb = randomArgb(w, h, 7);
+        byte[] rgba = new byte[stride * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int p = argb[y * w + x];
+                int o = y * stride + x * 4;
+                rgba[o] = (byte) (p >> 16);
+                rgba[o + 1] = (byte) (p >> 8);
+                rgba[o + 2] = (byte) p;
+                rgba[o + 3] = (byte) 0xFF;
+            }
+        }
+
+        float scale = Math.min(IN_W / (float) w, IN_H / (float) h);
+        float dx = (IN_W - Math.round(w * scale)) / 2f;
+        float dy = (IN_H - Math.round(h * scale)) / 2f;
+
+        LetterboxResizer resizer = new LetterboxResizer(IN_W, IN_H, 2);
+        float[][][] fromInts = new float[IN_H][IN_W][3];
+        float[][][] fromBytes = new float[IN_H][IN_W][3];
+        resizer.resize(argb, w, h, scale, dx, dy, fromInts);
+        resizer.resize(rgba, w, h, stride, scale, dx, dy, fromBytes);
+        resizer.close();
+
+        assertBitIdentical(fromInts, fromBytes);
+    }
+
+    @Test
+    public void padIsLetterboxGray() {
+        int w = 100, h = 20;
+        float scale = Math.min(IN_W / (float) w, IN_H / (float) h);
+        float dy = (IN_H - Math.round(h * scale)) / 2f;
+
+        LetterboxResizer resizer = new LetterboxResizer(IN_W, IN_H, 2);
+        float[][][] out = new float[IN_H][IN_W][3];
+        resizer.resize(randomArgb(w, h, 1), w, h, scale, 0f, dy, out);
+        resizer.close();
+
+        assertEquals(LetterboxResizer.PAD / 255f, out[0][0][0], 0f);
+        assertEquals(LetterboxResizer.PAD / 255f, out[IN_H - 1][IN_W - 1][2], 0f);
+    }
+
+    private static void assertMatchesReference(int w, int h, int workers) {
+        int[] argb = randomArgb(w, h, w * 31 + h);
+        float scale = Math.min(IN_W / (float) w, IN_H / (float) h);
+        float dx = (IN_W - Math.round(w * scale)) / 2f;
+        float dy = (IN_H - Math.round(h * scale)) / 2f;
+
+        float[][][] expected = new float[IN_H][IN_W][3];
+        LetterboxResizer.resizeReference(argb, w, h, IN_W, IN_H, scale, dx, dy, expected);
+
+        LetterboxResizer resizer = new LetterboxResizer(IN_W, IN_H, workers);
+        float[][][] actual = new float[IN_H][IN_W][3];
+        resizer.resize(argb, w, h, scale, dx, dy, actual);
+        resizer.close();
+
+        assertBitIdentical(expected, actual);
+    }
+
+    private static void assertBitIdentical(float[][][] a, float[][][] b) {
+        for (int y = 0; y < IN_H; y++) {
+            for (int x = 0; x < IN_W; x++) {
+                for (int c = 0; c < 3; c++) {
+                    assertEquals("y=" + y + " x=" + x + " c=" + c,
+                            Float.floatToIntBits(a[y][x][c]), Float.floatToIntBits(b[y][x][c]));
+                }
+            }
+        }
+    }
+
+    private static int[] randomArgb(int w, int h, long seed) {
+        Random rnd = new Random(seed);
+        int[] px = new int[w * h];
+        for (int i = 0; i < px.length; i++) px[i] = 0xFF000000 | rnd.nextInt(0x1000000);
+        return px;
+    }
+}
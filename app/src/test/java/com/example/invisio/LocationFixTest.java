@@ -0,0 +1,33 @@
+package com.example.invisio;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LocationFixTest {
+
+    @Test
+    public void alertLineCarriesAgeAccuracyAndLink() {
+        LocationFix fix = new LocationFix(24.860734, 67.001136, 28.4f, 1_000_000, "network");
+        assertEquals("Last known location (4 min ago, within 28 m): https://maps.google.com/?q=24.860734,67.001136",
+                fix.alertLine(1_000_000 + 4 * 60_000 + 5_000));
+    }
+
+    @Test
+    public void ageIsCoarse() {
+        assertEquals("just now", LocationFix.age(30_000));
+        assertEquals("59 min ago", LocationFix.age(59 * 60_000));
+        assertEquals("1 hour ago", LocationFix.age(61 * 60_000));
+        assertEquals("3 days ago", LocationFix.age(3 * 24 * 3_600_000L));
+    }
+
+    @Test
+    public void newerWinsUnlessAboutAsOldAndLessAccurate() {
+        LocationFix gps = new LocationFix(1, 1, 5, 10_000_000, "gps");
+        LocationFix cellSoonAfter = new LocationFix(1, 1, 800, 10_060_000, "network");
+        LocationFix cellMuchLater = new LocationFix(1, 1, 800, 10_600_000, "network");
+        assertFalse(cellSoonAfter.isBetterThan(gps));
+        assertTrue(cellMuchLater.isBetterThan(gps));
+        assertTrue(gps.isBetterThan(null));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.invisio;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LumaDownsamplerTest {
+
+    // Y plane with padded rows and a pixel stride; like camera buffers, the last row has no padding
+    private static ByteBuffer plane(byte[] src, int w, int h, int rowStride, int pixelStride) {
+        byte[] b = new byte[rowStride * (h - 1) + (w - 1) * pixelStride + 1];
+        for (int r = 0; r < h; r++) {
+            for (int c = 0; c < w; c++) b[r * rowStride + c * pixelStride] = src[r * w + c];
+        }
+        return ByteBuffer.wrap(b);
+    }
+
+    // Plain box filter over the same i * size / out cell boundaries: { mean, area } per pixel
+    private static double[][] reference(byte[] src, int iw, int ih, int ow, int oh) {
+        double[][] out = new double[ow * oh][];
+        for (int oy = 0; oy < oh; oy++) {
+            int y0 = (int) ((long) oy * ih / oh), y1 = (int) ((long) (oy + 1) * ih / oh);
+            for (int ox = 0; ox < ow; ox++) {
+                int x0 = (int) ((long) ox * iw / ow), x1 = (int) ((long) (ox + 1) * iw / ow);
+                long sum = 0;
+                for (int y = y0; y < y1; y++) {
+                    for (int x = x0; x < x1; x++) sum += src[y * iw + x] & 0xFF;
+                }
+                long area = (long) (x1 - x0) * (y1 - y0);
+                out[oy * ow + ox] = new double[]{ sum / (double) area, area };
+            }
+        }
+        return out;
+    }
+
+    private static void assertMatchesReference(int iw, int ih, int target, int rowStride, int pixelStride, long seed) {
+        byte[] src = new byte[iw * ih];
+        new Random(seed).nextBytes(src);
+        LumaDownsampler d = new LumaDownsampler(target);
+        d.update(plane(src, iw, ih, rowStride, pixelStride), rowStride, pixelStride, iw, ih);
+
+        double[][] ref = reference(src, iw, ih, d.width(), d.height());
+        byte[] out = d.current();
+        for (int i = 0; i < ref.length; i++) {
+            // The rounded mean (either way on an exact .5), up to the reciprocal's 2^-24 error
+            double err = Math.abs((out[i] & 0xFF) - ref[i][0]);
+            assertTrue("pixel " + i + ": " + (out[i] & 0xFF) + " vs " + ref[i][0], err <= 0.5 + ref[i][1] * 1e-5);
+        }
+    }
+
+    @Test
+    public void matchesBoxFilterWithPaddedRowsAndOddSizes() {
+        assertMatchesReference(1280, 720, 320, 1280 + 64, 1, 1);
+        assertMatchesReference(1001, 563, 320, 1024, 1, 2);     // boxes 3 or 4 wide, non-divisible rows
+        assertMatchesReference(777, 333, 100, 1600, 2 /* interleaved */, 3);
+        assertMatchesReference(200, 150, 320, 208, 1, 4);       // narrower than the target: copied 1:1
+    }
+
+    @Test
+    public void largeBoxesKeepFullWhite() {
+        // 33x33 boxes: a truncated 65536 / area reciprocal read 255 back as 254
+        int iw = 1000, ih = 600;
+        byte[] white = new byte[iw * ih];
+        java.util.Arrays.fill(white, (byte) 255);
+        LumaDownsampler d = new LumaDownsampler(30);
+        d.update(plane(white, iw, ih, iw, 1), iw, 1, iw, ih);
+        for (byte b : d.current()) assertEquals(255, b & 0xFF);
+        assertMatchesReference(iw, ih, 30, iw + 24, 1, 5);
+    }
+
+    @Test
+    public void previousFrameRingAndResize() {
+        int iw = 64, ih = 48;
+        byte[] a = new byte[iw * ih], b = new byte[iw * ih];
+        java.util.Arrays.fill(a, (byte) 10);
+        java.util.Arrays.fill(b, (byte) 200);
+        LumaDownsampler d = new LumaDownsampler(16);
+
+        d.update(plane(a, iw, ih, iw, 1), iw, 1, iw, ih);
+        assertNull(d.previous());
+        d.update(plane(b, iw, ih, iw, 1), iw, 1, iw, ih);
+        assertEquals(200, d.current()[0] & 0xFF);
+        assertEquals(10, d.previous()[0] & 0xFF);
+        assertEquals(16, d.width());
+        assertEquals(12, d.height());
+
+        // A new source size starts over without a previous frame
+        d.update(plane(new byte[32 * 32], 32, 32, 32, 1), 32, 1, 32, 32);
+        assertNull(d.previous());
+        assertEquals(16, d.height());
+    }
+}
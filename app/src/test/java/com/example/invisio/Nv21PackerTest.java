@@ -0,0 +1,178 @@
+package com.example.invisio;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Nv21PackerTest {
+
+    // Synthetic frame: full-res Y, quarter-res U and V
+    private static final class Frame {
+        final int w, h, cw, ch;
+        final byte[] y, u, v;
+
+        Frame(int w, int h, long seed) {
+            this.w = w;
+            this.h = h;
+            cw = w / 2;
+            ch = h / 2;
+            Random rnd = new Random(seed);
+            y = new byte[w * h];
+            u = new byte[cw * ch];
+            v = new byte[cw * ch];
+            rnd.nextBytes(y);
+            rnd.nextBytes(u);
+            rnd.nextBytes(v);
+        }
+
+        byte[] nv21() {
+            byte[] out = new byte[Nv21Packer.size(w, h)];
+            System.arraycopy(y, 0, out, 0, w * h);
+            int pos = w * h;
+            for (int i = 0; i < cw * ch; i++) {
+                out[pos++] = v[i];
+                out[pos++] = u[i];
+            }
+            return out;
+        }
+
+        // Y plane with padded rows; like camera buffers, the last row has no padding
+        ByteBuffer yPlane(int rowStride) {
+            return plane(y, w, h, rowStride, 1, 0);
+        }
+    }
+
+    private static ByteBuffer plane(byte[] src, int w, int h, int rowStride, int pixelStride, int lead) {
+        byte[] b = new byte[lead + rowStride * (h - 1) + (w - 1) * pixelStride + 1];
+        for (int r = 0; r < h; r++) {
+            for (int c = 0; c < w; c++) b[lead + r * rowStride + c * pixelStride] = src[r * w + c];
+        }
+        ByteBuffer buf = ByteBuffer.allocateDirect(b.length);
+        buf.put(b).rewind();
+        return buf;
+    }
+
+    // One VU-interleaved buffer exposed as V (offset 0) and U (offset 1), as NV21-backed cameras do
+    private static ByteBuffer[] nv21Planes(Frame f, int rowStride) {
+        int len = rowStride * (f.ch - 1) + 2 * f.cw;
+        ByteBuffer vu = ByteBuffer.allocateDirect(len);
+        for (int r = 0; r < f.ch; r++) {
+            for (int c = 0; c < f.cw; c++) {
+                vu.put(r * rowStride + 2 * c, f.v[r * f.cw + c]);
+                vu.put(r * rowStride + 2 * c + 1, f.u[r * f.cw + c]);
+            }
+        }
+        ByteBuffer v = vu.duplicate();
+        v.limit(len - 1);
+        v = v.slice();
+        ByteBuffer u = vu.duplicate();
+        u.position(1);
+        u = u.slice();
+        return new ByteBuffer[]{ u, v };
+    }
+
+    @Test
+    public void nv21BackedPlanesWithPaddedRowsAreBulkCopied() {
+        ComputePool pool = new ComputePool(3);
+        Nv21Packer packer = new Nv21Packer(pool);
+        for (int[] dims : new int[][]{ { 64, 300 }, { 41, 131 }, { 2, 2 } }) {
+            Frame f = new Frame(dims[0], dims[1], dims[0] * 31 + dims[1]);
+            int rowStride = 2 * f.cw + 24;
+            ByteBuffer[] uv = nv21Planes(f, rowStride);
+            byte[] out = packer.pack(f.w, f.h, f.yPlane(f.w + 16), f.w + 16,
+                    uv[0], rowStride, 2, uv[1], rowStride, 2);
+            assertTrue(packer.lastWasInterleaved());
+            assertArrayEquals(f.w + "x" + f.h, f.nv21(), out);
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void nv21BackedPlanesWithoutPadding() {
+        Frame f = new Frame(80, 260, 5);
+        ByteBuffer[] uv = nv21Planes(f, f.w);
+        Nv21Packer packer = new Nv21Packer(new ComputePool(1));
+        byte[] out = packer.pack(f.w, f.h, f.yPlane(f.w), f.w, uv[0], f.w, 2, uv[1], f.w, 2);
+        assertTrue(packer.lastWasInterleaved());
+        assertArrayEquals(f.nv21(), out);
+    }
+
+    @Test
+    public void planarI420WithPaddedStridesIsGathered() {
+        Frame f = new Frame(50, 140, 9);
+        int cStride = f.cw + 7;
+        ByteBuffer u = plane(f.u, f.cw, f.ch, cStride, 1, 0);
+        ByteBuffer v = plane(f.v, f.cw, f.ch, cStride, 1, 0);
+        ComputePool pool = new ComputePool(2);
+        Nv21Packer packer = new Nv21Packer(pool);
+        byte[] out = packer.pack(f.w, f.h, f.yPlane(f.w + 14), f.w + 14, u, cStride, 1, v, cStride, 1);
+        assertFalse(packer.lastWasInterleaved());
+        assertArrayEquals(f.nv21(), out);
+        pool.shutdown();
+    }
+
+    @Test
+    public void nv12OrderIsNotMistakenForNv21() {
+        // U at offset 0, V at offset 1: same strides as NV21 but the bytes must be swapped
+        Frame f = new Frame(40, 36, 11);
+        int rowStride = f.w + 8;
+        int len = rowStride * (f.ch - 1) + 2 * f.cw;
+        ByteBuffer uv = ByteBuffer.allocate(len);
+        for (int r = 0; r < f.ch; r++) {
+            for (int c = 0; c < f.cw; c++) {
+                uv.put(r * rowStride + 2 * c, f.u[r * f.cw + c]);
+                uv.put(r * rowStride + 2 * c + 1, f.v[r * f.cw + c]);
+            }
+        }
+        ByteBuffer u = uv.duplicate();
+        u.limit(len - 1);
+        u = u.slice();
+        ByteBuffer v = uv.duplicate();
+        v.position(1);
+        v = v.slice();
+
+        Nv21Packer packer = new Nv21Packer(new ComputePool(1));
+        byte[] out = packer.pack(f.w, f.h, f.yPlane(f.w), f.w, u, rowStride, 2, v, rowStride, 2);
+        assertFalse(packer.lastWasInterleaved());
+        assertArrayEquals(f.nv21(), out);
+    }
+
+    @Test
+    public void nv12WithFlatChromaPacksCorrectlyOnEitherPath() {
+        // A blank white page: U and V are constant, so the sampled check may take NV12 for NV21
+        Frame f = new Frame(40, 36, 12);
+        java.util.Arrays.fill(f.u, (byte) 128);
+        java.util.Arrays.fill(f.v, (byte) 128);
+        int len = f.w * (f.ch - 1) + 2 * f.cw;
+        ByteBuffer uv = ByteBuffer.allocate(len);
+        for (int i = 0; i < len; i++) uv.put(i, (byte) 128);
+        ByteBuffer u = uv.duplicate();
+        u.limit(len - 1);
+        u = u.slice();
+        ByteBuffer v = uv.duplicate();
+        v.position(1);
+        v = v.slice();
+
+        Nv21Packer packer = new Nv21Packer(new ComputePool(1));
+        for (int frame = 0; frame < 3; frame++) {
+            assertArrayEquals(f.nv21(), packer.pack(f.w, f.h, f.yPlane(f.w), f.w, u, f.w, 2, v, f.w, 2));
+        }
+    }
+
+    @Test
+    public void outputIsReusedAndPlanePositionsIgnored() {
+        Frame f = new Frame(32, 24, 13);
+        ByteBuffer[] uv = nv21Planes(f, f.w);
+        ByteBuffer y = f.yPlane(f.w);
+        y.position(y.limit()); // an analyzer already read the luma
+        Nv21Packer packer = new Nv21Packer(new ComputePool(1));
+        byte[] first = packer.pack(f.w, f.h, y, f.w, uv[0], f.w, 2, uv[1], f.w, 2);
+        byte[] second = packer.pack(f.w, f.h, y, f.w, uv[0], f.w, 2, uv[1], f.w, 2);
+        assertSame(first, second);
+        assertArrayEquals(f.nv21(), second);
+        assertEquals(y.limit(), y.position());
+    }
+}
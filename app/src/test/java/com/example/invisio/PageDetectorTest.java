@@ -0,0 +1,126 @@
+package com.example.invisio;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PageDetectorTest {
+
+    // Analysis frame size used by DocReaderActivity (320 wide, 16:9)
+    private static final int W = 320, H = 180;
+    private static final float TOL = 0.025f;   // ~5 px across, ~4 px down
+
+    private final PageDetector detector = new PageDetector();
+
+    // Page polygon (TL, TR, BR, BL in pixels) on a textured background, with text-like lines on it
+    private static byte[] scene(float[] corners, int page, int background, long seed) {
+        Random rnd = new Random(seed);
+        byte[] y = new byte[W * H];
+        for (int py = 0; py < H; py++) {
+            for (int px = 0; px < W; px++) {
+                boolean in = inside(corners, px + 0.5f, py + 0.5f);
+                int v = in ? page : background;
+                if (in && py % 12 < 2 && (px / 9) % 4 != 3 && insideInset(corners, px + 0.5f, py + 0.5f)) {
+                    v = page > background ? page - 120 : page + 120;   // a line of "text"
+                }
+                v += rnd.nextInt(9) - 4;
+                y[py * W + px] = (byte) Math.max(0, Math.min(255, v));
+            }
+        }
+        return y;
+    }
+
+    private static boolean inside(float[] c, float x, float y) {
+        for (int i = 0; i < 4; i++) {
+            int j = (i + 1) % 4;
+            float cross = (c[2 * j] - c[2 * i]) * (y - c[2 * i + 1]) - (c[2 * j + 1] - c[2 * i + 1]) * (x - c[2 * i]);
+            if (cross < 0) return false;
+        }
+        return true;
+    }
+
+    // Text keeps a margin from the page edge, like a printed page
+    private static boolean insideInset(float[] c, float x, float y) {
+        float cx = (c[0] + c[2] + c[4] + c[6]) / 4f, cy = (c[1] + c[3] + c[5] + c[7]) / 4f;
+        float[] in = new float[8];
+        for (int i = 0; i < 4; i++) {
+            in[2 * i] = cx + (c[2 * i] - cx) * 0.8f;
+            in[2 * i + 1] = cy + (c[2 * i + 1] - cy) * 0.8f;
+        }
+        return inside(in, x, y);
+    }
+
+    private static float[] rotatedRect(float cx, float cy, float halfW, float halfH, double deg) {
+        double r = Math.toRadians(deg), cos = Math.cos(r), sin = Math.sin(r);
+        float[] local = { -halfW, -halfH, halfW, -halfH, halfW, halfH, -halfW, halfH };
+        float[] p = new float[8];
+        for (int i = 0; i < 4; i++) {
+            p[2 * i] = (float) (cx + local[2 * i] * cos - local[2 * i + 1] * sin);
+            p[2 * i + 1] = (float) (cy + local[2 * i] * sin + local[2 * i + 1] * cos);
+        }
+        return p;
+    }
+
+    private static void assertCorners(float[] expectedPx, PageDetector.Quad q) {
+        assertNotNull(q);
+        for (int i = 0; i < 4; i++) {
+            float ex = expectedPx[2 * i] / (W - 1), ey = expectedPx[2 * i + 1] / (H - 1);
+            float dx = Math.abs(q.pts[2 * i] - ex), dy = Math.abs(q.pts[2 * i + 1] - ey);
+            assertTrue("corner " + i + " off by " + dx + "," + dy, dx <= TOL && dy <= TOL);
+        }
+    }
+
+    @Test
+    public void axisAlignedPage() {
+        float[] page = { 70, 30, 250, 30, 250, 150, 70, 150 };
+        PageDetector.Quad q = detector.detect(scene(page, 215, 70, 1), W, H);
+        assertCorners(page, q);
+        assertNull(PageDetector.guidance(q, 0));
+    }
+
+    @Test
+    public void rotatedPage() {
+        float[] page = rotatedRect(160, 90, 80, 55, 12);
+        assertCorners(page, detector.detect(scene(page, 210, 60, 2), W, H));
+    }
+
+    @Test
+    public void perspectiveSkewedPage() {
+        // Top edge shorter than the bottom: the phone leans over the near edge of the page
+        float[] page = { 115, 25, 205, 25, 260, 160, 60, 160 };
+        PageDetector.Quad q = detector.detect(scene(page, 220, 75, 3), W, H);
+        assertCorners(page, q);
+        assertEquals("Tilt the phone up.", PageDetector.guidance(q, 0));
+    }
+
+    @Test
+    public void pageDarkerThanBackground() {
+        float[] page = rotatedRect(150, 95, 85, 60, -8);
+        assertCorners(page, detector.detect(scene(page, 50, 225, 4), W, H));
+    }
+
+    @Test
+    public void pageClippedByFrameAsksToMove() {
+        float[] page = { -40, 30, 150, 30, 150, 150, -40, 150 };
+        PageDetector.Quad q = detector.detect(scene(page, 215, 70, 5), W, H);
+        assertNotNull(q);
+        assertEquals("Move the phone left.", PageDetector.guidance(q, 0));
+    }
+
+    @Test
+    public void noPageInPlainOrSmallScene() {
+        assertNull(detector.detect(scene(new float[]{ 0, 0, 0, 0, 0, 0, 0, 0 }, 200, 90, 6), W, H));
+        // A sticky note is not a page
+        float[] note = { 140, 70, 180, 70, 180, 110, 140, 110 };
+        assertNull(detector.detect(scene(note, 215, 70, 7), W, H));
+    }
+
+    @Test
+    public void buffersAreReusedAcrossFrameSizes() {
+        float[] page = { 70, 30, 250, 30, 250, 150, 70, 150 };
+        assertNull(detector.detect(new byte[64 * 36], 64, 36));
+        assertCorners(page, detector.detect(scene(page, 215, 70, 9), W, H));
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.invisio;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PageHashTest {
+
+    private static final String PAGE_1 =
+            "It was a bright cold day in April, and the clocks were striking thirteen. "
+            + "Winston Smith, his chin nuzzled into his breast in an effort to escape the vile wind, "
+            + "slipped quickly through the glass doors of Victory Mansions, though not quickly enough "
+            + "to prevent a swirl of gritty dust from entering along with him.";
+
+    private static final String PAGE_2 =
+            "The hallway smelt of boiled cabbage and old rag mats. At one end of it a coloured poster, "
+            + "too large for indoor display, had been tacked to the wall. It depicted simply an enormous "
+            + "face, more than a metre wide: the face of a man of about forty-five, with a heavy black "
+            + "moustache and ruggedly handsome features.";
+
+    @Test
+    public void ocrNoiseStillMatches() {
+        String noisy = PAGE_1.replace("April", "Apri1").replace("thirteen.", "thirteen,")
+                .replace("  ", " ").toUpperCase();
+        assertTrue(PageHash.samePage(PageHash.of(PAGE_1), PageHash.of(noisy)));
+    }
+
+    @Test
+    public void differentPagesDoNotMatch() {
+        assertFalse(PageHash.samePage(PageHash.of(PAGE_1), PageHash.of(PAGE_2)));
+    }
+
+    @Test
+    public void emptyTextNeverMatches() {
+        assertEquals(0L, PageHash.of("  ... "));
+        assertFalse(PageHash.samePage(PageHash.of(""), PageHash.of("")));
+    }
+}
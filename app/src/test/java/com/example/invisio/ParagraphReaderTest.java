@@ -0,0 +1,127 @@
+package com.example.invisio;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParagraphReaderTest {
+
+    private static final class FakeEngine implements SpeechManager.Engine {
+        final List<String> spoken = new ArrayList<>();
+        String playingId;
+
+        @Override
+        public boolean speak(String text, String utteranceId, SpeechManager.Priority priority) {
+            spoken.add(text);
+            playingId = utteranceId;
+            return true;
+        }
+
+        @Override
+        public void stop() {}
+    }
+
+    private FakeEngine engine;
+    private List<Runnable> main;
+    private SpeechManager speech;
+    private ParagraphReader reader;
+
+    @Before
+    public void setUp() {
+        engine = new FakeEngine();
+        main = new ArrayList<>();
+        speech = new SpeechManager(main::add);
+        speech.attach(engine);
+        speech.engineReady(true);
+        reader = new ParagraphReader(speech, SpeechManager.Priority.HIGH);
+    }
+
+    private void drain() {
+        while (!main.isEmpty()) main.remove(0).run();
+    }
+
+    private void finishPlaying() {
+        speech.utteranceFinished(engine.playingId, true);
+        drain();
+    }
+
+    private String last() {
+        return engine.spoken.get(engine.spoken.size() - 1);
+    }
+
+    private static List<ReadingOrder.Block> doc(String... paragraphs) {
+        List<ReadingOrder.Block> blocks = new ArrayList<>();
+        for (String p : paragraphs) blocks.add(new ReadingOrder.Block(0, 0, 0, 0, Collections.singletonList(p)));
+        return blocks;
+    }
+
+    @Test
+    public void promptDuringReadingResumesTheInterruptedSentence() {
+        reader.start(doc("The first paragraph.", "The second paragraph."));
+        assertEquals("The first paragraph.", last());
+
+        reader.interject("Flashlight on");
+        drain();
+        assertEquals("Flashlight on", last());
+        assertFalse(reader.isReading());
+
+        finishPlaying();
+        assertTrue(reader.isReading());
+        assertEquals("The first paragraph.", last());
+        finishPlaying();
+        assertEquals("The second paragraph.", last());
+    }
+
+    @Test
+    public void backToBackPromptsResumeOnceAfterTheLast() {
+        reader.start(doc("The first paragraph.", "The second paragraph."));
+        reader.interject("Hold the phone still.");
+        reader.interject("Flashlight off");
+        drain();
+        assertEquals("Flashlight off", last());
+
+        finishPlaying();
+        assertEquals("The first paragraph.", last());
+        int spoken = engine.spoken.size();
+        drain();
+        assertEquals(spoken, engine.spoken.size());
+    }
+
+    @Test
+    public void promptWhileIdleDoesNotStartReading() {
+        reader.start(doc("Only paragraph."));
+        finishPlaying();
+        reader.interject("Turn the page.");
+        finishPlaying();
+        assertEquals("Turn the page.", last());
+        assertFalse(reader.isReading());
+    }
+
+    @Test
+    public void explicitResumeDuringPromptIsNotDoubled() {
+        reader.start(doc("The first paragraph.", "The second paragraph."));
+        reader.interject("Flashlight on");
+        drain();
+        reader.resume();   // long-press torch path
+        finishPlaying();
+        assertEquals("The first paragraph.", last());
+        assertEquals(1, speech.pendingCount(SpeechManager.Priority.HIGH));
+    }
+
+    @Test
+    public void jumpDuringPromptKeepsTheNewPosition() {
+        reader.start(doc("The first paragraph.", "The second paragraph."));
+        reader.interject("Glare on the page.");
+        reader.next();
+        drain();
+        assertEquals("The second paragraph.", last());
+        finishPlaying();
+        assertEquals(1, reader.paragraphIndex());
+        assertFalse(reader.isReading());
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.invisio;
+
+import org.junit.Test;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import static org.junit.Assert.*;
+
+public class PasswordHasherTest {
+
+    // Small counts keep the test fast; the production minimum only matters on devices
+    private final PasswordHasher hasher = new PasswordHasher(1000);
+
+    @Test
+    public void hashVerifiesAndIsSalted() {
+        String a = hasher.hash("secret1");
+        String b = hasher.hash("secret1");
+        assertTrue(a.startsWith(PasswordHasher.PREFIX));
+        assertNotEquals(a, b);   // fresh salt per hash
+
+        PasswordHasher.Check ok = hasher.check("secret1", a);
+        assertTrue(ok.ok);
+        assertNull(ok.upgrade);
+        assertFalse(hasher.check("secret2", a).ok);
+        assertFalse(hasher.check("secret1", a.substring(0, a.length() - 2) + "zz").ok);
+    }
+
+    @Test
+    public void unknownAlgorithmIsRejected() throws Exception {
+        // A genuine SHA-1 PBKDF2 hash under a tag check() does not know: must not verify as sha1
+        byte[] salt = new byte[16];
+        byte[] hash = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1")
+                .generateSecret(new PBEKeySpec("secret1".toCharArray(), salt, 1000, 256)).getEncoded();
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hash) hex.append(String.format("%02x", b));
+        String rest = "$1000$" + "00".repeat(16) + "$" + hex;
+        assertTrue(hasher.check("secret1", PasswordHasher.PREFIX + "sha1" + rest).ok);
+
+        PasswordHasher.Check c = hasher.check("secret1", PasswordHasher.PREFIX + "md5" + rest);
+        assertFalse(c.ok);
+        assertNull(c.upgrade);
+        assertFalse(hasher.check("secret1", PasswordHasher.PREFIX + rest).ok);
+    }
+
+    @Test
+    public void legacyPlainTextRowIsMigratedOnLogin() {
+        PasswordHasher.Check wrong = hasher.check("guess", "secret1");
+        assertFalse(wrong.ok);
+        assertNull(wrong.upgrade);
+
+        PasswordHasher.Check ok = hasher.check("secret1", "secret1");
+        assertTrue(ok.ok);
+        assertNotNull(ok.upgrade);
+        // The migrated row verifies and needs nothing more; the plain text no longer matches as-is
+        PasswordHasher.Check again = hasher.check("secret1", ok.upgrade);
+        assertTrue(again.ok);
+        assertNull(again.upgrade);
+        assertFalse(hasher.check(ok.upgrade, ok.upgrade).ok);
+    }
+
+    @Test
+    public void weakerHashIsUpgradedAfterRecalibration() {
+        String old = hasher.hash("secret1");
+        PasswordHasher stronger = new PasswordHasher(3000);
+        PasswordHasher.Check c = stronger.check("secret1", old);
+        assertTrue(c.ok);
+        assertTrue(c.upgrade.contains("$3000$"));
+        assertNull(stronger.check("secret1", c.upgrade).upgrade);
+        // A stronger stored hash is kept on a device calibrated lower
+        assertNull(hasher.check("secret1", c.upgrade).upgrade);
+    }
+
+    @Test
+    public void calibrationScalesToBudgetAndClamps() {
+        // 1 µs per iteration, noisy first probe: the fastest probe wins
+        long[] probes = { 9_000_000, 2_000_000, 2_500_000 };
+        int[] call = { 0 };
+        int n = PasswordHasher.calibrate(250, it -> {
+            assertEquals(PasswordHasher.PROBE_ITERATIONS, it);
+            return probes[call[0]++];
+        });
+        assertEquals(250_000, n);
+
+        assertEquals(PasswordHasher.MIN_ITERATIONS, PasswordHasher.calibrate(250, it -> it * 1_000_000L));
+        assertEquals(PasswordHasher.MAX_ITERATIONS, PasswordHasher.calibrate(250, it -> 1));
+        assertEquals(153_000, PasswordHasher.calibrate(123, it -> 1_600_000L));   // 153750, rounded down
+    }
+}
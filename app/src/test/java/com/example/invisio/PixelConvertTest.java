@@ -0,0 +1,25 @@
+package com.example.invisio;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PixelConvertTest {
+
+    @Test
+    public void normMatchesDivision() {
+        for (int v = 0; v < 256; v++) {
+            assertEquals("v=" + v, Float.floatToIntBits(v / 255f), Float.floatToIntBits(PixelConvert.NORM[v]));
+        }
+    }
+
+    @Test
+    public void lumaMatchesArithmeticForEveryColour() {
+        for (int rgb = 0; rgb < 0x1000000; rgb++) {
+            int p = 0xFF000000 | rgb;
+            if (PixelConvert.luma(p) != PixelConvert.lumaArithmetic(p)) {
+                fail("rgb=" + Integer.toHexString(rgb));
+            }
+        }
+    }
+}
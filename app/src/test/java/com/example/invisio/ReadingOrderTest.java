@@ -0,0 +1,71 @@
+package com.example.invisio;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReadingOrderTest {
+
+    private static ReadingOrder.Block block(String text, int l, int t, int r, int b) {
+        return new ReadingOrder.Block(l, t, r, b, Arrays.asList(text));
+    }
+
+    private static List<String> texts(List<ReadingOrder.Block> blocks) {
+        List<String> out = new ArrayList<>();
+        for (ReadingOrder.Block b : blocks) out.add(b.lines.get(0));
+        return out;
+    }
+
+    @Test
+    public void twoColumnsAreReadColumnByColumn() {
+        List<ReadingOrder.Block> in = Arrays.asList(
+                block("R1", 520, 100, 950, 300),
+                block("L1", 50, 110, 480, 300),
+                block("R2", 515, 320, 950, 500),
+                block("L2", 50, 330, 480, 520));
+        assertEquals(Arrays.asList("L1", "L2", "R1", "R2"), texts(ReadingOrder.order(in)));
+    }
+
+    @Test
+    public void fullWidthTitleSplitsBands() {
+        List<ReadingOrder.Block> in = Arrays.asList(
+                block("L2", 50, 600, 480, 800),
+                block("Title", 50, 0, 950, 60),
+                block("R1", 520, 100, 950, 300),
+                block("Caption", 60, 520, 940, 560),
+                block("R2", 520, 600, 950, 800),
+                block("L1", 50, 100, 480, 300));
+        assertEquals(Arrays.asList("Title", "L1", "R1", "Caption", "L2", "R2"), texts(ReadingOrder.order(in)));
+    }
+
+    @Test
+    public void joinLinesRemovesHyphenation() {
+        assertEquals("An example of text.",
+                ReadingOrder.joinLines(Arrays.asList("An exam-", "ple of", " text.")));
+        assertEquals("well- Known", ReadingOrder.joinLines(Arrays.asList("well-", "Known")));
+    }
+
+    @Test
+    public void paragraphsSplitOnBlankLinesHoldingWhitespace() {
+        String body = "First para\nstill first.\n\nSecond.\n \t\nThird.\r\n\r\nFourth.\n\n\n";
+        assertEquals(Arrays.asList("First para\nstill first.", "Second.", "Third.", "Fourth."),
+                ReadingOrder.paragraphs(body));
+    }
+
+    @Test
+    public void sentencesSplitAndRespectMaxChunk() {
+        List<String> s = ReadingOrder.sentences("First one. \"Second?\" Third! Last", 100);
+        assertEquals(Arrays.asList("First one.", "\"Second?\"", "Third!", "Last"), s);
+
+        StringBuilder longSentence = new StringBuilder();
+        for (int i = 0; i < 40; i++) longSentence.append("word").append(i).append(i % 7 == 6 ? ", " : " ");
+        for (String chunk : ReadingOrder.sentences(longSentence.toString(), 60)) {
+            assertTrue(chunk, chunk.length() <= 60 && !chunk.isEmpty());
+        }
+    }
+}
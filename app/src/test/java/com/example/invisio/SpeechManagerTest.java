@@ -0,0 +1,236 @@
+package com.example.invisio;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SpeechManagerTest {
+
+    // Stand-in for TextToSpeech: records what is playing; tests finish utterances by hand
+    private static final class FakeEngine implements SpeechManager.Engine {
+        final List<String> spoken = new ArrayList<>();
+        String playingId;
+        int stops;
+        boolean refuse;
+
+        @Override
+        public boolean speak(String text, String utteranceId, SpeechManager.Priority priority) {
+            if (refuse) return false;
+            spoken.add(text);
+            playingId = utteranceId;
+            return true;
+        }
+
+        @Override
+        public void stop() {
+            stops++;
+        }
+    }
+
+    // Stand-in for the main thread: callbacks wait until the test drains them
+    private static final class MainQueue implements java.util.concurrent.Executor {
+        final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable r) {
+            tasks.add(r);
+        }
+
+        void drain() {
+            while (!tasks.isEmpty()) tasks.remove(0).run();
+        }
+    }
+
+    private FakeEngine engine;
+    private MainQueue main;
+    private SpeechManager speech;
+    private final Object screen = new Object();
+    private final Object other = new Object();
+
+    @Before
+    public void setUp() {
+        engine = new FakeEngine();
+        main = new MainQueue();
+        speech = new SpeechManager(main);
+        speech.attach(engine);
+        speech.engineReady(true);
+    }
+
+    private void finishPlaying() {
+        speech.utteranceFinished(engine.playingId, true);
+        main.drain();
+    }
+
+    private String last() {
+        return engine.spoken.get(engine.spoken.size() - 1);
+    }
+
+    @Test
+    public void speechWaitsForEngineAndReadyCallbacksRunOnMain() {
+        SpeechManager s = new SpeechManager(main);
+        FakeEngine e = new FakeEngine();
+        s.attach(e);
+        boolean[] ready = { false };
+        s.whenReady(ok -> ready[0] = ok);
+        s.say(screen, "hello there", SpeechManager.Priority.NORMAL);
+        assertTrue(e.spoken.isEmpty());
+
+        s.engineReady(true);
+        assertEquals("hello there", e.spoken.get(0));
+        assertFalse(ready[0]);
+        main.drain();
+        assertTrue(ready[0]);
+    }
+
+    @Test
+    public void queueOrdersByPriorityAndPlaysOneAtATime() {
+        speech.say(screen, "high one", SpeechManager.Priority.HIGH);
+        speech.say(screen, "normal one", SpeechManager.Priority.NORMAL);
+        speech.say(screen, "high two", SpeechManager.Priority.HIGH);
+        assertEquals(1, engine.spoken.size());
+        assertEquals(2, speech.pendingCount(SpeechManager.Priority.HIGH));
+        assertEquals(1, speech.pendingCount(SpeechManager.Priority.NORMAL));
+
+        finishPlaying();
+        assertEquals("high two", last());
+        finishPlaying();
+        assertEquals("normal one", last());
+        finishPlaying();
+        assertEquals(0, speech.pendingCount(SpeechManager.Priority.NORMAL));
+    }
+
+    @Test
+    public void higherPriorityPreemptsLower() {
+        boolean[] done = { true };
+        speech.say(screen, "car ahead", SpeechManager.Priority.NORMAL, c -> done[0] = c);
+        speech.say(screen, "page found", SpeechManager.Priority.HIGH);
+        assertEquals(1, engine.stops);
+        assertEquals("page found", last());
+        main.drain();
+        assertFalse(done[0]);
+    }
+
+    @Test
+    public void emergencyPreemptsAndFlushesLowerPriority() {
+        boolean[] done = { true };
+        speech.say(screen, "reading a page", SpeechManager.Priority.HIGH, c -> done[0] = c);
+        speech.say(screen, "queued detection", SpeechManager.Priority.NORMAL);
+        String preempted = engine.playingId;
+
+        speech.say(other, "fall detected", SpeechManager.Priority.EMERGENCY);
+        assertEquals(1, engine.stops);
+        assertEquals("fall detected", last());
+        main.drain();
+        assertFalse(done[0]);
+
+        // The stopped utterance's late report is stale and must not advance the queue
+        speech.utteranceFinished(preempted, false);
+        assertEquals("fall detected", last());
+        finishPlaying();
+        assertEquals(0, speech.pendingCount(SpeechManager.Priority.NORMAL));
+        assertEquals(2, engine.spoken.size());
+    }
+
+    @Test
+    public void sayNowPreemptsSameButNotHigherPriority() {
+        speech.say(other, "stay calm", SpeechManager.Priority.EMERGENCY);
+        speech.sayNow(screen, "menu", SpeechManager.Priority.HIGH);
+        assertEquals(0, engine.stops);
+        assertEquals("stay calm", last());
+        finishPlaying();
+        assertEquals("menu", last());
+
+        speech.sayNow(screen, "menu again", SpeechManager.Priority.HIGH);
+        assertEquals(1, engine.stops);
+        assertEquals("menu again", last());
+    }
+
+    @Test
+    public void coalescesQueuedPhrasesWithTheSameSuffix() {
+        speech.say(screen, "warming up", SpeechManager.Priority.NORMAL);
+        speech.sayCoalesced(screen, "car", "in front of you", SpeechManager.Priority.NORMAL);
+        speech.sayCoalesced(screen, "person", "in front of you", SpeechManager.Priority.NORMAL);
+        speech.sayCoalesced(screen, "car", "in front of you", SpeechManager.Priority.NORMAL);   // duplicate
+        speech.sayCoalesced(screen, "dog", "on your left", SpeechManager.Priority.NORMAL);
+        speech.sayCoalesced(screen, "bike", "in front of you", SpeechManager.Priority.NORMAL);
+        speech.sayCoalesced(screen, "bus", "in front of you", SpeechManager.Priority.NORMAL);
+
+        finishPlaying();
+        assertEquals("car, person and bike in front of you", last());   // at most 3 per utterance
+        finishPlaying();
+        assertEquals("dog on your left", last());
+        finishPlaying();
+        assertEquals("bus in front of you", last());
+    }
+
+    @Test
+    public void pendingQueueIsBoundedAndDropsTheNewestLowPriority() {
+        List<Boolean> dropped = new ArrayList<>();
+        speech.say(screen, "playing now", SpeechManager.Priority.NORMAL);
+        for (int i = 0; i < 10; i++) {
+            speech.say(screen, "item " + i, SpeechManager.Priority.NORMAL, c -> { if (!c) dropped.add(c); });
+        }
+        main.drain();
+        assertEquals(2, dropped.size());
+        assertEquals(9, speech.pendingCount(SpeechManager.Priority.NORMAL));   // 8 queued + 1 playing
+    }
+
+    @Test
+    public void cancelByOwnerLeavesOtherOwnersSpeech() {
+        boolean[] done = { true };
+        speech.say(screen, "reading sentence", SpeechManager.Priority.HIGH, c -> done[0] = c);
+        speech.say(other, "car ahead", SpeechManager.Priority.HIGH);
+        speech.say(screen, "next sentence", SpeechManager.Priority.HIGH);
+
+        speech.cancel(screen);
+        main.drain();
+        assertFalse(done[0]);
+        assertEquals(1, engine.stops);
+        assertEquals("car ahead", last());
+        assertEquals(1, speech.pendingCount(SpeechManager.Priority.HIGH));
+
+        // Cancelling an owner that is not playing does not interrupt the engine
+        speech.cancel(screen);
+        assertEquals(1, engine.stops);
+        finishPlaying();
+        assertEquals(0, speech.pendingCount(SpeechManager.Priority.HIGH));
+    }
+
+    @Test
+    public void cancelNeverDropsEmergencySpeech() {
+        speech.say(screen, "help is on the way", SpeechManager.Priority.EMERGENCY);
+        speech.cancel(screen);
+        assertEquals(0, engine.stops);
+        assertEquals(1, speech.pendingCount(SpeechManager.Priority.EMERGENCY));
+    }
+
+    @Test
+    public void refusedUtteranceReportsFailureAndMovesOn() {
+        boolean[] done = { true };
+        engine.refuse = true;
+        speech.say(screen, "refused", SpeechManager.Priority.NORMAL, c -> done[0] = c);
+        main.drain();
+        assertFalse(done[0]);
+        engine.refuse = false;
+        speech.say(screen, "accepted", SpeechManager.Priority.NORMAL);
+        assertEquals("accepted", last());
+    }
+
+    @Test
+    public void failedEngineDropsSpeech() {
+        SpeechManager s = new SpeechManager(main);
+        FakeEngine e = new FakeEngine();
+        s.attach(e);
+        boolean[] done = { true };
+        s.say(screen, "never heard", SpeechManager.Priority.NORMAL, c -> done[0] = c);
+        s.engineReady(false);
+        main.drain();
+        assertFalse(done[0]);
+        assertFalse(s.isReady());
+        assertTrue(e.spoken.isEmpty());
+    }
+}